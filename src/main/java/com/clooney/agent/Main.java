@@ -1,7 +1,10 @@
 package com.clooney.agent;
 
 import com.clooney.agent.config.Config;
+import com.clooney.agent.server.JobServer;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 
@@ -11,6 +14,10 @@ public class Main {
         String mode = "backend";
         String pagesArg = "home,projects,tasks";
         boolean capture = false;
+        boolean crawl = false;
+        boolean watch = false;
+        boolean resume = false;
+        String harArg = null;
 
         for (String arg : args) {
             if (arg.startsWith("--mode=")) {
@@ -19,6 +26,14 @@ public class Main {
                 pagesArg = arg.substring("--pages=".length());
             } else if (arg.equals("--capture")) {
                 capture = true;
+            } else if (arg.equals("--crawl")) {
+                crawl = true;
+            } else if (arg.equals("--watch")) {
+                watch = true;
+            } else if (arg.equals("--resume")) {
+                resume = true;
+            } else if (arg.startsWith("--har=")) {
+                harArg = arg.substring("--har=".length());
             }
         }
 
@@ -29,8 +44,34 @@ public class Main {
         Config config = Config.loadFromEnv();
         Orchestrator orchestrator = new Orchestrator(config);
 
-        if (mode.contains("backend")) {
-            orchestrator.runBackendPipeline(pages, capture);
+        if (harArg != null) {
+            List<Path> hars = Arrays.stream(harArg.split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isEmpty())
+                    .map(Path::of)
+                    .toList();
+            orchestrator.importHar(hars);
+            if (mode.equals("har")) return;
+        }
+
+        if (watch) {
+            orchestrator.runWatch();
+        } else if (mode.contains("backend")) {
+            orchestrator.runBackendPipeline(pages, capture, crawl, resume);
+        } else if (mode.equals("server")) {
+            try {
+                new JobServer(config).start();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        } else if (mode.equals("fidelity")) {
+            if (!orchestrator.runFidelityCheck()) {
+                System.exit(1);
+            }
+        } else if (mode.equals("archive")) {
+            orchestrator.archiveCaptures();
+        } else if (mode.equals("har")) {
+            System.err.println("--mode=har needs --har=<file.har,dir,...>");
         } else {
             System.err.println("Unsupported mode: " + mode);
         }
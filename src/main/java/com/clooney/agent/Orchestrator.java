@@ -1,56 +1,410 @@
 package com.clooney.agent;
 
 import com.clooney.agent.backend.BackendSynthesizer;
+import com.clooney.agent.checkpoint.PipelineCheckpoint;
 import com.clooney.agent.config.Config;
+import com.clooney.agent.config.GenerationOptions;
+import com.clooney.agent.fidelity.FidelityChecker;
+import com.clooney.agent.fidelity.FidelityReport;
 import com.clooney.agent.inspect.APIInspector;
+import com.clooney.agent.inspect.CallStore;
+import com.clooney.agent.inspect.CaptureArchive;
+import com.clooney.agent.inspect.CapturePolicy;
+import com.clooney.agent.inspect.ExploratoryCrawler;
+import com.clooney.agent.inspect.HarImporter;
+import com.clooney.agent.inspect.StoredCall;
+import com.clooney.agent.llm.AdaptiveConcurrencyLLMClient;
+import com.clooney.agent.llm.HedgingLLMClient;
 import com.clooney.agent.llm.LLMClient;
+import com.clooney.agent.llm.ModelRouter;
 import com.clooney.agent.llm.OpenAiLLMClient;
 import com.clooney.agent.llm.StubLLMClient;
+import com.clooney.agent.seed.SeedDataSynthesizer;
+import com.clooney.agent.spec.CaptureClusters;
 import com.clooney.agent.spec.SpecSynthesizer;
+import com.clooney.agent.tests.LoadTestSynthesizer;
 import com.clooney.agent.tests.TestSynthesizer;
+import com.clooney.agent.verify.CompileVerifier;
+import com.clooney.agent.watch.CaptureWatcher;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static com.clooney.agent.checkpoint.PipelineCheckpoint.fingerprint;
 
 public class Orchestrator {
 
     private final Config config;
+    private final GenerationOptions options;
+    private final LLMClient llm;
+    private final CompileVerifier verifier;
+    private final Consumer<String> progress;
 
     public Orchestrator(Config config) {
+        this(config, createLLMClient(config), createVerifier(config), stage -> { });
+    }
+
+    /**
+     * For callers that run several pipelines in one process (server mode):
+     * the LLM client and verifier are shared, {@code progress} receives the
+     * name of every stage as it starts.
+     */
+    public Orchestrator(Config config, LLMClient llm, CompileVerifier verifier, Consumer<String> progress) {
         this.config = config;
+        this.options = config.getGenerationOptions();
+        this.llm = llm;
+        this.verifier = verifier;
+        this.progress = progress;
+    }
+
+    public static LLMClient createLLMClient(Config config) {
+        boolean useStub = Boolean.parseBoolean(
+                System.getenv().getOrDefault("CLOONEY_USE_STUB_LLM", "true")
+        );
+
+        if (useStub) {
+            return new StubLLMClient(config.getOpenAiApiKey(), config.getModelName());
+        }
+
+        GenerationOptions options = config.getGenerationOptions();
+        List<LLMClient> modelClients = new ArrayList<>();
+        LLMClient client;
+        if (options.getLlmModels().isEmpty()) {
+            client = createModelClient(config, config.getModelName());
+            modelClients.add(client);
+        } else {
+            List<ModelRouter.Model> models = ModelRouter.parseModels(options.getLlmModels());
+            Map<String, LLMClient> clients = new HashMap<>();
+            for (ModelRouter.Model model : models) {
+                clients.put(model.name(), createModelClient(config, model.name()));
+            }
+            modelClients.addAll(clients.values());
+            client = new ModelRouter(models, clients, ModelRouter.parseBudgets(options.getLlmStageBudgets()));
+        }
+        if (!options.isLlmAdaptive()) return client;
+
+        // Throttling is per account, not per model: one limiter in front of everything,
+        // which the hedging clients below it also count their duplicates against
+        AdaptiveConcurrencyLLMClient limiter = new AdaptiveConcurrencyLLMClient(
+                client, options.getLlmAdaptiveInitialLimit(), options.getLlmMaxConcurrency());
+        for (LLMClient modelClient : modelClients) {
+            if (modelClient instanceof HedgingLLMClient hedging) hedging.limitHedgesBy(limiter);
+        }
+        return limiter;
+    }
+
+    private static LLMClient createModelClient(Config config, String model) {
+        GenerationOptions options = config.getGenerationOptions();
+        List<OpenAiLLMClient> endpoints = new ArrayList<>();
+        for (String baseUrl : options.getLlmBaseUrls().split(",")) {
+            if (!baseUrl.isBlank()) {
+                endpoints.add(new OpenAiLLMClient(config.getOpenAiApiKey(), model, baseUrl.trim()));
+            }
+        }
+        return endpoints.size() == 1 && !options.isLlmHedge()
+                ? endpoints.get(0)
+                : new HedgingLLMClient(endpoints, options.isLlmHedge(),
+                        options.getLlmHedgePercentile(), options.getLlmHedgeInitialDelayMs());
+    }
+
+    public static CompileVerifier createVerifier(Config config) {
+        GenerationOptions options = config.getGenerationOptions();
+        return options.isVerifyEnabled() || options.getCandidates() > 1
+                ? new CompileVerifier(config.getCacheDir())
+                : null;
     }
 
     public void runBackendPipeline(List<String> pages, boolean capture) {
+        runBackendPipeline(pages, capture, false);
+    }
+
+    public void runBackendPipeline(List<String> pages, boolean capture, boolean resume) {
+        runBackendPipeline(pages, capture, false, resume);
+    }
+
+    /**
+     * @param crawl  capture by crawling from the pages (see {@link ExploratoryCrawler}) instead of
+     *               visiting only them; implies capture
+     * @param resume skip the stages whose checkpoint (see {@link PipelineCheckpoint}) is still valid
+     */
+    public void runBackendPipeline(List<String> pages, boolean capture, boolean crawl, boolean resume) {
+        Path logsDir = config.getLogsDir();
+        Path openapi = config.getSpecDir().resolve("openapi.yaml");
+        Path schema = config.getSpecDir().resolve("schema.sql");
+        String settings = options.fingerprint();
+
+        PipelineCheckpoint checkpoint = new PipelineCheckpoint(config.getCheckpointDir(), resume);
+        // Candidates must be independent samples, so they bypass the replay like they bypass the cache
+        LLMClient llm = options.getCandidates() > 1 ? this.llm : checkpoint.recording(this.llm);
+
+        if (crawl) {
+            checkpoint.run("capture", fingerprint("crawl", pages), List.of(logsDir), () -> {
+                progress.accept("capture");
+                System.out.println("[Clooney] Crawling from " + pages);
+                new ExploratoryCrawler(config).crawl(pages);
+            });
+        } else if (capture) {
+            checkpoint.run("capture", fingerprint("pages", pages), List.of(logsDir), () -> {
+                progress.accept("capture");
+                APIInspector inspector = new APIInspector(config);
+                for (String page : pages) {
+                    System.out.println("[Clooney] Capturing API calls for " + page);
+                    inspector.capturePageCalls(page);
+                }
+            });
+        }
+
+        checkpoint.run("spec", fingerprint(logsDir, options.getSpecEngine(), options.isSpecPolish()),
+                List.of(openapi, schema), () -> {
+            progress.accept("spec");
+            System.out.println("[Clooney] Synthesizing spec...");
+            new SpecSynthesizer(logsDir, config.getSpecDir(), llm, options).synthesize();
+        });
+
+        checkpoint.run("backend", fingerprint(openapi, schema, settings),
+                List.of(config.getSpringBootOutputDir()), () -> generateBackend(llm));
+
+        if (options.isSeedEnabled()) {
+            checkpoint.run("seed", fingerprint(logsDir, schema, settings),
+                    List.of(config.getSpringBootOutputDir().resolve("src/main/resources/data.sql")),
+                    this::generateSeedData);
+        }
+
+        checkpoint.run("tests", fingerprint(openapi, settings),
+                List.of(config.getTestsOutputDir()), () -> generateTests(llm));
+
+        if (options.isLoadTestsEnabled()) {
+            checkpoint.run("load-tests", fingerprint(logsDir, openapi, settings),
+                    List.of(config.getLoadTestsOutputDir()), this::generateLoadTests);
+        }
+
+        System.out.println("[Clooney] Backend pipeline completed.");
+        LLMClient provider = this.llm;
+        if (provider instanceof AdaptiveConcurrencyLLMClient adaptive) {
+            System.out.println("[Clooney] LLM concurrency: " + adaptive.summary());
+            provider = adaptive.getDelegate();
+        }
+        if (provider instanceof ModelRouter router) {
+            System.out.println("[Clooney] LLM models: " + router.summary());
+        }
+        if (provider instanceof HedgingLLMClient hedging) {
+            System.out.println("[Clooney] LLM endpoints: " + hedging.summary());
+        }
+    }
+
+    /**
+     * Long-running mode: keep the captures clustered in memory and regenerate
+     * whatever a change to backend/asana_logs actually affects.
+     *
+     *  - Endpoint shapes unchanged (only new values)  -> seed data / load mix only.
+     *  - Shapes changed                               -> spec again; then backend
+     *    if openapi.yaml or schema.sql changed, tests if openapi.yaml changed.
+     *
+     * Generated files with identical content are not rewritten.
+     */
+    public void runWatch() {
         Path logsDir = config.getLogsDir();
         Path specDir = config.getSpecDir();
-        Path backendDir = config.getSpringBootOutputDir();
-        Path testsDir = config.getTestsOutputDir();
 
-        boolean useStub = Boolean.parseBoolean(
-                System.getenv().getOrDefault("CLOONEY_USE_STUB_LLM", "true")
-        );
+        CaptureClusters captures = new CaptureClusters(logsDir);
+        captures.loadAll();
+        Map<String, String> shapes = captures.shapes();
+        System.out.println("[Clooney] Holding " + captures.storeSummary() + ".");
+
+        if (!Files.exists(specDir.resolve("openapi.yaml"))) {
+            System.out.println("[Clooney] No spec yet, running the full pipeline first...");
+            runBackendPipeline(List.of(), false);
+        }
+
+        System.out.println("[Clooney] Watching " + logsDir.toAbsolutePath() + " (Ctrl+C to stop)...");
+        AtomicReference<Map<String, String>> current = new AtomicReference<>(shapes);
+        new CaptureWatcher(logsDir, 500).watch(changedFiles -> {
+            try {
+                current.set(regenerate(captures, current.get(), changedFiles));
+            } catch (RuntimeException e) {
+                // Keep watching: the next capture change gets another chance
+                System.err.println("[Clooney] Regeneration failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private Map<String, String> regenerate(CaptureClusters captures, Map<String, String> before, Set<Path> changedFiles) {
+        long start = System.nanoTime();
+        boolean allReadable = true;
+        for (Path file : changedFiles) {
+            allReadable &= captures.refresh(file);
+        }
+        if (!allReadable) {
+            // Most likely a capture still being written; its next write event retries
+            System.out.println("[Clooney] Waiting for complete capture logs before regenerating.");
+            return before;
+        }
+        Map<String, String> after = captures.shapes();
+        Set<String> changedEndpoints = CaptureClusters.changedEndpoints(before, after);
 
-        LLMClient llm = useStub
-                ? new StubLLMClient(config.getOpenAiApiKey(), config.getModelName())
-                : new OpenAiLLMClient(config.getOpenAiApiKey(), config.getModelName());
+        System.out.println("[Clooney] " + changedFiles.size() + " capture log(s) changed, "
+                + changedEndpoints.size() + " endpoint shape(s) changed " + changedEndpoints);
 
-        if (capture) {
-            APIInspector inspector = new APIInspector(config);
-            for (String page : pages) {
-                System.out.println("[Clooney] Capturing API calls for " + page);
-                inspector.capturePageCalls(page);
+        if (!changedEndpoints.isEmpty()) {
+            Path specDir = config.getSpecDir();
+            String openapiBefore = readIfExists(specDir.resolve("openapi.yaml"));
+            String schemaBefore = readIfExists(specDir.resolve("schema.sql"));
+
+            progress.accept("spec");
+            System.out.println("[Clooney] Synthesizing spec...");
+            new SpecSynthesizer(config.getLogsDir(), specDir, llm, options).synthesize(captures.clusters());
+
+            boolean openapiChanged = !readIfExists(specDir.resolve("openapi.yaml")).equals(openapiBefore);
+            boolean schemaChanged = !readIfExists(specDir.resolve("schema.sql")).equals(schemaBefore);
+            if (openapiChanged || schemaChanged) {
+                generateBackend(llm);
+            }
+            if (openapiChanged) {
+                generateTests(llm);
+            }
+            if (!openapiChanged && !schemaChanged) {
+                System.out.println("[Clooney] Spec unchanged; backend and tests kept.");
             }
         }
 
-        System.out.println("[Clooney] Synthesizing spec...");
-        new SpecSynthesizer(logsDir, specDir, llm).synthesize();
+        if (options.isSeedEnabled()) {
+            generateSeedData();
+        }
+        if (options.isLoadTestsEnabled()) {
+            generateLoadTests();
+        }
+        System.out.println("[Clooney] Regenerated in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        return after;
+    }
 
-        System.out.println("[Clooney] Generating Spring Boot backend...");
-        new BackendSynthesizer(specDir, backendDir, llm).synthesizeApp();
+    private void generateBackend(LLMClient llm) {
+        progress.accept("backend");
+        if (options.isReactiveBackend()) {
+            System.out.println("[Clooney] Generating Spring Boot backend (WebFlux + R2DBC)...");
+            if (options.isCacheEnabled() || options.isBulkEnabled() || options.isEventsEnabled()) {
+                System.out.println("[Clooney] CLOONEY_BACKEND_CACHE/BULK/EVENTS need the servlet + JPA stack;"
+                        + " not generated for the reactive backend.");
+            }
+        } else {
+            System.out.println("[Clooney] Generating Spring Boot backend...");
+        }
+        new BackendSynthesizer(config.getSpecDir(), config.getSpringBootOutputDir(), llm, options, verifier)
+                .synthesizeApp();
+    }
 
+    private void generateSeedData() {
+        progress.accept("seed");
+        System.out.println("[Clooney] Generating seed data (scale x" + options.getSeedScaleFactor() + ")...");
+        SeedDataSynthesizer.Format format = "csv".equals(options.getSeedFormat())
+                ? SeedDataSynthesizer.Format.CSV
+                : SeedDataSynthesizer.Format.SQL;
+        new SeedDataSynthesizer(config.getLogsDir(), config.getSpecDir(), config.getSpringBootOutputDir(),
+                options.getSeedScaleFactor(), format).synthesizeSeedData();
+    }
+
+    private void generateTests(LLMClient llm) {
+        progress.accept("tests");
         System.out.println("[Clooney] Generating JUnit tests...");
-        new TestSynthesizer(specDir, testsDir, llm).synthesizeTests();
+        new TestSynthesizer(config.getSpecDir(), config.getTestsOutputDir(), llm, options, verifier,
+                config.getTestsModuleDir().resolve("pom.xml")).synthesizeTests();
+    }
 
-        System.out.println("[Clooney] Backend pipeline completed.");
+    private void generateLoadTests() {
+        progress.accept("load-tests");
+        System.out.println("[Clooney] Generating load-test module...");
+        new LoadTestSynthesizer(config.getLogsDir(), config.getSpecDir(), config.getLoadTestsOutputDir())
+                .synthesizeLoadTests();
+    }
+
+    private static String readIfExists(Path file) {
+        try {
+            return Files.exists(file) ? Files.readString(file) : "";
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Imports HAR exports into the logs dir as raw_har_*.json, with the capture policy applied.
+     */
+    public void importHar(List<Path> sources) {
+        System.out.println("[Clooney] Importing HAR files " + sources + "...");
+        new HarImporter(config.getLogsDir(), CapturePolicy.from(options), options.getHarImportThreads())
+                .importAll(sources);
+    }
+
+    /**
+     * Converts every raw_*.json in the logs dir into a raw_*.capture archive. A JSON log is
+     * deleted only once its archive reads back the same calls (paths, queries, statuses and
+     * body bytes, in capture order); otherwise the archive is removed and the JSON kept.
+     */
+    public void archiveCaptures() {
+        Path logsDir = config.getLogsDir();
+        if (!Files.exists(logsDir)) return;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(logsDir, "raw_*.json")) {
+            for (Path json : stream) {
+                String name = json.getFileName().toString();
+                Path archive = CaptureArchive.sibling(json);
+
+                // Replaces an archive of an earlier capture of the same page
+                List<StoredCall> calls = new CallStore().read(json);
+                CaptureArchive.write(archive, calls);
+                if (!new CallStore().read(archive).equals(calls)) {
+                    Files.delete(archive);
+                    System.err.println("[Clooney] Keeping " + name + ": its archive did not read back the same calls.");
+                    continue;
+                }
+                long before = Files.size(json);
+                Files.delete(json);
+                System.out.println("[Clooney] " + name + " -> " + archive.getFileName() + ": " + calls.size()
+                        + " calls, " + before / 1024 + " KiB -> " + Files.size(archive) / 1024 + " KiB");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Replays the captured calls against an already running generated backend
+     * and writes backend/generated/fidelity-report.json.
+     *
+     * @return false when the overall fidelity is below CLOONEY_FIDELITY_MIN_PERCENT
+     */
+    public boolean runFidelityCheck() {
+        System.out.println("[Clooney] Replaying captured calls against " + options.getFidelityBaseUrl() + "...");
+
+        FidelityReport report = new FidelityChecker(
+                config.getLogsDir(),
+                config.getSpecDir(),
+                options.getFidelityBaseUrl(),
+                options.getFidelityConcurrency(),
+                Pattern.compile(options.getFidelityIgnoredFields())
+        ).check();
+
+        Path reportFile = config.getSpecDir().resolve("fidelity-report.json");
+        try {
+            report.writeTo(reportFile);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        System.out.println("[Clooney] Fidelity per endpoint:\n" + report.summary());
+        System.out.println("[Clooney] Wrote " + reportFile.toAbsolutePath());
+
+        boolean passed = 100 * report.overallScore() >= options.getFidelityMinPercent();
+        if (!passed) {
+            System.err.println("[Clooney] Fidelity below CLOONEY_FIDELITY_MIN_PERCENT="
+                    + options.getFidelityMinPercent() + "%.");
+        }
+        return passed;
     }
 }
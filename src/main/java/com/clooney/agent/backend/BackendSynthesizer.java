@@ -1,22 +1,44 @@
 package com.clooney.agent.backend;
 
+import com.clooney.agent.config.GenerationOptions;
+import com.clooney.agent.llm.CompletionFiles;
 import com.clooney.agent.llm.LLMClient;
+import com.clooney.agent.spec.OpenApiOperations;
 import com.clooney.agent.spec.Prompts;
+import com.clooney.agent.verify.CandidateSelector;
+import com.clooney.agent.verify.CandidateSelector.Candidate;
+import com.clooney.agent.verify.CompileReport;
+import com.clooney.agent.verify.CompileVerifier;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class BackendSynthesizer {
 
     private final Path specDir;
     private final Path outputDir;
     private final LLMClient llm;
+    private final GenerationOptions options;
+    private final CompileVerifier verifier; // null = no compile checks
 
     public BackendSynthesizer(Path specDir, Path outputDir, LLMClient llm) {
+        this(specDir, outputDir, llm, GenerationOptions.defaults());
+    }
+
+    public BackendSynthesizer(Path specDir, Path outputDir, LLMClient llm, GenerationOptions options) {
+        this(specDir, outputDir, llm, options, null);
+    }
+
+    public BackendSynthesizer(Path specDir, Path outputDir, LLMClient llm, GenerationOptions options,
+                              CompileVerifier verifier) {
         this.specDir = specDir;
         this.outputDir = outputDir; // e.g. backend/generated/java-backend
         this.llm = llm;
+        this.options = options;
+        this.verifier = verifier;
     }
 
     public void synthesizeApp() {
@@ -24,56 +46,70 @@ public class BackendSynthesizer {
             String openapi = Files.readString(specDir.resolve("openapi.yaml"));
             String schemaSql = Files.readString(specDir.resolve("schema.sql"));
 
-            String prompt = Prompts.buildBackendPrompt(openapi, schemaSql);
-            String completion = llm.complete(prompt);
+            String prompt = Prompts.buildBackendPrompt(openapi, schemaSql, options);
+            Map<String, String> files;
+            boolean compiled = false;
+            if (options.getCandidates() > 1) {
+                Candidate best = new CandidateSelector(llm, options.getCandidates(), verifier, null,
+                        OpenApiOperations.parse(openapi)).select(prompt);
+                files = best.files();
+                compiled = Boolean.TRUE.equals(best.compiled());
+            } else {
+                files = CompletionFiles.parse(llm.complete(prompt));
+            }
 
-            writeFilesFromCompletion(completion);
+            if (verifier != null && options.isVerifyEnabled() && !compiled) {
+                files = verifyAndRepair(files);
+            }
+            int written = CompletionFiles.write(files, outputDir);
+            System.out.println("[Clooney] Wrote " + written + " of " + files.size() + " backend files (unchanged files kept).");
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void writeFilesFromCompletion(String completion) throws IOException {
-        Files.createDirectories(outputDir); // ensure base dir exists
-
-        final String fileMarker = "===FILE:";
-        final String endMarker = "===END===";
-
-        int idx = 0;
-        while (true) {
-            int start = completion.indexOf(fileMarker, idx);
-            if (start < 0) {
-                break;
+    /**
+     * Compile the generated sources in memory; on errors, send the diagnostics and the
+     * failing files back through a repair prompt and merge the corrected files.
+     * A backend that still does not compile is written anyway, with the errors logged.
+     */
+    private Map<String, String> verifyAndRepair(Map<String, String> files) {
+        Map<String, String> current = new LinkedHashMap<>(files);
+        for (int attempt = 0; ; attempt++) {
+            CompileReport report;
+            try {
+                report = verifier.verify(current);
+            } catch (IOException e) {
+                System.out.println("[Clooney] WARNING: skipping compile check: " + e.getMessage());
+                return current;
             }
 
-            int pathStart = start + fileMarker.length();
-            int pathEnd = completion.indexOf("===", pathStart);
-            if (pathEnd < 0) {
-                break;
+            if (report.success()) {
+                System.out.println("[Clooney] Generated backend compiles (" + report.millis() + " ms).");
+                return current;
             }
-
-            String relativePath = completion.substring(pathStart, pathEnd).trim();
-            // we expect relativePath like "pom.xml" or "src/main/java/..."
-
-            int contentStart = completion.indexOf('\n', pathEnd);
-            if (contentStart < 0) {
-                break;
+            System.out.println("[Clooney] Generated backend has " + report.problems().size()
+                    + " compile error(s):\n" + report.summary());
+            if (attempt >= options.getRepairAttempts()) {
+                System.out.println("[Clooney] WARNING: writing backend with compile errors.");
+                return current;
             }
-            contentStart += 1; // skip newline
 
-            int nextFile = completion.indexOf(fileMarker, contentStart);
-            int end = nextFile >= 0 ? nextFile : completion.indexOf(endMarker, contentStart);
-            if (end < 0) {
-                end = completion.length();
+            Map<String, String> broken = new LinkedHashMap<>();
+            for (String path : report.problemsByFile().keySet()) {
+                if (current.containsKey(path)) {
+                    broken.put(path, current.get(path));
+                }
             }
-
-            String fileContent = completion.substring(contentStart, end).trim();
-
-            Path target = outputDir.resolve(relativePath);
-            Files.createDirectories(target.getParent());
-            Files.writeString(target, fileContent);
-
-            idx = end;
+            System.out.println("[Clooney] Repair attempt " + (attempt + 1) + " for " + broken.size() + " file(s)...");
+            String completion = llm.complete(Prompts.buildRepairPrompt(report.summary(), broken));
+            Map<String, String> repaired = CompletionFiles.parse(completion);
+            repaired.keySet().retainAll(broken.keySet());
+            if (repaired.isEmpty() || repaired.equals(broken)) {
+                System.out.println("[Clooney] WARNING: repair produced no changes; writing backend with compile errors.");
+                return current;
+            }
+            current.putAll(repaired);
         }
     }
 }
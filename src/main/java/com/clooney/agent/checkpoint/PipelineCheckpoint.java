@@ -0,0 +1,203 @@
+package com.clooney.agent.checkpoint;
+
+import com.clooney.agent.llm.LLMClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Per-stage checkpoints of a pipeline run, kept under .clooney/checkpoint:
+ *
+ *  - manifest.json: status, input fingerprint, outputs and timings of every stage
+ *  - completions/<stage>/<fingerprint of prompt>.txt: every LLM completion received
+ *    during the run, filed under the stage that asked for it
+ *
+ * A normal run starts from an empty checkpoint. With resume, a stage is skipped
+ * when the manifest marks it done, its input fingerprint is unchanged and its
+ * outputs still exist; the first stage that does not qualify runs again, and its
+ * LLM calls are answered from the saved completions where the prompt is identical.
+ * Only completions of stages that finished are replayed: those of a failed or
+ * interrupted stage are dropped on resume, since they may be what made it fail.
+ */
+public class PipelineCheckpoint {
+
+    public enum Status { RUNNING, DONE, FAILED }
+
+    /**
+     * One manifest entry.
+     */
+    public static class StageRecord {
+        public Status status;
+        public String inputs;
+        public List<String> outputs = new ArrayList<>();
+        public long startedAt;
+        public long finishedAt;
+        public String error;
+    }
+
+    private final Path dir;
+    private final boolean resume;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, StageRecord> manifest;
+    // Stage whose body is running; its LLM calls are recorded under completions/<stage>
+    private volatile String currentStage = "pipeline";
+
+    public PipelineCheckpoint(Path dir, boolean resume) {
+        this.dir = dir;
+        this.resume = resume;
+        try {
+            if (!resume) {
+                deleteRecursively(dir);
+            }
+            Files.createDirectories(dir.resolve("completions"));
+            Path file = dir.resolve("manifest.json");
+            this.manifest = Files.exists(file)
+                    ? mapper.readValue(file.toFile(), new TypeReference<LinkedHashMap<String, StageRecord>>() { })
+                    : new LinkedHashMap<>();
+            for (Map.Entry<String, StageRecord> entry : manifest.entrySet()) {
+                if (entry.getValue().status != Status.DONE) {
+                    deleteRecursively(dir.resolve("completions").resolve(entry.getKey()));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Run {@code stage} unless resuming and its checkpoint is still valid.
+     *
+     * @param inputs  fingerprint of everything the stage reads (see {@link #fingerprint})
+     * @param outputs files/directories the stage produces
+     */
+    public void run(String stage, String inputs, List<Path> outputs, Runnable body) {
+        StageRecord previous = manifest.get(stage);
+        if (resume && previous != null && previous.status == Status.DONE
+                && inputs.equals(previous.inputs)
+                && outputs.stream().allMatch(Files::exists)) {
+            System.out.println("[Clooney] Resume: stage '" + stage + "' already complete, skipping.");
+            return;
+        }
+
+        StageRecord record = new StageRecord();
+        record.status = Status.RUNNING;
+        record.inputs = inputs;
+        outputs.forEach(p -> record.outputs.add(p.toString()));
+        record.startedAt = System.currentTimeMillis();
+        save(stage, record);
+
+        currentStage = stage;
+        try {
+            body.run();
+        } catch (RuntimeException e) {
+            record.status = Status.FAILED;
+            record.error = String.valueOf(e.getMessage());
+            record.finishedAt = System.currentTimeMillis();
+            save(stage, record);
+            throw e;
+        } finally {
+            currentStage = "pipeline";
+        }
+
+        record.status = Status.DONE;
+        record.finishedAt = System.currentTimeMillis();
+        save(stage, record);
+    }
+
+    /**
+     * Wraps {@code llm} so every completion is persisted; when resuming, a saved
+     * completion for the same prompt is returned instead of calling the model.
+     */
+    public LLMClient recording(LLMClient llm) {
+        return prompt -> {
+            Path file = dir.resolve("completions").resolve(currentStage).resolve(fingerprint(prompt) + ".txt");
+            try {
+                if (resume && Files.exists(file)) {
+                    return Files.readString(file);
+                }
+                String completion = llm.complete(prompt);
+                Files.createDirectories(file.getParent());
+                Path tmp = Files.createTempFile(file.getParent(), "completion", ".tmp");
+                Files.writeString(tmp, completion);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return completion;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * SHA-256 over the given parts: strings as-is, files by content, directories
+     * by relative path, size and modification time of every file below them.
+     * Missing paths contribute a marker, so creating them changes the fingerprint.
+     */
+    public static String fingerprint(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                if (part instanceof Path path) {
+                    digestPath(digest, path);
+                } else {
+                    digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void digestPath(MessageDigest digest, Path path) throws IOException {
+        if (!Files.exists(path)) {
+            digest.update(("missing:" + path).getBytes(StandardCharsets.UTF_8));
+        } else if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    String entry = path.relativize(file) + ":" + Files.size(file) + ":"
+                            + Files.getLastModifiedTime(file).toMillis() + "\n";
+                    digest.update(entry.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        } else {
+            digest.update(Files.readAllBytes(path));
+        }
+    }
+
+    private void save(String stage, StageRecord record) {
+        manifest.put(stage, record);
+        try {
+            Path tmp = Files.createTempFile(dir, "manifest", ".tmp");
+            mapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), manifest);
+            Files.move(tmp, dir.resolve("manifest.json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) return;
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path p : paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
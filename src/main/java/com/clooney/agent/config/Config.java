@@ -16,6 +16,9 @@ public class Config {
     // Project root for output generation
     private final Path projectRoot;
 
+    // Optional features for generated code
+    private final GenerationOptions generationOptions;
+
     public Config(
             String openAiApiKey,
             String modelName,
@@ -23,6 +26,19 @@ public class Config {
             String asanaEmail,
             String asanaPassword,
             String asanaCookie
+    ) {
+        this(openAiApiKey, modelName, projectRoot, asanaEmail, asanaPassword, asanaCookie,
+                GenerationOptions.defaults());
+    }
+
+    public Config(
+            String openAiApiKey,
+            String modelName,
+            Path projectRoot,
+            String asanaEmail,
+            String asanaPassword,
+            String asanaCookie,
+            GenerationOptions generationOptions
     ) {
         this.openAiApiKey = openAiApiKey;
         this.modelName = modelName;
@@ -30,6 +46,7 @@ public class Config {
         this.asanaEmail = asanaEmail;
         this.asanaPassword = asanaPassword;
         this.asanaCookie = asanaCookie;
+        this.generationOptions = generationOptions;
     }
 
     // ===========================
@@ -68,7 +85,12 @@ public class Config {
         // ---------------------------
         Path root = Path.of("").toAbsolutePath();
 
-        return new Config(apiKey, model, root, email, password, cookie);
+        // ---------------------------
+        // Optional: generated backend features
+        // ---------------------------
+        GenerationOptions options = GenerationOptions.fromEnv(System.getenv());
+
+        return new Config(apiKey, model, root, email, password, cookie, options);
     }
 
     // ===========================
@@ -94,6 +116,10 @@ public class Config {
         return asanaCookie;
     }
 
+    public GenerationOptions getGenerationOptions() {
+        return generationOptions;
+    }
+
     public Path getProjectRoot() {
         return projectRoot;
     }
@@ -113,4 +139,26 @@ public class Config {
     public Path getTestsOutputDir() {
         return projectRoot.resolve("tests/backend/src/test/java/tests/backend");
     }
-}
\ No newline at end of file
+
+    public Path getTestsModuleDir() {
+        return projectRoot.resolve("tests/backend");
+    }
+
+    public Path getLoadTestsOutputDir() {
+        return projectRoot.resolve("tests/load");
+    }
+
+    /**
+     * Machine-local cache (resolved dependency classpaths, ...), not meant to be committed.
+     */
+    public Path getCacheDir() {
+        return projectRoot.resolve(".clooney/cache");
+    }
+
+    /**
+     * Stage manifest and saved LLM completions of the last pipeline run (--resume).
+     */
+    public Path getCheckpointDir() {
+        return projectRoot.resolve(".clooney/checkpoint");
+    }
+}
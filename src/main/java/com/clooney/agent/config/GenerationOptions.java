@@ -0,0 +1,495 @@
+package com.clooney.agent.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Optional features for the generated backend and tests, plus tuning for the
+ * long-running modes (fidelity replay, server).
+ *
+ * Every option is read from a CLOONEY_* environment variable and is off by
+ * default, so a plain run still produces the minimal Spring Boot clone.
+ */
+public class GenerationOptions {
+
+    // Read-through cache + HTTP caching headers
+    private final boolean cacheEnabled;
+    private final long cacheTtlSeconds;
+    private final long cacheMaxEntries;
+
+    // Batch create/update + NDJSON bulk load endpoints
+    private final boolean bulkEnabled;
+    private final long batchSize;
+
+    // Seed rows derived from captured responses, loaded via data.sql
+    private final boolean seedEnabled;
+    private final int seedScaleFactor;
+    private final String seedFormat;
+
+    // Append-only change log + /events sync endpoint
+    private final boolean eventsEnabled;
+
+    // Spring AOT + CDS archive + lazy initialization
+    private final boolean fastStartup;
+
+    // "mvc" (Spring MVC + JPA, thread per request) or "reactive" (WebFlux + R2DBC)
+    private final String backendStack;
+
+    // Actuator + per-operation Micrometer timers + Prometheus endpoint
+    private final boolean metricsEnabled;
+    private final String metricsSloMs;
+
+    // tests/load module: weighted request mix + HttpClient load generator
+    private final boolean loadTestsEnabled;
+
+    // In-process javac check of the generated backend + LLM repair rounds
+    private final boolean verifyEnabled;
+    private final int repairAttempts;
+
+    // Concurrent completions per backend/tests prompt; the first passing candidate wins
+    private final int candidates;
+
+    // Spec synthesis prompts only for new/changed endpoint clusters and merges into openapi.yaml
+    private final boolean specDelta;
+
+    // "llm" (prompt with the clustered calls) or "local" (deterministic inference, optional LLM polish)
+    private final String specEngine;
+    private final boolean specPolish;
+
+    // Capture policies of the APIInspector (see CapturePolicy)
+    private final String captureBlockedTypes;
+    private final String captureBlockedHosts;
+    private final String captureContentTypes;
+    private final int captureMaxBodyBytes;
+    private final String captureOversize;
+    private final int harImportThreads;
+
+    // OpenAI-compatible endpoints, hedging and failover (see HedgingLLMClient)
+    private final String llmBaseUrls;
+    private final boolean llmHedge;
+    private final int llmHedgePercentile;
+    private final int llmHedgeInitialDelayMs;
+    private final boolean llmAdaptive;
+    private final int llmAdaptiveInitialLimit;
+
+    // Per-stage model routing (see ModelRouter); empty = OPENAI_MODEL for everything
+    private final String llmModels;
+    private final String llmStageBudgets;
+
+    // Exploratory crawl (--crawl, see ExploratoryCrawler)
+    private final int crawlConcurrency;
+    private final int crawlMaxPages;
+    private final int crawlMaxSeconds;
+    private final int crawlSaturation;
+    private final int crawlDwellMs;
+    private final int crawlPerRoute;
+
+    // Replay of captured calls against the running backend (--mode=fidelity)
+    private final String fidelityBaseUrl;
+    private final int fidelityConcurrency;
+    private final String fidelityIgnoredFields;
+    private final int fidelityMinPercent;
+
+    // Job server (--mode=server) and its shared LLM client
+    private final int serverPort;
+    private final int serverWorkers;
+    private final int serverQueueSize;
+    private final int llmMaxConcurrency;
+    private final int llmRequestsPerMinute;
+
+    // Every CLOONEY_* setting this instance was built from, sorted
+    private final Map<String, String> settings = new TreeMap<>();
+
+    private GenerationOptions(Map<String, String> env) {
+        env.forEach((name, value) -> {
+            if (name.startsWith("CLOONEY_")) settings.put(name, value);
+        });
+        this.cacheEnabled = flag(env, "CLOONEY_BACKEND_CACHE", false);
+        this.cacheTtlSeconds = number(env, "CLOONEY_BACKEND_CACHE_TTL_SECONDS", 60);
+        this.cacheMaxEntries = number(env, "CLOONEY_BACKEND_CACHE_MAX_ENTRIES", 10_000);
+        this.bulkEnabled = flag(env, "CLOONEY_BACKEND_BULK", false);
+        this.batchSize = number(env, "CLOONEY_BACKEND_BATCH_SIZE", 500);
+        if (batchSize <= 0) {
+            // The generated BulkWriteService chunks by this size: 0 never advances, < 0 cannot size a batch
+            throw new IllegalStateException("ERROR: CLOONEY_BACKEND_BATCH_SIZE must be positive, got " + batchSize);
+        }
+        this.seedEnabled = flag(env, "CLOONEY_SEED", false);
+        this.seedScaleFactor = (int) number(env, "CLOONEY_SEED_SCALE", 1);
+        this.seedFormat = choice(env, "CLOONEY_SEED_FORMAT", "sql", "csv");
+        this.eventsEnabled = flag(env, "CLOONEY_BACKEND_EVENTS", false);
+        this.fastStartup = flag(env, "CLOONEY_BACKEND_FAST_STARTUP", false);
+        this.backendStack = choice(env, "CLOONEY_BACKEND_STACK", "mvc", "reactive");
+        this.metricsEnabled = flag(env, "CLOONEY_BACKEND_METRICS", false);
+        this.metricsSloMs = env.getOrDefault("CLOONEY_BACKEND_METRICS_SLO_MS", "50,100,250,500,1000").replace(" ", "");
+        if (!metricsSloMs.matches("\\d+(,\\d+)*")) {
+            throw new IllegalStateException("ERROR: CLOONEY_BACKEND_METRICS_SLO_MS must be comma-separated milliseconds, got '"
+                    + metricsSloMs + "'");
+        }
+        this.loadTestsEnabled = flag(env, "CLOONEY_LOAD_TESTS", false);
+        this.verifyEnabled = flag(env, "CLOONEY_VERIFY", false);
+        this.repairAttempts = (int) number(env, "CLOONEY_VERIFY_REPAIR_ATTEMPTS", 1);
+        this.candidates = (int) positive(env, "CLOONEY_CANDIDATES", 1);
+        this.specDelta = flag(env, "CLOONEY_SPEC_DELTA", false);
+        this.specEngine = choice(env, "CLOONEY_SPEC_ENGINE", "llm", "local");
+        this.specPolish = flag(env, "CLOONEY_SPEC_POLISH", false);
+        this.captureBlockedTypes = env.getOrDefault("CLOONEY_CAPTURE_BLOCK", "image,font,media").trim();
+        this.captureBlockedHosts = env.getOrDefault("CLOONEY_CAPTURE_BLOCK_HOSTS",
+                "google-analytics.com,googletagmanager.com,doubleclick.net,segment.io,segment.com,"
+                        + "mixpanel.com,amplitude.com,fullstory.com,hotjar.com,sentry.io,datadoghq.com").trim();
+        this.captureContentTypes = env.getOrDefault("CLOONEY_CAPTURE_CONTENT_TYPES", "application/json,text/json").trim();
+        this.captureMaxBodyBytes = (int) number(env, "CLOONEY_CAPTURE_MAX_BODY_BYTES", 1_048_576);
+        this.captureOversize = choice(env, "CLOONEY_CAPTURE_OVERSIZE", "hash", "truncate");
+        this.harImportThreads = (int) number(env, "CLOONEY_HAR_THREADS", 0);
+        this.llmBaseUrls = env.getOrDefault("CLOONEY_LLM_BASE_URLS", "https://api.openai.com/v1").trim();
+        this.llmHedge = flag(env, "CLOONEY_LLM_HEDGE", false);
+        this.llmHedgePercentile = (int) number(env, "CLOONEY_LLM_HEDGE_PERCENTILE", 95);
+        this.llmHedgeInitialDelayMs = (int) number(env, "CLOONEY_LLM_HEDGE_INITIAL_DELAY_MS", 20_000);
+        this.llmAdaptive = flag(env, "CLOONEY_LLM_ADAPTIVE", false);
+        this.llmAdaptiveInitialLimit = (int) number(env, "CLOONEY_LLM_ADAPTIVE_INITIAL_LIMIT", 2);
+        this.llmModels = env.getOrDefault("CLOONEY_LLM_MODELS", "").trim();
+        this.llmStageBudgets = env.getOrDefault("CLOONEY_LLM_STAGE_BUDGETS", "").trim();
+        this.crawlConcurrency = (int) number(env, "CLOONEY_CRAWL_CONCURRENCY", 4);
+        this.crawlMaxPages = (int) number(env, "CLOONEY_CRAWL_MAX_PAGES", 200);
+        this.crawlMaxSeconds = (int) number(env, "CLOONEY_CRAWL_MAX_SECONDS", 600);
+        this.crawlSaturation = (int) number(env, "CLOONEY_CRAWL_SATURATION", 15);
+        this.crawlDwellMs = (int) number(env, "CLOONEY_CRAWL_DWELL_MS", 5000);
+        this.crawlPerRoute = (int) number(env, "CLOONEY_CRAWL_PER_ROUTE", 2);
+        this.fidelityBaseUrl = env.getOrDefault("CLOONEY_FIDELITY_BASE_URL", "http://localhost:8080").trim();
+        this.fidelityConcurrency = (int) positive(env, "CLOONEY_FIDELITY_CONCURRENCY", 32);
+        this.fidelityIgnoredFields = env.getOrDefault("CLOONEY_FIDELITY_IGNORE", ".*_at|sync|next_page|offset").trim();
+        this.fidelityMinPercent = (int) number(env, "CLOONEY_FIDELITY_MIN_PERCENT", 0);
+        this.serverPort = (int) number(env, "CLOONEY_SERVER_PORT", 7070);
+        this.serverWorkers = (int) positive(env, "CLOONEY_SERVER_WORKERS", 2);
+        this.serverQueueSize = (int) number(env, "CLOONEY_SERVER_QUEUE", 100);
+        this.llmMaxConcurrency = (int) positive(env, "CLOONEY_LLM_MAX_CONCURRENCY", 8);
+        this.llmRequestsPerMinute = (int) number(env, "CLOONEY_LLM_REQUESTS_PER_MINUTE", 0);
+    }
+
+    // ===========================
+    // LOAD
+    // ===========================
+    public static GenerationOptions fromEnv(Map<String, String> env) {
+        return new GenerationOptions(env);
+    }
+
+    public static GenerationOptions defaults() {
+        return new GenerationOptions(Map.of());
+    }
+
+    private static boolean flag(Map<String, String> env, String name, boolean defaultValue) {
+        String value = env.get(name);
+        if (value == null || value.isBlank()) return defaultValue;
+        return Boolean.parseBoolean(value.trim());
+    }
+
+    private static long number(Map<String, String> env, String name, long defaultValue) {
+        String value = env.get(name);
+        if (value == null || value.isBlank()) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("ERROR: " + name + " must be a number, got '" + value + "'");
+        }
+    }
+
+    // For pool sizes and counts where 0 would hang or do nothing
+    private static long positive(Map<String, String> env, String name, long defaultValue) {
+        long value = number(env, name, defaultValue);
+        if (value <= 0) {
+            throw new IllegalStateException("ERROR: " + name + " must be positive, got " + value);
+        }
+        return value;
+    }
+
+    // The first choice is the default; anything else is a typo that would otherwise fall back silently
+    private static String choice(Map<String, String> env, String name, String defaultValue, String... others) {
+        String value = env.getOrDefault(name, "").trim().toLowerCase();
+        if (value.isEmpty()) return defaultValue;
+        List<String> allowed = new ArrayList<>(List.of(defaultValue));
+        allowed.addAll(List.of(others));
+        if (!allowed.contains(value)) {
+            throw new IllegalStateException("ERROR: " + name + " must be " + String.join(" or ", allowed)
+                    + ", got '" + value + "'");
+        }
+        return value;
+    }
+
+    // ===========================
+    // GETTERS
+    // ===========================
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public long getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public boolean isBulkEnabled() {
+        return bulkEnabled;
+    }
+
+    public long getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isSeedEnabled() {
+        return seedEnabled;
+    }
+
+    public int getSeedScaleFactor() {
+        return seedScaleFactor;
+    }
+
+    /**
+     * "sql" for multi-row INSERTs in data.sql, "csv" for a CSV bundle loaded with CSVREAD.
+     */
+    public String getSeedFormat() {
+        return seedFormat;
+    }
+
+    public boolean isEventsEnabled() {
+        return eventsEnabled;
+    }
+
+    public boolean isFastStartup() {
+        return fastStartup;
+    }
+
+    public String getBackendStack() {
+        return backendStack;
+    }
+
+    /**
+     * WebFlux handlers and R2DBC repositories instead of MVC controllers and JPA.
+     */
+    public boolean isReactiveBackend() {
+        return "reactive".equals(backendStack);
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Latency buckets (milliseconds, comma-separated) published next to the percentile histograms.
+     */
+    public String getMetricsSloMs() {
+        return metricsSloMs;
+    }
+
+    public boolean isLoadTestsEnabled() {
+        return loadTestsEnabled;
+    }
+
+    public boolean isVerifyEnabled() {
+        return verifyEnabled;
+    }
+
+    /**
+     * Number of repair prompts sent when the generated backend does not compile (0 = report only).
+     */
+    public int getRepairAttempts() {
+        return repairAttempts;
+    }
+
+    /**
+     * Completions requested in parallel for the backend and tests prompts (1 = a single call).
+     */
+    public int getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Update an existing spec with only the new or changed endpoints instead of regenerating it.
+     */
+    public boolean isSpecDelta() {
+        return specDelta;
+    }
+
+    public String getSpecEngine() {
+        return specEngine;
+    }
+
+    /**
+     * With the local engine: one LLM call that only rewrites operation summaries and schema descriptions.
+     */
+    public boolean isSpecPolish() {
+        return specPolish;
+    }
+
+    /**
+     * Comma-separated Playwright resource types aborted during capture.
+     */
+    public String getCaptureBlockedTypes() {
+        return captureBlockedTypes;
+    }
+
+    public String getCaptureBlockedHosts() {
+        return captureBlockedHosts;
+    }
+
+    /**
+     * Comma-separated Content-Type prefixes whose responses are recorded (empty = all).
+     */
+    public String getCaptureContentTypes() {
+        return captureContentTypes;
+    }
+
+    public int getCaptureMaxBodyBytes() {
+        return captureMaxBodyBytes;
+    }
+
+    /**
+     * "hash" (size + SHA-256 only) or "truncate" (text preview) for bodies over the cap.
+     */
+    public String getCaptureOversize() {
+        return captureOversize;
+    }
+
+    /**
+     * HAR files imported in parallel (0 = one per CPU core).
+     */
+    public int getHarImportThreads() {
+        return harImportThreads;
+    }
+
+    /**
+     * Comma-separated OpenAI-compatible base URLs, tried in order on failure.
+     */
+    public String getLlmBaseUrls() {
+        return llmBaseUrls;
+    }
+
+    public boolean isLlmHedge() {
+        return llmHedge;
+    }
+
+    public int getLlmHedgePercentile() {
+        return llmHedgePercentile;
+    }
+
+    public int getLlmHedgeInitialDelayMs() {
+        return llmHedgeInitialDelayMs;
+    }
+
+    /**
+     * AIMD in-flight limit for real LLM requests, capped by CLOONEY_LLM_MAX_CONCURRENCY.
+     */
+    public boolean isLlmAdaptive() {
+        return llmAdaptive;
+    }
+
+    public int getLlmAdaptiveInitialLimit() {
+        return llmAdaptiveInitialLimit;
+    }
+
+    /**
+     * Model ladder as name:usdPerMillionTokens:expectedSeconds, comma-separated.
+     */
+    public String getLlmModels() {
+        return llmModels;
+    }
+
+    /**
+     * Per-call budgets as stage=seconds/usd, comma-separated (spec, spec_delta,
+     * spec_polish, backend, repair, tests).
+     */
+    public String getLlmStageBudgets() {
+        return llmStageBudgets;
+    }
+
+    public int getCrawlConcurrency() {
+        return crawlConcurrency;
+    }
+
+    public int getCrawlMaxPages() {
+        return crawlMaxPages;
+    }
+
+    public int getCrawlMaxSeconds() {
+        return crawlMaxSeconds;
+    }
+
+    /**
+     * Consecutive page visits without a new endpoint template after which the crawl stops.
+     */
+    public int getCrawlSaturation() {
+        return crawlSaturation;
+    }
+
+    /**
+     * Upper bound on the wait for a page's API calls to settle.
+     */
+    public int getCrawlDwellMs() {
+        return crawlDwellMs;
+    }
+
+    /**
+     * Visits per route template (e.g. /0/{id}/list), so 500 projects are not all opened.
+     */
+    public int getCrawlPerRoute() {
+        return crawlPerRoute;
+    }
+
+    public String getFidelityBaseUrl() {
+        return fidelityBaseUrl;
+    }
+
+    public int getFidelityConcurrency() {
+        return fidelityConcurrency;
+    }
+
+    /**
+     * Regex over JSON field names left out of the body diff (timestamps, paging tokens, ...).
+     */
+    public String getFidelityIgnoredFields() {
+        return fidelityIgnoredFields;
+    }
+
+    /**
+     * Overall fidelity (0-100) below which --mode=fidelity exits non-zero; 0 = report only.
+     */
+    public int getFidelityMinPercent() {
+        return fidelityMinPercent;
+    }
+
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    public int getServerWorkers() {
+        return serverWorkers;
+    }
+
+    /**
+     * Jobs waiting for a worker before new submissions are rejected with 429.
+     */
+    public int getServerQueueSize() {
+        return serverQueueSize;
+    }
+
+    public int getLlmMaxConcurrency() {
+        return llmMaxConcurrency;
+    }
+
+    /**
+     * 0 = no cap on request starts per minute.
+     */
+    public int getLlmRequestsPerMinute() {
+        return llmRequestsPerMinute;
+    }
+
+    /**
+     * Stable text form of all CLOONEY_* settings, for checkpoint input fingerprints.
+     */
+    public String fingerprint() {
+        return settings.toString();
+    }
+}
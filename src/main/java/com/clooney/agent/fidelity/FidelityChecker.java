@@ -0,0 +1,221 @@
+package com.clooney.agent.fidelity;
+
+import com.clooney.agent.inspect.APICall;
+import com.clooney.agent.inspect.ApiPaths;
+import com.clooney.agent.inspect.CallStore;
+import com.clooney.agent.inspect.CaptureArchive;
+import com.clooney.agent.inspect.CapturePolicy;
+import com.clooney.agent.inspect.StoredCall;
+import com.clooney.agent.spec.OpenApiOperations;
+import com.clooney.agent.spec.OpenApiOperations.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Replays captured API calls (raw_*.json) against a running generated backend
+ * and scores how closely its responses match the recorded ones.
+ *
+ * Responsibilities:
+ *  - Stream the capture logs one file at a time, so memory stays flat for large captures;
+ *    raw_*.capture archives are read through their index, one method group per pass.
+ *  - Send the calls with the async JDK HttpClient, at most {@code concurrency} in flight.
+ *  - Compare status codes and diff JSON bodies structurally ({@link JsonDiff});
+ *    calls whose bodies were capped at capture time are compared by status only.
+ *  - Aggregate the results per OpenAPI endpoint into a {@link FidelityReport}.
+ *
+ * Reads are replayed before writes, so the GETs see the seeded state rather than
+ * whatever the replayed POST/PUT/DELETE calls leave behind.
+ */
+public class FidelityChecker {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Path logsDir;
+    private final Path specDir;
+    private final String baseUrl;
+    private final int concurrency;
+    private final JsonDiff jsonDiff;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public FidelityChecker(Path logsDir, Path specDir, String baseUrl, int concurrency, Pattern ignoredFields) {
+        this.logsDir = logsDir;
+        this.specDir = specDir;
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.concurrency = Math.max(1, concurrency);
+        this.jsonDiff = new JsonDiff(ignoredFields);
+    }
+
+    public FidelityReport check() {
+        List<EndpointMatcher> matchers = loadEndpoints();
+        FidelityReport report = new FidelityReport();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(executor)
+                    .build();
+            Semaphore inFlight = new Semaphore(concurrency);
+
+            replay(client, inFlight, matchers, report, method -> "GET".equalsIgnoreCase(method));
+            replay(client, inFlight, matchers, report, method -> !"GET".equalsIgnoreCase(method));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while replaying captured calls", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    private void replay(HttpClient client, Semaphore inFlight, List<EndpointMatcher> matchers,
+                        FidelityReport report, Predicate<String> methods) throws IOException, InterruptedException {
+        for (Path file : CallStore.logFiles(logsDir)) {
+            for (APICall call : readCalls(file, methods)) {
+                if (call.method == null || call.path == null) continue;
+                // The original request body was not kept, so the call cannot be replayed
+                if (CapturePolicy.isCapMarker(call.requestBody)) continue;
+                inFlight.acquire();
+                send(client, call, endpointOf(call, matchers), report)
+                        .whenComplete((ignored, error) -> inFlight.release());
+            }
+        }
+        // Wait for the pass to drain before starting the next one
+        inFlight.acquire(concurrency);
+        inFlight.release(concurrency);
+    }
+
+    // An archive is read through its index: each pass only decompresses the blocks of its methods
+    private static List<APICall> readCalls(Path file, Predicate<String> methods) throws IOException {
+        if (!CaptureArchive.isArchive(file)) {
+            return CallStore.readCalls(file).stream().filter(c -> methods.test(c.method)).collect(Collectors.toList());
+        }
+        List<APICall> res = new ArrayList<>();
+        try (CaptureArchive archive = CaptureArchive.open(file)) {
+            for (StoredCall call : archive.find(new CallStore(), (method, template) -> methods.test(method))) {
+                res.add(call.toApiCall());
+            }
+        }
+        return res;
+    }
+
+    private CompletableFuture<Void> send(HttpClient client, APICall call, String endpoint,
+                                         FidelityReport report) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + call.path + queryString(call.query)))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Accept", "application/json")
+                    .header("Content-Type", "application/json")
+                    .method(call.method.toUpperCase(), bodyOf(call.requestBody))
+                    .build();
+        } catch (RuntimeException | IOException e) {
+            report.recordError(endpoint, e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        report.recordError(endpoint, error);
+                        return null;
+                    }
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    // Oversized recorded bodies are only a size + hash: compare the status alone
+                    JsonDiff.Result body = call.status == response.statusCode() && !CapturePolicy.isCapMarker(call.responseBody)
+                            ? jsonDiff.diff(expectedBody(call.responseBody), actualBody(response.body()))
+                            : null;
+                    report.record(endpoint, call.status, response.statusCode(), body, millis);
+                    return null;
+                });
+    }
+
+    private HttpRequest.BodyPublisher bodyOf(Object requestBody) throws IOException {
+        if (requestBody == null) return HttpRequest.BodyPublishers.noBody();
+        byte[] bytes = requestBody instanceof String s
+                ? s.getBytes(StandardCharsets.UTF_8)
+                : mapper.writeValueAsBytes(requestBody);
+        return HttpRequest.BodyPublishers.ofByteArray(bytes);
+    }
+
+    private JsonNode expectedBody(Object recorded) {
+        if (recorded == null) return NullNode.getInstance();
+        if (recorded instanceof String s) return actualBody(s.getBytes(StandardCharsets.UTF_8));
+        return mapper.valueToTree(recorded);
+    }
+
+    private JsonNode actualBody(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) return NullNode.getInstance();
+        try {
+            return mapper.readTree(bytes);
+        } catch (IOException e) {
+            return TextNode.valueOf(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    // ===========================
+    // ENDPOINT GROUPING
+    // ===========================
+    private record EndpointMatcher(String method, Pattern path, String name) {
+    }
+
+    private List<EndpointMatcher> loadEndpoints() {
+        List<EndpointMatcher> res = new ArrayList<>();
+        Path openapi = specDir.resolve("openapi.yaml");
+        if (!Files.exists(openapi)) return res;
+        try {
+            for (Operation op : OpenApiOperations.parse(Files.readString(openapi))) {
+                res.add(new EndpointMatcher(op.method(), OpenApiOperations.pathPattern(op.path()),
+                        op.method() + " " + op.path()));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return res;
+    }
+
+    // Calls outside the spec are grouped with id-like segments collapsed: "/tasks/123" -> "/tasks/{id}"
+    private static String endpointOf(APICall call, List<EndpointMatcher> matchers) {
+        String method = call.method.toUpperCase();
+        for (EndpointMatcher m : matchers) {
+            if (m.method().equals(method) && m.path().matcher(call.path).matches()) {
+                return m.name();
+            }
+        }
+        return method + " " + ApiPaths.template(call.path) + " (not in spec)";
+    }
+
+    // Captured query values are still in their raw, already-encoded form
+    private static String queryString(Map<String, Object> query) {
+        if (query == null || query.isEmpty()) return "";
+        return query.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining("&", "?", ""));
+    }
+}
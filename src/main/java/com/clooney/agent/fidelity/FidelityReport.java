@@ -0,0 +1,140 @@
+package com.clooney.agent.fidelity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint aggregate of a replay run; safe to update from HttpClient callback threads.
+ *
+ * A call scores 0 when the status differs (or the request failed) and the
+ * {@link JsonDiff.Result#score()} of its body otherwise. An endpoint's fidelity
+ * is the mean call score; the overall fidelity is the mean over all calls.
+ */
+public class FidelityReport {
+
+    private static final int TOP_DIFFERENCES = 10;
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, int expectedStatus, int actualStatus, JsonDiff.Result body, long millis) {
+        endpoints.computeIfAbsent(endpoint, k -> new EndpointStats())
+                .record(expectedStatus, actualStatus, body, millis);
+    }
+
+    void recordError(String endpoint, Throwable error) {
+        endpoints.computeIfAbsent(endpoint, k -> new EndpointStats()).recordError(error);
+    }
+
+    public int totalCalls() {
+        return endpoints.values().stream().mapToInt(s -> s.calls).sum();
+    }
+
+    public double overallScore() {
+        int calls = totalCalls();
+        if (calls == 0) return 1.0;
+        return endpoints.values().stream().mapToDouble(s -> s.scoreSum).sum() / calls;
+    }
+
+    public void writeTo(Path file) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("calls", totalCalls());
+        json.put("fidelity", round(overallScore()));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        endpoints.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> rows.add(e.getValue().toJson(e.getKey())));
+        json.put("endpoints", rows);
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), json);
+    }
+
+    /**
+     * Endpoints ordered worst first, one line each.
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        endpoints.entrySet().stream()
+                .sorted(Comparator.comparingDouble(e -> e.getValue().score()))
+                .forEach(e -> {
+                    EndpointStats s = e.getValue();
+                    sb.append(String.format("  %5.1f%%  %-50s calls=%d status=%d/%d exact=%d errors=%d%n",
+                            100 * s.score(), e.getKey(), s.calls, s.statusMatches, s.calls, s.exactMatches, s.errors));
+                });
+        sb.append(String.format("  %5.1f%%  overall (%d calls)", 100 * overallScore(), totalCalls()));
+        return sb.toString();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10_000) / 10_000.0;
+    }
+
+    private static final class EndpointStats {
+        int calls;
+        int statusMatches;
+        int exactMatches;
+        int errors;
+        double scoreSum;
+        long millisSum;
+        final Map<String, Integer> statusMismatches = new HashMap<>();
+        final Map<String, Integer> differences = new HashMap<>();
+        String lastError;
+
+        synchronized void record(int expectedStatus, int actualStatus, JsonDiff.Result body, long millis) {
+            calls++;
+            millisSum += millis;
+            if (expectedStatus != actualStatus) {
+                statusMismatches.merge(expectedStatus + " -> " + actualStatus, 1, Integer::sum);
+                return;
+            }
+            statusMatches++;
+            scoreSum += body.score();
+            if (body.identical()) exactMatches++;
+            for (String path : body.differences()) {
+                differences.merge(path, 1, Integer::sum);
+            }
+        }
+
+        synchronized void recordError(Throwable error) {
+            calls++;
+            errors++;
+            lastError = String.valueOf(error.getMessage() != null ? error.getMessage() : error);
+        }
+
+        synchronized double score() {
+            return calls == 0 ? 1.0 : scoreSum / calls;
+        }
+
+        synchronized Map<String, Object> toJson(String endpoint) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", endpoint);
+            row.put("calls", calls);
+            row.put("fidelity", round(score()));
+            row.put("statusMatches", statusMatches);
+            row.put("exactBodyMatches", exactMatches);
+            row.put("errors", errors);
+            row.put("meanMillis", calls == errors ? 0 : millisSum / (calls - errors));
+            row.put("statusMismatches", statusMismatches);
+
+            Map<String, Integer> top = new LinkedHashMap<>();
+            differences.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(TOP_DIFFERENCES)
+                    .forEach(e -> top.put(e.getKey(), e.getValue()));
+            row.put("topDifferences", top);
+            if (lastError != null) row.put("lastError", lastError);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.clooney.agent.fidelity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Structural comparison of two JSON documents.
+ *
+ * Every leaf (scalar, null, empty container) of either side counts once; a leaf
+ * matches when the other side has the same value at the same location. Fields
+ * whose name matches the ignore pattern are skipped on both sides.
+ *
+ * Arrays of objects that all carry a "gid" are matched by gid, so a backend that
+ * returns the same items in a different order is not penalised; other arrays are
+ * matched by index. Array positions are reported as "[]" so differences aggregate
+ * across calls, e.g. "$.data[].assignee.name".
+ */
+public final class JsonDiff {
+
+    public record Result(int compared, int matched, List<String> differences) {
+
+        public boolean identical() {
+            return differences.isEmpty();
+        }
+
+        /**
+         * Fraction of leaves that match, 1.0 for two empty documents.
+         */
+        public double score() {
+            return compared == 0 ? 1.0 : (double) matched / compared;
+        }
+    }
+
+    private final Pattern ignoredFields;
+
+    public JsonDiff(Pattern ignoredFields) {
+        this.ignoredFields = ignoredFields;
+    }
+
+    public Result diff(JsonNode expected, JsonNode actual) {
+        Counter counter = new Counter();
+        compare("$", expected, actual, counter);
+        return new Result(counter.compared, counter.matched, new ArrayList<>(counter.differences));
+    }
+
+    private void compare(String path, JsonNode expected, JsonNode actual, Counter counter) {
+        if (expected == null || expected.isMissingNode()) {
+            counter.miss(path + " (unexpected)", leaves(actual));
+            return;
+        }
+        if (actual == null || actual.isMissingNode()) {
+            counter.miss(path + " (missing)", leaves(expected));
+            return;
+        }
+
+        if (expected.isObject() && actual.isObject() && expected.size() + actual.size() > 0) {
+            Set<String> names = new LinkedHashSet<>();
+            expected.fieldNames().forEachRemaining(names::add);
+            actual.fieldNames().forEachRemaining(names::add);
+            for (String name : names) {
+                if (ignoredFields.matcher(name).matches()) continue;
+                compare(path + "." + name, expected.get(name), actual.get(name), counter);
+            }
+        } else if (expected.isArray() && actual.isArray() && expected.size() + actual.size() > 0) {
+            compareArrays(path + "[]", expected, actual, counter);
+        } else if (expected.equals(actual)
+                || (expected.isNumber() && actual.isNumber() && expected.decimalValue().compareTo(actual.decimalValue()) == 0)) {
+            counter.compared++;
+            counter.matched++;
+        } else {
+            counter.miss(path, Math.max(leaves(expected), leaves(actual)));
+        }
+    }
+
+    private void compareArrays(String path, JsonNode expected, JsonNode actual, Counter counter) {
+        if (keyedByGid(expected) && keyedByGid(actual)) {
+            Map<String, JsonNode> byGid = new HashMap<>();
+            actual.forEach(item -> byGid.put(item.get("gid").asText(), item));
+            for (JsonNode item : expected) {
+                compare(path, item, byGid.remove(item.get("gid").asText()), counter);
+            }
+            for (JsonNode extra : byGid.values()) {
+                compare(path, null, extra, counter);
+            }
+            return;
+        }
+        int n = Math.max(expected.size(), actual.size());
+        for (int i = 0; i < n; i++) {
+            compare(path, expected.get(i), actual.get(i), counter);
+        }
+    }
+
+    private static boolean keyedByGid(JsonNode array) {
+        if (array.isEmpty()) return false;
+        for (JsonNode item : array) {
+            if (!item.isObject() || !item.hasNonNull("gid")) return false;
+        }
+        return true;
+    }
+
+    private int leaves(JsonNode node) {
+        if (node == null || !node.isContainerNode() || node.isEmpty()) return 1;
+        int count = 0;
+        if (node.isObject()) {
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (!ignoredFields.matcher(field.getKey()).matches()) {
+                    count += leaves(field.getValue());
+                }
+            }
+        } else {
+            for (JsonNode item : node) count += leaves(item);
+        }
+        return Math.max(count, 1);
+    }
+
+    private static final class Counter {
+        int compared;
+        int matched;
+        final Set<String> differences = new LinkedHashSet<>();
+
+        void miss(String path, int leaves) {
+            compared += leaves;
+            differences.add(path);
+        }
+    }
+}
@@ -10,4 +10,23 @@ public class APICall {
     public Object requestBody;
     public int status;
     public Object responseBody;
+
+    /**
+     * This call, or a copy with oversized-body markers (see CapturePolicy) replaced by null,
+     * for consumers that would otherwise take a marker for the real payload.
+     */
+    public APICall withoutCapMarkers() {
+        boolean request = CapturePolicy.isCapMarker(requestBody);
+        boolean response = CapturePolicy.isCapMarker(responseBody);
+        if (!request && !response) return this;
+        APICall copy = new APICall();
+        copy.method = method;
+        copy.url = url;
+        copy.path = path;
+        copy.query = query;
+        copy.requestBody = request ? null : requestBody;
+        copy.status = status;
+        copy.responseBody = response ? null : responseBody;
+        return copy;
+    }
 }
@@ -22,6 +22,8 @@ import java.util.*;
  *      * Otherwise, fall back to email/password login if provided
  *  - Navigate to a target page (home/projects/tasks).
  *  - Capture all HTTP responses whose URLs contain "/api/1.0/".
+ *  - Apply the {@link CapturePolicy}: abort images/fonts/media/analytics, record
+ *    only allowed content types, cap oversized bodies.
  *  - For each captured call, store:
  *      method, url, path (normalized), query params, request body, status, response body.
  *  - Persist captured calls into backend/asana_logs/raw_<page>.json
@@ -30,11 +32,13 @@ public class APIInspector {
 
     private final Config config;
     private final Path outputDir;
+    private final CapturePolicy policy;
     private final ObjectMapper mapper = new ObjectMapper();
 
     public APIInspector(Config config) {
         this.config = config;
         this.outputDir = config.getLogsDir();
+        this.policy = CapturePolicy.from(config.getGenerationOptions());
     }
 
     /**
@@ -45,12 +49,7 @@ public class APIInspector {
      * @return list of captured APICall objects
      */
     public List<APICall> capturePageCalls(String pageName) {
-        String url = switch (pageName) {
-            case "home" -> "https://app.asana.com/0/home";
-            case "projects" -> "https://app.asana.com/0/projects";
-            case "tasks", "my_tasks" -> "https://app.asana.com/0/my_tasks";
-            default -> throw new IllegalArgumentException("Unknown page: " + pageName);
-        };
+        String url = pageUrl(pageName);
 
         List<APICall> captured = new ArrayList<>();
 
@@ -59,39 +58,20 @@ public class APIInspector {
                     new BrowserType.LaunchOptions().setHeadless(true)
             );
 
-            BrowserContext context = createContextWithOptionalCookies(browser);
+            BrowserContext context = openContext(browser, null);
             Page page = context.newPage();
 
             // Attach response listener BEFORE navigation
             context.onResponse(response -> {
-                try {
-                    String respUrl = response.url();
-                    if (!respUrl.contains("app.asana.com")) {
-                        return;
-                    }
-
-                    APICall call = buildApiCallFromResponse(response);
+                APICall call = capture(response);
+                if (call != null) {
                     synchronized (captured) {
                         captured.add(call);
                     }
-                } catch (Exception e) {
-                    System.err.println("[Clooney] Error capturing response: " + e.getMessage());
                 }
             });
 
-            // Auth flow logic:
-            //  - If we have ASANA_COOKIE -> assume already authenticated, no login
-            //  - Else if email/password present -> do login flow
-            //  - Else -> warn
-            if (hasCookie()) {
-                System.out.println("[Clooney] Using ASANA_COOKIE for authentication (no login flow).");
-            } else if (shouldLoginWithCredentials()) {
-                System.out.println("[Clooney] Logging into Asana using email/password...");
-                loginToAsana(page, config.getAsanaEmail(), config.getAsanaPassword());
-            } else {
-                System.out.println("[Clooney] WARNING: No Asana cookie or credentials provided. " +
-                        "You might be redirected to login instead of the dashboard.");
-            }
+            authenticate(page);
 
             System.out.println("[Clooney] Navigating to page: " + url);
             page.navigate(url);
@@ -109,6 +89,7 @@ public class APIInspector {
             mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), captured);
             System.out.println("[Clooney] Captured " + captured.size() +
                     " calls for page '" + pageName + "' into " + file.toAbsolutePath());
+            System.out.println("[Clooney] Capture policy: " + policy.summary());
         } catch (IOException e) {
             throw new RuntimeException("Failed to write captured calls", e);
         }
@@ -116,6 +97,86 @@ public class APIInspector {
         return captured;
     }
 
+    // ----------------------------------------------------------------------
+    // Shared with ExploratoryCrawler (one call per Playwright instance/thread)
+    // ----------------------------------------------------------------------
+
+    static String pageUrl(String pageName) {
+        return switch (pageName) {
+            case "home" -> "https://app.asana.com/0/home";
+            case "projects" -> "https://app.asana.com/0/projects";
+            case "tasks", "my_tasks" -> "https://app.asana.com/0/my_tasks";
+            default -> throw new IllegalArgumentException("Unknown page: " + pageName);
+        };
+    }
+
+    /**
+     * New context with the auth cookies (or a storage state from an earlier login)
+     * and the capture policy's route blocking.
+     *
+     * @param storageState JSON from {@link BrowserContext#storageState()}, or null
+     */
+    BrowserContext openContext(Browser browser, String storageState) {
+        BrowserContext context = storageState == null
+                ? createContextWithOptionalCookies(browser)
+                : browser.newContext(new Browser.NewContextOptions().setStorageState(storageState));
+
+        // Drop assets and trackers before they hit the network
+        context.route("**/*", route -> {
+            Request request = route.request();
+            if (policy.shouldAbort(request.resourceType(), request.url())) {
+                route.abort();
+            } else {
+                route.resume();
+            }
+        });
+        return context;
+    }
+
+    /**
+     * Auth flow logic:
+     *  - If we have ASANA_COOKIE -> assume already authenticated, no login
+     *  - Else if email/password present -> do login flow
+     *  - Else -> warn
+     *
+     * @return true when a login flow ran (its storage state is worth reusing)
+     */
+    boolean authenticate(Page page) {
+        if (hasCookie()) {
+            System.out.println("[Clooney] Using ASANA_COOKIE for authentication (no login flow).");
+        } else if (shouldLoginWithCredentials()) {
+            System.out.println("[Clooney] Logging into Asana using email/password...");
+            loginToAsana(page, config.getAsanaEmail(), config.getAsanaPassword());
+            return true;
+        } else {
+            System.out.println("[Clooney] WARNING: No Asana cookie or credentials provided. " +
+                    "You might be redirected to login instead of the dashboard.");
+        }
+        return false;
+    }
+
+    /**
+     * @return the call for a target-URL response the policy records, else null
+     */
+    APICall capture(Response response) {
+        try {
+            if (!isTargetUrl(response.url())) {
+                return null;
+            }
+            if (!policy.shouldRecord(response.headerValue("content-type"))) {
+                return null;
+            }
+            return buildApiCallFromResponse(response);
+        } catch (Exception e) {
+            System.err.println("[Clooney] Error capturing response: " + e.getMessage());
+            return null;
+        }
+    }
+
+    CapturePolicy policy() {
+        return policy;
+    }
+
     // ----------------------------------------------------------------------
     // Internal helpers
     // ----------------------------------------------------------------------
@@ -223,23 +284,19 @@ public class APIInspector {
         call.status = response.status();
 
         // Request body
-        String postData = req.postData();
-        if (postData != null) {
-            call.requestBody = tryParseJson(postData);
-        }
+        call.requestBody = policy.body(req.postDataBuffer(), this::tryParseJson);
 
         // Response body
-        String bodyText = safeReadBody(response);
-        call.responseBody = tryParseJson(bodyText);
+        call.responseBody = policy.body(safeReadBody(response), this::tryParseJson);
 
         return call;
     }
 
-    private String safeReadBody(Response response) {
+    private byte[] safeReadBody(Response response) {
         try {
-            return response.text();
+            return response.body();
         } catch (PlaywrightException e) {
-            return "";
+            return null;
         }
     }
 
@@ -252,7 +309,12 @@ public class APIInspector {
         }
     }
 
-    private ParsedUrl parseUrl(String url) {
+    // Same filter and normalization for live capture and HAR import
+    static boolean isTargetUrl(String url) {
+        return url != null && url.contains("app.asana.com");
+    }
+
+    static ParsedUrl parseUrl(String url) {
         try {
             URI uri = new URI(url);
             String rawPath = uri.getPath();
@@ -276,7 +338,7 @@ public class APIInspector {
     }
 
     // Simple struct for internal URL parse result
-    private record ParsedUrl(String path, Map<String, Object> query) {}
+    record ParsedUrl(String path, Map<String, Object> query) {}
 
     /**
      * DTO representing a single captured API call.
@@ -0,0 +1,50 @@
+package com.clooney.agent.inspect;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * How captured paths are read, shared by capture, spec, seed and fidelity so they
+ * agree on which segments are ids and which resource a path is about.
+ */
+public final class ApiPaths {
+
+    // Numeric gids, and hex / UUID ids of 16+ characters
+    private static final Pattern ID_SEGMENT = Pattern.compile("\\d+|[0-9a-fA-F-]{16,}");
+
+    private ApiPaths() {
+    }
+
+    public static boolean isIdSegment(String segment) {
+        return ID_SEGMENT.matcher(segment).matches();
+    }
+
+    // /tasks/1204/stories -> /tasks/{id}/stories; a grouping key, not an OpenAPI path
+    public static String template(String path) {
+        if (path == null) return "";
+        StringBuilder sb = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            sb.append('/').append(isIdSegment(segment) ? "{id}" : segment);
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    // "/projects/145001/tasks" -> "tasks", "/users/me" -> "users", "/customFields/{id}" -> "custom_fields"
+    public static String tableForPath(String path) {
+        if (path == null) return null;
+        String[] segments = path.split("/");
+        for (int i = segments.length - 1; i >= 0; i--) {
+            String s = segments[i];
+            if (s.isBlank() || s.equals("me") || s.startsWith("{") || isIdSegment(s)) continue;
+            return sqlName(s);
+        }
+        return null;
+    }
+
+    // "customFields" -> "custom_fields", "due-on" -> "due_on"; a digit first gets an "f_" prefix
+    public static String sqlName(String name) {
+        String res = name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").replaceAll("\\W+", "_").toLowerCase(Locale.ROOT);
+        return res.isEmpty() || Character.isDigit(res.charAt(0)) ? "f_" + res : res;
+    }
+}
@@ -0,0 +1,319 @@
+package com.clooney.agent.inspect;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Memory-compact holder for captured calls.
+ *
+ *  - Logs are read with the Jackson streaming parser; bodies are copied out as
+ *    minified JSON bytes, never as Map/List trees.
+ *  - Identical bodies (same bytes) are stored once and shared between calls.
+ *  - Methods, paths and query keys/values go through one interner.
+ *  - A body is parsed only when {@link Body#parse()} is called; values derived
+ *    from it can be memoized on the body with {@link Body#derive}.
+ *
+ * Thread-safe: several files may be read into the same store concurrently.
+ */
+public class CallStore {
+
+    private static final String[] NO_QUERY = new String[0];
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory factory = mapper.getFactory();
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Map<Body, Body> bodies = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+
+    /**
+     * Capture logs in a logs dir: raw_*.json, or raw_*.capture (see {@link CaptureArchive}).
+     */
+    public static final String LOG_GLOB = "raw_*.{json,capture}";
+
+    /**
+     * Capture logs of a logs dir, in name order. A raw_x.capture next to a raw_x.json
+     * is left out: the JSON is a newer capture of the same page that has not been
+     * archived yet, and reading both would count every call twice.
+     */
+    public static List<Path> logFiles(Path logsDir) throws IOException {
+        List<Path> res = new ArrayList<>();
+        if (!Files.exists(logsDir)) return res;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(logsDir, LOG_GLOB)) {
+            for (Path file : stream) {
+                if (!isShadowed(file)) res.add(file);
+            }
+        }
+        Collections.sort(res);
+        return res;
+    }
+
+    /**
+     * Whether this is an archive superseded by a JSON log of the same name.
+     */
+    public static boolean isShadowed(Path file) {
+        return CaptureArchive.isArchive(file) && Files.exists(CaptureArchive.sibling(file));
+    }
+
+    /**
+     * Every call of one capture log, materialized (for consumers that need all bodies anyway).
+     */
+    public static List<APICall> readCalls(Path file) throws IOException {
+        if (!CaptureArchive.isArchive(file)) {
+            return Arrays.asList(Body.MAPPER.readValue(file.toFile(), APICall[].class));
+        }
+        List<APICall> res = new ArrayList<>();
+        for (StoredCall call : new CallStore().read(file)) {
+            res.add(call.toApiCall());
+        }
+        return res;
+    }
+
+    /**
+     * Read one raw_*.json log (a JSON array of calls) or raw_*.capture archive.
+     */
+    public List<StoredCall> read(Path file) throws IOException {
+        if (CaptureArchive.isArchive(file)) {
+            try (CaptureArchive archive = CaptureArchive.open(file)) {
+                return archive.readAll(this);
+            }
+        }
+        List<StoredCall> res = new ArrayList<>();
+        try (JsonParser parser = factory.createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of calls in " + file.getFileName());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                res.add(readCall(parser));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Truncated capture log " + file.getFileName());
+            }
+        }
+        return res;
+    }
+
+    private StoredCall readCall(JsonParser parser) throws IOException {
+        String method = null;
+        String url = null;
+        String path = null;
+        String[] query = NO_QUERY;
+        int status = 0;
+        Body request = null;
+        Body response = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "method" -> method = parser.getValueAsString();
+                case "url" -> url = parser.getValueAsString();
+                case "path" -> path = parser.getValueAsString();
+                case "status" -> status = parser.getValueAsInt();
+                case "query" -> query = readQuery(parser);
+                case "requestBody" -> request = readBody(parser);
+                case "responseBody" -> response = readBody(parser);
+                default -> {
+                    if (value.isStructStart()) parser.skipChildren();
+                }
+            }
+        }
+        return newCall(method, url, path, query, status, request, response);
+    }
+
+    private String[] readQuery(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            if (parser.currentToken().isStructStart()) parser.skipChildren();
+            return NO_QUERY;
+        }
+        List<String> kv = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            kv.add(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                kv.add(new String(copy(parser), StandardCharsets.UTF_8));
+            } else {
+                kv.add(value == JsonToken.VALUE_NULL ? "" : parser.getText());
+            }
+        }
+        return kv.toArray(NO_QUERY);
+    }
+
+    private Body readBody(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) return null;
+        return intern(new Body(copy(parser)));
+    }
+
+    // Re-serializes the current value (scalar or whole subtree) without building a tree
+    private byte[] copy(JsonParser parser) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Compact an already materialized call (e.g. from a live capture or an importer).
+     */
+    public StoredCall add(APICall call) {
+        try {
+            String[] query = NO_QUERY;
+            if (call.query != null && !call.query.isEmpty()) {
+                query = new String[call.query.size() * 2];
+                int i = 0;
+                for (Map.Entry<String, Object> e : call.query.entrySet()) {
+                    query[i++] = e.getKey();
+                    query[i++] = String.valueOf(e.getValue());
+                }
+            }
+            Body request = call.requestBody == null ? null : intern(new Body(mapper.writeValueAsBytes(call.requestBody)));
+            Body response = call.responseBody == null ? null : intern(new Body(mapper.writeValueAsBytes(call.responseBody)));
+            return newCall(call.method, call.url, call.path, query, call.status, request, response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Add a call whose bodies are already minified JSON (e.g. from a {@link CaptureArchive}).
+     */
+    StoredCall add(String method, String url, String path, String[] query, int status,
+                   byte[] requestBody, byte[] responseBody) {
+        return newCall(method, url, path, query, status,
+                requestBody == null ? null : intern(new Body(requestBody)),
+                responseBody == null ? null : intern(new Body(responseBody)));
+    }
+
+    private StoredCall newCall(String method, String url, String path, String[] query, int status,
+                               Body request, Body response) {
+        for (int i = 0; i < query.length; i++) query[i] = intern(query[i]);
+        calls.incrementAndGet();
+        return new StoredCall(intern(method), url, intern(path), query, status, request, response);
+    }
+
+    public String intern(String s) {
+        if (s == null) return null;
+        String existing = strings.putIfAbsent(s, s);
+        return existing == null ? s : existing;
+    }
+
+    private Body intern(Body body) {
+        Body existing = bodies.putIfAbsent(body, body);
+        return existing == null ? body : existing;
+    }
+
+    /**
+     * Forget bodies that no stored call references any more (after files were re-read or dropped).
+     */
+    public void retainOnly(Iterable<StoredCall> live) {
+        Set<Body> used = new HashSet<>();
+        for (StoredCall call : live) {
+            if (call.requestBody() != null) used.add(call.requestBody());
+            if (call.responseBody() != null) used.add(call.responseBody());
+        }
+        bodies.keySet().retainAll(used);
+    }
+
+    public long callCount() {
+        return calls.get();
+    }
+
+    public int uniqueBodies() {
+        return bodies.size();
+    }
+
+    public long bodyBytes() {
+        return bodies.keySet().stream().mapToLong(b -> b.bytes.length).sum();
+    }
+
+    /**
+     * Minified JSON of one request/response body, compared and hashed by content.
+     */
+    public static final class Body {
+
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+        private static final byte[] CAP_PREFIX =
+                ("{\"" + CapturePolicy.MARKER_FIELD + "\":").getBytes(StandardCharsets.UTF_8);
+
+        private final byte[] bytes;
+        private final int hash;
+        private volatile Object derived;
+
+        private Body(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        /**
+         * Fresh Map/List/scalar tree; callers may keep or mutate it.
+         */
+        public Object parse() {
+            try {
+                return MAPPER.readValue(bytes, Object.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * {@code fn(parse())}, computed once per distinct body. Meant for one kind of
+         * derived value per store (e.g. the field paths of CaptureClusters).
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T derive(Function<Object, T> fn) {
+            Object value = derived;
+            if (value == null) {
+                value = fn.apply(parse());
+                derived = value;
+            }
+            return (T) value;
+        }
+
+        public byte[] bytes() {
+            return bytes;
+        }
+
+        /**
+         * Same as {@link CapturePolicy#isCapMarker} without parsing: markers are written
+         * with the marker field first, and bodies are kept minified.
+         */
+        public boolean isCapMarker() {
+            if (bytes.length < CAP_PREFIX.length) return false;
+            for (int i = 0; i < CAP_PREFIX.length; i++) {
+                if (bytes[i] != CAP_PREFIX[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Body other && hash == other.hash && Arrays.equals(bytes, other.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
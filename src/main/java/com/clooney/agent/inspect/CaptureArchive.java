@@ -0,0 +1,369 @@
+package com.clooney.agent.inspect;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact on-disk form of a capture log (raw_*.capture), an alternative to raw_*.json.
+ *
+ * Layout:
+ *   "CLNYCAP1"
+ *   body blocks     gzip; per call: path, url, query (dictionary ids) and the minified
+ *                   request/response JSON; calls are sorted by endpoint, so similar
+ *                   bodies share a block and compress well
+ *   dictionary      gzip; every method, path, path template, url and query key/value once
+ *   block table     offset + length per block
+ *   index           fixed-size records (method, template, status, capture order, block,
+ *                   offset in block), sorted by method/template/status
+ *   footer          offsets of the three sections above
+ *
+ * The index is memory-mapped: {@link #find} walks it endpoint by endpoint and only
+ * decompresses the blocks that hold matching calls.
+ */
+public final class CaptureArchive implements AutoCloseable {
+
+    public static final String EXTENSION = ".capture";
+
+    private static final byte[] MAGIC = "CLNYCAP1".getBytes(StandardCharsets.US_ASCII);
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final int RECORD_BYTES = 24; // 6 ints
+    private static final int FOOTER_BYTES = 28; // 3 longs + count
+
+    private final FileChannel channel;
+    private final MappedByteBuffer index;
+    private final int count;
+    private final String[] strings;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+
+    private CaptureArchive(FileChannel channel, MappedByteBuffer index, int count, String[] strings,
+                           long[] blockOffsets, int[] blockLengths) {
+        this.channel = channel;
+        this.index = index;
+        this.count = count;
+        this.strings = strings;
+        this.blockOffsets = blockOffsets;
+        this.blockLengths = blockLengths;
+    }
+
+    public static boolean isArchive(Path file) {
+        return file.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * raw_x.capture for raw_x.json, and the other way round.
+     */
+    public static Path sibling(Path file) {
+        String name = file.getFileName().toString();
+        return isArchive(file)
+                ? file.resolveSibling(name.substring(0, name.length() - EXTENSION.length()) + ".json")
+                : file.resolveSibling(name.substring(0, name.length() - ".json".length()) + EXTENSION);
+    }
+
+    // ===========================
+    // WRITING
+    // ===========================
+
+    /**
+     * Write calls as an archive, via a temp file so readers never see a partial one.
+     * Capture order is kept in the index and restored by {@link #readAll}.
+     */
+    public static void write(Path file, List<StoredCall> calls) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+
+        Integer[] order = new Integer[calls.size()];
+        String[] templates = new String[calls.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            templates[i] = ApiPaths.template(calls.get(i).path());
+        }
+        Arrays.sort(order, Comparator.<Integer, String>comparing(i -> String.valueOf(calls.get(i).method()))
+                .thenComparing(i -> templates[i])
+                .thenComparingInt(i -> calls.get(i).status())
+                .thenComparingInt(i -> i));
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(MAGIC));
+
+            ByteBuffer records = ByteBuffer.allocate(order.length * RECORD_BYTES);
+            List<long[]> blocks = new ArrayList<>(); // offset, length
+            ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_BYTES + 4096);
+            DataOutputStream data = new DataOutputStream(block);
+
+            for (int seq : order) {
+                StoredCall call = calls.get(seq);
+                if (block.size() >= BLOCK_BYTES) {
+                    blocks.add(flushBlock(out, block));
+                }
+                records.putInt(id(call.method(), ids, dictionary))
+                        .putInt(id(templates[seq], ids, dictionary))
+                        .putInt(call.status())
+                        .putInt(seq)
+                        .putInt(blocks.size())
+                        .putInt(block.size());
+
+                data.writeInt(id(call.path(), ids, dictionary));
+                data.writeInt(id(call.url(), ids, dictionary));
+                Map<String, Object> query = call.query();
+                data.writeInt(query.size());
+                for (Map.Entry<String, Object> e : query.entrySet()) {
+                    data.writeInt(id(e.getKey(), ids, dictionary));
+                    data.writeInt(id(String.valueOf(e.getValue()), ids, dictionary));
+                }
+                writeBody(data, call.requestBody());
+                writeBody(data, call.responseBody());
+            }
+            if (block.size() > 0) blocks.add(flushBlock(out, block));
+
+            long dictionaryOffset = out.position();
+            ByteArrayOutputStream dict = new ByteArrayOutputStream();
+            try (DataOutputStream d = new DataOutputStream(new GZIPOutputStream(dict))) {
+                d.writeInt(dictionary.size());
+                for (String s : dictionary) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    d.writeInt(bytes.length);
+                    d.write(bytes);
+                }
+            }
+            out.write(ByteBuffer.wrap(dict.toByteArray()));
+
+            long blockTableOffset = out.position();
+            ByteBuffer table = ByteBuffer.allocate(4 + blocks.size() * 12).putInt(blocks.size());
+            for (long[] b : blocks) table.putLong(b[0]).putInt((int) b[1]);
+            out.write(table.flip());
+
+            long indexOffset = out.position();
+            out.write(records.flip());
+
+            out.write(ByteBuffer.allocate(FOOTER_BYTES)
+                    .putLong(dictionaryOffset).putLong(blockTableOffset).putLong(indexOffset)
+                    .putInt(order.length).flip());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long[] flushBlock(FileChannel out, ByteArrayOutputStream block) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.size() / 4);
+        try (OutputStream gz = new GZIPOutputStream(compressed)) {
+            block.writeTo(gz);
+        }
+        long offset = out.position();
+        out.write(ByteBuffer.wrap(compressed.toByteArray()));
+        block.reset();
+        return new long[]{offset, compressed.size()};
+    }
+
+    private static void writeBody(DataOutputStream data, CallStore.Body body) throws IOException {
+        if (body == null) {
+            data.writeInt(-1);
+            return;
+        }
+        data.writeInt(body.bytes().length);
+        data.write(body.bytes());
+    }
+
+    private static int id(String s, Map<String, Integer> ids, List<String> dictionary) {
+        if (s == null) return -1;
+        return ids.computeIfAbsent(s, k -> {
+            dictionary.add(k);
+            return dictionary.size() - 1;
+        });
+    }
+
+    // ===========================
+    // READING
+    // ===========================
+
+    public static CaptureArchive open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate(MAGIC.length);
+            if (size < MAGIC.length + FOOTER_BYTES || channel.read(head, 0) != MAGIC.length
+                    || !Arrays.equals(head.array(), MAGIC)) {
+                throw new IOException("Not a capture archive: " + file.getFileName());
+            }
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+            channel.read(footer, size - FOOTER_BYTES);
+            footer.flip();
+            long dictionaryOffset = footer.getLong();
+            long blockTableOffset = footer.getLong();
+            long indexOffset = footer.getLong();
+            int count = footer.getInt();
+            if ((long) count * RECORD_BYTES != size - FOOTER_BYTES - indexOffset) {
+                throw new IOException("Truncated capture archive " + file.getFileName());
+            }
+
+            String[] strings;
+            try (DataInputStream d = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(
+                    read(channel, dictionaryOffset, (int) (blockTableOffset - dictionaryOffset)))))) {
+                strings = new String[d.readInt()];
+                for (int i = 0; i < strings.length; i++) {
+                    byte[] bytes = new byte[d.readInt()];
+                    d.readFully(bytes);
+                    strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+
+            ByteBuffer table = ByteBuffer.wrap(read(channel, blockTableOffset, (int) (indexOffset - blockTableOffset)));
+            int blocks = table.getInt();
+            long[] offsets = new long[blocks];
+            int[] lengths = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                offsets[i] = table.getLong();
+                lengths[i] = table.getInt();
+            }
+
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) count * RECORD_BYTES);
+            return new CaptureArchive(channel, index, count, strings, offsets, lengths);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * All calls, in capture order.
+     */
+    public List<StoredCall> readAll(CallStore store) throws IOException {
+        StoredCall[] res = new StoredCall[count];
+        read(store, 0, count, (seq, call) -> res[seq] = call);
+        return Arrays.asList(res);
+    }
+
+    /**
+     * Calls of the endpoints {@code endpoints} accepts, in capture order. Endpoints are
+     * picked from the index alone; only the blocks holding their calls are read.
+     *
+     * @param endpoints tested with the method and the path template (id segments as {id},
+     *                  see {@link ApiPaths#template})
+     */
+    public List<StoredCall> find(CallStore store, BiPredicate<String, String> endpoints) throws IOException {
+        TreeMap<Integer, StoredCall> bySeq = new TreeMap<>();
+        int from = 0;
+        while (from < count) {
+            String method = string(field(from, 0));
+            String template = string(field(from, 1));
+            // Records of one endpoint are contiguous, ordered by status
+            int to = lowerBound(String.valueOf(method), String.valueOf(template), Integer.MAX_VALUE);
+            if (endpoints.test(method, template)) read(store, from, to, bySeq::put);
+            from = to;
+        }
+        return new ArrayList<>(bySeq.values());
+    }
+
+    private interface Sink {
+        void accept(int seq, StoredCall call);
+    }
+
+    // Records [from, to) in index order; consecutive records mostly share a block
+    private void read(CallStore store, int from, int to, Sink sink) throws IOException {
+        int currentBlock = -1;
+        byte[] block = null;
+        for (int i = from; i < to; i++) {
+            int blockNo = field(i, 4);
+            if (blockNo != currentBlock) {
+                block = decompress(blockNo);
+                currentBlock = blockNo;
+            }
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(block, field(i, 5), block.length));
+            String path = string(data.readInt());
+            String url = string(data.readInt());
+            String[] query = new String[data.readInt() * 2];
+            for (int q = 0; q < query.length; q++) query[q] = string(data.readInt());
+            byte[] request = readBody(data);
+            byte[] response = readBody(data);
+            sink.accept(field(i, 3), store.add(string(field(i, 0)), url, path, query, field(i, 2), request, response));
+        }
+    }
+
+    private static byte[] readBody(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return bytes;
+    }
+
+    private byte[] decompress(int blockNo) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(
+                read(channel, blockOffsets[blockNo], blockLengths[blockNo])))) {
+            return in.readAllBytes();
+        }
+    }
+
+    // First record not less than (method, template, status)
+    private int lowerBound(String method, String template, int status) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(mid, method, template, status) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int compare(int record, String method, String template, int status) {
+        int c = String.valueOf(string(field(record, 0))).compareTo(method);
+        if (c != 0) return c;
+        c = String.valueOf(string(field(record, 1))).compareTo(template);
+        if (c != 0) return c;
+        return Integer.compare(field(record, 2), status);
+    }
+
+    private int field(int record, int field) {
+        return index.getInt(record * RECORD_BYTES + field * 4);
+    }
+
+    private String string(int id) {
+        return id < 0 ? null : strings[id];
+    }
+
+    private static byte[] read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of capture archive");
+            }
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,161 @@
+package com.clooney.agent.inspect;
+
+import com.clooney.agent.config.GenerationOptions;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * What the {@link APIInspector} lets through while capturing.
+ *
+ *  - Requests for blocked resource types (image, font, media, ...) or to analytics
+ *    hosts are aborted at the route level, so they never hit the network.
+ *  - Only responses whose Content-Type starts with an allowed prefix are recorded;
+ *    other bodies are never read.
+ *  - Bodies above the size cap are either truncated (kept as a text preview) or
+ *    replaced by their size and SHA-256 only. Both leave a marker object:
+ *    {"_capture": "truncated" | "hashed", "bytes": n, "sha256": "...", "preview": "..."}
+ *    A marker is not the real payload: spec, seed and fidelity ignore it
+ *    ({@link #isCapMarker}), only the call's method, path, query and status count.
+ */
+public class CapturePolicy {
+
+    public enum Oversize { TRUNCATE, HASH }
+
+    public static final String MARKER_FIELD = "_capture";
+
+    private final Set<String> blockedResourceTypes;
+    private final List<String> blockedHosts;
+    private final List<String> contentTypes;
+    private final int maxBodyBytes;
+    private final Oversize oversize;
+
+    private final AtomicLong aborted = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong oversized = new AtomicLong();
+
+    public CapturePolicy(Set<String> blockedResourceTypes, List<String> blockedHosts,
+                         List<String> contentTypes, int maxBodyBytes, Oversize oversize) {
+        this.blockedResourceTypes = blockedResourceTypes;
+        this.blockedHosts = blockedHosts;
+        this.contentTypes = contentTypes;
+        this.maxBodyBytes = maxBodyBytes;
+        this.oversize = oversize;
+    }
+
+    public static CapturePolicy from(GenerationOptions options) {
+        return new CapturePolicy(
+                new TreeSet<>(list(options.getCaptureBlockedTypes())),
+                list(options.getCaptureBlockedHosts()),
+                list(options.getCaptureContentTypes()),
+                options.getCaptureMaxBodyBytes(),
+                "truncate".equals(options.getCaptureOversize()) ? Oversize.TRUNCATE : Oversize.HASH);
+    }
+
+    /**
+     * @param resourceType Playwright resource type ("document", "xhr", "fetch", "image", ...)
+     */
+    public boolean shouldAbort(String resourceType, String url) {
+        boolean abort = blockedResourceTypes.contains(resourceType) || isBlockedHost(url);
+        if (abort) aborted.incrementAndGet();
+        return abort;
+    }
+
+    /**
+     * Responses without a Content-Type (e.g. 204) are kept: they are still API calls.
+     */
+    public boolean shouldRecord(String contentType) {
+        if (isAllowedContentType(contentType)) return true;
+        skipped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Same check as {@link #shouldRecord} without counting a skip.
+     */
+    public boolean isAllowedContentType(String contentType) {
+        if (contentType == null || contentType.isBlank() || contentTypes.isEmpty()) return true;
+        String type = contentType.toLowerCase(Locale.ROOT).trim();
+        for (String allowed : contentTypes) {
+            if (type.startsWith(allowed)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Decode a request/response body, applying the size cap before parsing.
+     */
+    public Object body(byte[] bytes, Function<String, Object> parser) {
+        if (bytes == null || bytes.length == 0) return null;
+        if (maxBodyBytes <= 0 || bytes.length <= maxBodyBytes) {
+            return parser.apply(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        oversized.incrementAndGet();
+        Map<String, Object> marker = new LinkedHashMap<>();
+        marker.put(MARKER_FIELD, oversize == Oversize.TRUNCATE ? "truncated" : "hashed");
+        marker.put("bytes", bytes.length);
+        marker.put("sha256", sha256(bytes));
+        if (oversize == Oversize.TRUNCATE) {
+            marker.put("preview", new String(bytes, 0, maxBodyBytes, StandardCharsets.UTF_8));
+        }
+        return marker;
+    }
+
+    /**
+     * Whether a recorded body is the placeholder of an oversized one.
+     */
+    public static boolean isCapMarker(Object body) {
+        return body instanceof Map<?, ?> map && map.containsKey(MARKER_FIELD);
+    }
+
+    public String summary() {
+        return "aborted " + aborted.get() + " requests, skipped " + skipped.get()
+                + " responses by content type, capped " + oversized.get() + " oversized bodies";
+    }
+
+    private boolean isBlockedHost(String url) {
+        if (blockedHosts.isEmpty()) return false;
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (host == null) return false;
+        host = host.toLowerCase(Locale.ROOT);
+        for (String blocked : blockedHosts) {
+            if (host.equals(blocked) || host.endsWith("." + blocked)) return true;
+        }
+        return false;
+    }
+
+    private static List<String> list(String csv) {
+        List<String> res = new ArrayList<>();
+        if (csv == null) return res;
+        for (String item : csv.split(",")) {
+            if (!item.isBlank()) res.add(item.trim().toLowerCase(Locale.ROOT));
+        }
+        return res;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
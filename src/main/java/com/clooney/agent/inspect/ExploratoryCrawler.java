@@ -0,0 +1,292 @@
+package com.clooney.agent.inspect;
+
+import com.clooney.agent.config.Config;
+import com.clooney.agent.config.GenerationOptions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.playwright.*;
+import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.WaitUntilState;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Crawl mode of the capture: discovers in-app routes instead of visiting a fixed page list.
+ *
+ * Responsibilities:
+ *  - Start from the given pages and follow links (a[href], data-href) and client-side
+ *    navigations that stay on the app host.
+ *  - Visit routes with CLOONEY_CRAWL_CONCURRENCY pages in parallel; Playwright is not
+ *    thread-safe, so each worker owns its Playwright, browser and context. A login
+ *    flow runs once and its storage state is shared with the workers.
+ *  - Open each route template (/0/{id}/list) at most CLOONEY_CRAWL_PER_ROUTE times,
+ *    children of pages that yielded new endpoints first.
+ *  - Count the new endpoint templates (METHOD /tasks/{id}) each visit yields and stop
+ *    once CLOONEY_CRAWL_SATURATION visits in a row yielded none, or on the page/time budget.
+ *  - Persist all captured calls into backend/asana_logs/raw_crawl.json
+ */
+public class ExploratoryCrawler {
+
+    private static final String LINKS_SCRIPT = """
+            () => Array.from(document.querySelectorAll('a[href], [data-href]'),
+                             e => e.href || e.getAttribute('data-href'))
+            """;
+
+    private final APIInspector inspector;
+    private final Path outputDir;
+    private final int concurrency;
+    private final int maxPages;
+    private final long maxMillis;
+    private final int saturation;
+    private final int dwellMs;
+    private final int perRoute;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Crawl state, guarded by this
+    private final PriorityQueue<Route> frontier = new PriorityQueue<>();
+    private final Set<String> seenUrls = new HashSet<>();
+    private final Map<String, Integer> routeTemplates = new HashMap<>();
+    private final Set<String> endpoints = new TreeSet<>();
+    private final List<APIInspector.APICall> captured = new ArrayList<>();
+    private long sequence;
+    private int started;
+    private int inFlight;
+    private int visited;
+    private int idleStreak;
+    private long deadline;
+    private String stopReason;
+
+    public ExploratoryCrawler(Config config) {
+        GenerationOptions options = config.getGenerationOptions();
+        this.inspector = new APIInspector(config);
+        this.outputDir = config.getLogsDir();
+        this.concurrency = Math.max(1, options.getCrawlConcurrency());
+        this.maxPages = options.getCrawlMaxPages();
+        this.maxMillis = options.getCrawlMaxSeconds() * 1000L;
+        this.saturation = Math.max(1, options.getCrawlSaturation());
+        this.dwellMs = options.getCrawlDwellMs();
+        this.perRoute = Math.max(1, options.getCrawlPerRoute());
+    }
+
+    /**
+     * @param seeds page names known to {@link APIInspector} (home, projects, tasks) or full URLs
+     * @return all captured calls, also written to raw_crawl.json
+     */
+    public List<APIInspector.APICall> crawl(List<String> seeds) {
+        long start = System.currentTimeMillis();
+        deadline = start + maxMillis;
+        for (String seed : seeds) {
+            enqueue(seed.startsWith("http") ? seed : APIInspector.pageUrl(seed), 0, Integer.MAX_VALUE);
+        }
+
+        String storageState = login();
+
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(pool.submit(() -> work(storageState)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Crawl worker failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while crawling", e);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        System.out.printf("[Clooney] Crawl stopped (%s): %d pages, %d calls, %d endpoint templates in %d s (%.1f/min)%n",
+                stopReason, visited, captured.size(), endpoints.size(), elapsed / 1000,
+                endpoints.size() * 60_000.0 / elapsed);
+
+        try {
+            Files.createDirectories(outputDir);
+            Path file = outputDir.resolve("raw_crawl.json");
+            mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), captured);
+            System.out.println("[Clooney] Captured " + captured.size() + " calls into " + file.toAbsolutePath());
+            System.out.println("[Clooney] Capture policy: " + inspector.policy().summary());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write captured calls", e);
+        }
+        return captured;
+    }
+
+    // Runs the login flow once; cookie auth needs no shared state
+    private String login() {
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+            BrowserContext context = inspector.openContext(browser, null);
+            String state = inspector.authenticate(context.newPage()) ? context.storageState() : null;
+            browser.close();
+            return state;
+        }
+    }
+
+    // ===========================
+    // WORKERS
+    // ===========================
+
+    private Void work(String storageState) throws InterruptedException {
+        try (Playwright playwright = Playwright.create()) {
+            Browser browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+            BrowserContext context = inspector.openContext(browser, storageState);
+            Page page = context.newPage();
+
+            // Events are dispatched on this worker's thread while it waits on Playwright
+            List<APIInspector.APICall> calls = new ArrayList<>();
+            Set<String> navigated = new LinkedHashSet<>();
+            context.onResponse(response -> {
+                APIInspector.APICall call = inspector.capture(response);
+                if (call != null) calls.add(call);
+            });
+            page.onFrameNavigated(frame -> {
+                if (frame == page.mainFrame()) navigated.add(frame.url());
+            });
+
+            Route route;
+            while ((route = next()) != null) {
+                calls.clear();
+                navigated.clear();
+                long start = System.nanoTime();
+                Set<String> links = new LinkedHashSet<>();
+                try {
+                    page.navigate(route.url, new Page.NavigateOptions()
+                            .setWaitUntil(WaitUntilState.DOMCONTENTLOADED)
+                            .setTimeout(Math.max(30_000, dwellMs)));
+                    settle(page);
+                    links.addAll(links(page));
+                } catch (RuntimeException e) {
+                    // navigation timeouts, crashed tabs, evaluate on a closing page: skip the route
+                    System.err.println("[Clooney] Crawl of " + route.url + " failed: " + e.getMessage());
+                }
+                links.addAll(navigated);
+                done(route, List.copyOf(calls), links, (System.nanoTime() - start) / 1_000_000);
+            }
+
+            browser.close();
+        }
+        return null;
+    }
+
+    // Network idle, or the dwell time at most (long-polling pages never go idle)
+    private void settle(Page page) {
+        try {
+            page.waitForLoadState(LoadState.NETWORKIDLE, new Page.WaitForLoadStateOptions().setTimeout(dwellMs));
+        } catch (TimeoutError e) {
+            // dwell time is up; whatever fired so far counts
+        }
+    }
+
+    private static List<String> links(Page page) {
+        List<String> res = new ArrayList<>();
+        if (page.evaluate(LINKS_SCRIPT) instanceof List<?> hrefs) {
+            for (Object href : hrefs) {
+                if (href instanceof String s) res.add(s);
+            }
+        }
+        return res;
+    }
+
+    // ===========================
+    // FRONTIER
+    // ===========================
+
+    private record Route(String url, int depth, int parentYield, long order) implements Comparable<Route> {
+        @Override
+        public int compareTo(Route o) {
+            if (parentYield != o.parentYield) return Integer.compare(o.parentYield, parentYield);
+            if (depth != o.depth) return Integer.compare(depth, o.depth);
+            return Long.compare(order, o.order);
+        }
+    }
+
+    /**
+     * @return the next route to visit, or null once the crawl is over
+     */
+    private synchronized Route next() throws InterruptedException {
+        while (true) {
+            if (stopReason == null && System.currentTimeMillis() >= deadline) {
+                stopReason = "time budget of " + maxMillis / 1000 + " s";
+            }
+            if (stopReason != null) return null;
+
+            Route route = frontier.poll();
+            if (route != null) {
+                if (started >= maxPages) {
+                    stopReason = "page budget of " + maxPages;
+                    notifyAll();
+                    return null;
+                }
+                started++;
+                inFlight++;
+                return route;
+            }
+            if (inFlight == 0) {
+                stopReason = "no routes left";
+                notifyAll();
+                return null;
+            }
+            wait(250);
+        }
+    }
+
+    private synchronized void done(Route route, List<APIInspector.APICall> calls, Collection<String> links, long ms) {
+        inFlight--;
+        visited++;
+        captured.addAll(calls);
+
+        int fresh = 0;
+        for (APIInspector.APICall call : calls) {
+            if (endpoints.add(call.method + " " + ApiPaths.template(call.path))) fresh++;
+        }
+        idleStreak = fresh > 0 ? 0 : idleStreak + 1;
+
+        int queued = 0;
+        for (String link : links) {
+            if (enqueue(link, route.depth + 1, fresh)) queued++;
+        }
+
+        System.out.println("[Clooney] Crawl " + visited + " " + URI.create(route.url).getPath() + ": "
+                + calls.size() + " calls, +" + fresh + " endpoints (" + endpoints.size() + " total), +"
+                + queued + " routes, " + ms + " ms");
+
+        if (stopReason == null && idleStreak >= saturation) {
+            stopReason = "saturated, no new endpoint in the last " + saturation + " pages";
+        }
+        notifyAll();
+    }
+
+    private synchronized boolean enqueue(String link, int depth, int parentYield) {
+        URI uri;
+        try {
+            uri = URI.create(link);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String path = uri.getPath();
+        if (!APIInspector.isTargetUrl(link) || !"https".equals(uri.getScheme()) || path == null
+                || path.contains("/api/") || path.startsWith("/-/") || path.contains("logout")) {
+            return false;
+        }
+
+        String url = "https://" + uri.getHost() + path;
+        if (!seenUrls.add(url)) return false;
+        int visits = routeTemplates.merge(ApiPaths.template(path), 1, Integer::sum);
+        if (visits > perRoute) return false;
+
+        frontier.add(new Route(url, depth, parentYield, sequence++));
+        return true;
+    }
+}
@@ -0,0 +1,321 @@
+package com.clooney.agent.inspect;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports HAR exports (browser devtools, proxies) as capture logs.
+ *
+ * Responsibilities:
+ *  - Stream log.entries with the Jackson streaming parser: one entry is in memory
+ *    at a time, and response text of non-allowed content types is never read.
+ *  - Apply the same URL filter and /api/1.0 normalization as {@link APIInspector},
+ *    and the same {@link CapturePolicy} (blocked types/hosts, content types, body caps).
+ *  - Write each HAR as backend/asana_logs/raw_har_<name>.json, streamed as well,
+ *    via a temp file so readers never see a partial log.
+ *  - Import several HAR files in parallel, one file per worker.
+ */
+public class HarImporter {
+
+    private final Path outputDir;
+    private final CapturePolicy policy;
+    private final int threads;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory factory = mapper.getFactory();
+
+    public HarImporter(Path outputDir, CapturePolicy policy, int threads) {
+        this.outputDir = outputDir; // e.g. backend/asana_logs
+        this.policy = policy;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @param sources .har files, or directories whose *.har files are imported
+     * @return number of calls written across all files
+     */
+    public long importAll(List<Path> sources) {
+        List<Path> files = expand(sources);
+        if (files.isEmpty()) {
+            System.out.println("[Clooney] No HAR files found in " + sources);
+            return 0;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (Path file : files) {
+                results.add(pool.submit(() -> importFile(file)));
+            }
+
+            long total = 0;
+            List<String> failures = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    total += results.get(i).get();
+                } catch (ExecutionException e) {
+                    failures.add(files.get(i).getFileName() + ": " + e.getCause().getMessage());
+                }
+            }
+            System.out.println("[Clooney] Imported " + total + " calls from " + files.size() + " HAR file(s); "
+                    + policy.summary());
+            if (!failures.isEmpty()) {
+                throw new RuntimeException("HAR import failed for " + failures);
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while importing HAR files", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return number of calls written for this HAR
+     */
+    public long importFile(Path har) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(outputDir);
+        Path target = outputDir.resolve("raw_har_" + baseName(har) + ".json");
+        Path tmp = outputDir.resolve(target.getFileName() + ".tmp");
+
+        long entries = 0;
+        long written = 0;
+        try (JsonParser in = factory.createParser(har.toFile());
+             JsonGenerator out = factory.createGenerator(tmp.toFile(), JsonEncoding.UTF8)) {
+            out.useDefaultPrettyPrinter();
+            out.writeStartArray();
+
+            if (in.nextToken() != JsonToken.START_OBJECT || !seekField(in, "log")
+                    || in.currentToken() != JsonToken.START_OBJECT || !seekField(in, "entries")
+                    || in.currentToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Not a HAR file (no log.entries array)");
+            }
+            while (in.nextToken() == JsonToken.START_OBJECT) {
+                entries++;
+                APICall call = toCall(readEntry(in));
+                if (call != null) {
+                    mapper.writeValue(out, call);
+                    written++;
+                }
+            }
+
+            out.writeEndArray();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        System.out.println("[Clooney] " + har.getFileName() + ": " + written + " of " + entries
+                + " entries -> " + target.getFileName() + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+        return written;
+    }
+
+    // ===========================
+    // HAR ENTRIES
+    // ===========================
+
+    // The fields of one log.entries[] item that a call needs
+    private static final class Entry {
+        String resourceType;
+        String method;
+        String url;
+        String requestText;
+        int status;
+        String responseMime;
+        String responseText;
+        String responseEncoding;
+    }
+
+    private Entry readEntry(JsonParser in) throws IOException {
+        Entry entry = new Entry();
+        while (in.nextToken() == JsonToken.FIELD_NAME) {
+            String field = in.currentName();
+            JsonToken value = in.nextToken();
+            switch (field) {
+                case "_resourceType" -> entry.resourceType = in.getValueAsString();
+                case "request" -> readRequest(in, entry);
+                case "response" -> readResponse(in, entry);
+                default -> {
+                    if (value.isStructStart()) in.skipChildren();
+                }
+            }
+        }
+        return entry;
+    }
+
+    private void readRequest(JsonParser in, Entry entry) throws IOException {
+        if (in.currentToken() != JsonToken.START_OBJECT) {
+            in.skipChildren();
+            return;
+        }
+        while (in.nextToken() == JsonToken.FIELD_NAME) {
+            String field = in.currentName();
+            JsonToken value = in.nextToken();
+            if (field.equals("method")) {
+                entry.method = in.getValueAsString();
+            } else if (field.equals("url")) {
+                entry.url = in.getValueAsString();
+            } else if (field.equals("postData") && value == JsonToken.START_OBJECT) {
+                while (in.nextToken() == JsonToken.FIELD_NAME) {
+                    String postField = in.currentName();
+                    JsonToken postValue = in.nextToken();
+                    if (postField.equals("text")) entry.requestText = in.getValueAsString();
+                    else if (postValue.isStructStart()) in.skipChildren();
+                }
+            } else if (value.isStructStart()) {
+                in.skipChildren();
+            }
+        }
+    }
+
+    private void readResponse(JsonParser in, Entry entry) throws IOException {
+        if (in.currentToken() != JsonToken.START_OBJECT) {
+            in.skipChildren();
+            return;
+        }
+        while (in.nextToken() == JsonToken.FIELD_NAME) {
+            String field = in.currentName();
+            JsonToken value = in.nextToken();
+            if (field.equals("status")) {
+                entry.status = in.getValueAsInt();
+            } else if (field.equals("content") && value == JsonToken.START_OBJECT) {
+                while (in.nextToken() == JsonToken.FIELD_NAME) {
+                    String contentField = in.currentName();
+                    JsonToken contentValue = in.nextToken();
+                    switch (contentField) {
+                        case "mimeType" -> entry.responseMime = in.getValueAsString();
+                        case "encoding" -> entry.responseEncoding = in.getValueAsString();
+                        case "text" -> {
+                            // Bundles, HTML, images: skip without materializing the text
+                            if (entry.responseMime == null || policy.isAllowedContentType(entry.responseMime)) {
+                                entry.responseText = in.getValueAsString();
+                            }
+                        }
+                        default -> {
+                            if (contentValue.isStructStart()) in.skipChildren();
+                        }
+                    }
+                }
+            } else if (value.isStructStart()) {
+                in.skipChildren();
+            }
+        }
+    }
+
+    private APICall toCall(Entry entry) {
+        // status 0: blocked, cancelled or never answered in the browser
+        if (entry.method == null || entry.status == 0 || !APIInspector.isTargetUrl(entry.url)) return null;
+        if (policy.shouldAbort(entry.resourceType == null ? "" : entry.resourceType, entry.url)) return null;
+        if (!policy.shouldRecord(entry.responseMime)) return null;
+
+        APIInspector.ParsedUrl parsed = APIInspector.parseUrl(entry.url);
+        APICall call = new APICall();
+        call.method = entry.method.toUpperCase(Locale.ROOT);
+        call.url = entry.url;
+        call.path = parsed.path();
+        call.query = parsed.query();
+        call.status = entry.status;
+        call.requestBody = entry.requestText == null ? null
+                : policy.body(entry.requestText.getBytes(StandardCharsets.UTF_8), this::tryParseJson);
+        call.responseBody = entry.responseText == null ? null
+                : policy.body(responseBytes(entry), this::tryParseJson);
+        return call;
+    }
+
+    private static byte[] responseBytes(Entry entry) {
+        if ("base64".equalsIgnoreCase(entry.responseEncoding)) {
+            try {
+                return Base64.getMimeDecoder().decode(entry.responseText);
+            } catch (IllegalArgumentException e) {
+                return entry.responseText.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return entry.responseText.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Object tryParseJson(String text) {
+        if (text == null || text.isBlank()) return null;
+        try {
+            return mapper.readValue(text, Object.class);
+        } catch (Exception e) {
+            return text; // keep raw, like APIInspector
+        }
+    }
+
+    // ===========================
+    // HELPERS
+    // ===========================
+
+    // Advances to the value of {@code name} in the current object, skipping other fields
+    private static boolean seekField(JsonParser in, String name) throws IOException {
+        while (in.nextToken() == JsonToken.FIELD_NAME) {
+            String field = in.currentName();
+            JsonToken value = in.nextToken();
+            if (field.equals(name)) return true;
+            if (value.isStructStart()) in.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Every HAR named once. Two different files with the same base name (a/x.har, b/x.har)
+     * would both write raw_har_x.json, so they are rejected before anything is imported.
+     */
+    private static List<Path> expand(List<Path> sources) {
+        Set<Path> files = new TreeSet<>();
+        for (Path source : sources) {
+            if (Files.isDirectory(source)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(source, "*.har")) {
+                    stream.forEach(file -> files.add(file.toAbsolutePath().normalize()));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            } else if (Files.exists(source)) {
+                files.add(source.toAbsolutePath().normalize());
+            } else {
+                System.err.println("[Clooney] HAR file not found: " + source);
+            }
+        }
+
+        Map<String, Path> byName = new HashMap<>();
+        for (Path file : files) {
+            Path other = byName.putIfAbsent(baseName(file), file);
+            if (other != null) {
+                throw new IllegalArgumentException("HAR files " + other + " and " + file
+                        + " would both be imported as raw_har_" + baseName(file) + ".json; rename one of them");
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static String baseName(Path har) {
+        String name = har.getFileName().toString();
+        if (name.toLowerCase(Locale.ROOT).endsWith(".har")) name = name.substring(0, name.length() - 4);
+        return name.replaceAll("[^A-Za-z0-9_-]+", "_");
+    }
+}
@@ -0,0 +1,119 @@
+package com.clooney.agent.inspect;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact form of an {@link APICall} held by a {@link CallStore}.
+ *
+ * Method, path and query keys/values are interned by the store; bodies are shared
+ * {@link CallStore.Body} instances holding minified JSON bytes, parsed only when a
+ * caller asks for them. Calls compare by content.
+ */
+public final class StoredCall {
+
+    private final String method;
+    private final String url;
+    private final String path;
+    private final String[] query; // key, value, key, value, ...
+    private final int status;
+    private final CallStore.Body requestBody;
+    private final CallStore.Body responseBody;
+
+    StoredCall(String method, String url, String path, String[] query, int status,
+               CallStore.Body requestBody, CallStore.Body responseBody) {
+        this.method = method;
+        this.url = url;
+        this.path = path;
+        this.query = query;
+        this.status = status;
+        this.requestBody = requestBody;
+        this.responseBody = responseBody;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String url() {
+        return url;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    /**
+     * "METHOD /path", the key captures are clustered by.
+     */
+    public String endpoint() {
+        return method + " " + path;
+    }
+
+    public Map<String, Object> query() {
+        Map<String, Object> res = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < query.length; i += 2) res.put(query[i], query[i + 1]);
+        return res;
+    }
+
+    /**
+     * @return null when the call had no body
+     */
+    public CallStore.Body requestBody() {
+        return requestBody;
+    }
+
+    public CallStore.Body responseBody() {
+        return responseBody;
+    }
+
+    /**
+     * Materialize the call; bodies are parsed here.
+     */
+    public APICall toApiCall() {
+        return toApiCall(new HashMap<>());
+    }
+
+    /**
+     * Materialize the call, reusing the trees in {@code parsed} for bodies already
+     * parsed for other calls. The shared trees must be treated as read-only.
+     */
+    public APICall toApiCall(Map<CallStore.Body, Object> parsed) {
+        APICall call = new APICall();
+        call.method = method;
+        call.url = url;
+        call.path = path;
+        call.query = query();
+        call.status = status;
+        call.requestBody = requestBody == null ? null : parsed.computeIfAbsent(requestBody, CallStore.Body::parse);
+        call.responseBody = responseBody == null ? null : parsed.computeIfAbsent(responseBody, CallStore.Body::parse);
+        return call;
+    }
+
+    /**
+     * Equal when method, url, query, status and bodies are: the calls carry the same information.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof StoredCall other
+                && status == other.status
+                && Objects.equals(method, other.method)
+                && Objects.equals(url, other.url)
+                && Objects.equals(path, other.path)
+                && Arrays.equals(query, other.query)
+                && Objects.equals(requestBody, other.requestBody)
+                && Objects.equals(responseBody, other.responseBody);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, url, path, Arrays.hashCode(query), status, requestBody, responseBody);
+    }
+}
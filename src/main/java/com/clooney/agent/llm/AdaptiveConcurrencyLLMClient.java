@@ -0,0 +1,205 @@
+package com.clooney.agent.llm;
+
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LLMClient decorator whose in-flight limit follows the provider's capacity (AIMD):
+ *
+ *  - Each healthy completion while the limit is in use raises it by 1/limit,
+ *    i.e. about +1 per round of requests.
+ *  - A 429/503, a timeout or a latency spike (over {@value #SPIKE_FACTOR}x the
+ *    moving average of completed latencies, spikes included) halves it. Requests
+ *    that started before the last cut belong to the same congestion event and do
+ *    not cut again.
+ *  - Throttled and timed-out requests are retried up to {@value #MAX_RETRIES}
+ *    times with jittered backoff, so a burst of 429s does not fail the pipeline.
+ *
+ * {@link #getLimit()}, {@link #getInFlight()} and {@link #getQueueDepth()} are the
+ * live values for metrics.
+ */
+public class AdaptiveConcurrencyLLMClient implements LLMClient {
+
+    private static final double DECREASE = 0.5;
+    private static final double SPIKE_FACTOR = 3.0;
+    private static final double LATENCY_WEIGHT = 0.1;
+    private static final int MIN_LATENCY_SAMPLES = 5;
+    private static final int MAX_RETRIES = 3;
+    private static final long BACKOFF_MILLIS = 500;
+
+    private final LLMClient delegate;
+    private final int maxLimit;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double averageLatencyNanos;
+    private int latencySamples;
+    private long lastCutNanos = Long.MIN_VALUE;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong spikes = new AtomicLong();
+    private final AtomicLong cuts = new AtomicLong();
+
+    public AdaptiveConcurrencyLLMClient(LLMClient delegate, int initialLimit, int maxLimit) {
+        this.delegate = delegate;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.max(1, Math.min(initialLimit, this.maxLimit));
+    }
+
+    @Override
+    public String complete(String prompt) {
+        for (int attempt = 0; ; attempt++) {
+            long start = acquire();
+            boolean congested = false;
+            try {
+                String completion = delegate.complete(prompt);
+                onSuccess(start, System.nanoTime() - start);
+                return completion;
+            } catch (RuntimeException e) {
+                congested = isThrottled(e) || isTimeout(e);
+                if (!congested) throw e;
+                (isThrottled(e) ? throttled : timeouts).incrementAndGet();
+                cut(start);
+                if (attempt >= MAX_RETRIES) throw e;
+            } finally {
+                release();
+            }
+            if (congested) backoff(attempt);
+        }
+    }
+
+    // ===========================
+    // LIMIT
+    // ===========================
+
+    private synchronized long acquire() {
+        waiting++;
+        try {
+            while (inFlight >= (int) limit) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an LLM request slot", e);
+        } finally {
+            waiting--;
+        }
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    private synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * A slot for a request the delegate starts on its own (a hedge, see
+     * {@link HedgingLLMClient#limitHedgesBy}); only granted when one is free and no
+     * caller is queued, so hedges never delay first attempts.
+     */
+    public synchronized boolean tryAcquireExtra() {
+        if (inFlight >= (int) limit || waiting > 0) return false;
+        inFlight++;
+        return true;
+    }
+
+    public void releaseExtra() {
+        release();
+    }
+
+    private synchronized void onSuccess(long start, long latencyNanos) {
+        completed.incrementAndGet();
+        boolean spike = latencySamples >= MIN_LATENCY_SAMPLES && latencyNanos > SPIKE_FACTOR * averageLatencyNanos;
+
+        // Spikes feed the average too: if latency stays high (a slower model, longer
+        // completions), the baseline catches up instead of every call counting as a spike
+        averageLatencyNanos = latencySamples == 0
+                ? latencyNanos
+                : (1 - LATENCY_WEIGHT) * averageLatencyNanos + LATENCY_WEIGHT * latencyNanos;
+        latencySamples++;
+
+        if (spike) {
+            spikes.incrementAndGet();
+            cut(start);
+            return;
+        }
+
+        // Only probe upwards when the current limit is actually the bottleneck
+        if (inFlight >= (int) limit || waiting > 0) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+            notifyAll();
+        }
+    }
+
+    private synchronized void cut(long start) {
+        if (start < lastCutNanos) return;
+        limit = Math.max(1, limit * DECREASE);
+        lastCutNanos = System.nanoTime();
+        cuts.incrementAndGet();
+    }
+
+    private static void backoff(int attempt) {
+        long millis = BACKOFF_MILLIS << attempt;
+        try {
+            Thread.sleep(millis + ThreadLocalRandom.current().nextLong(millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while backing off from the LLM provider", e);
+        }
+    }
+
+    private static boolean isThrottled(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof LLMApiException api && api.isThrottled()) return true;
+        }
+        return false;
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException || t instanceof TimeoutException) return true;
+        }
+        return false;
+    }
+
+    // ===========================
+    // METRICS
+    // ===========================
+
+    public LLMClient getDelegate() {
+        return delegate;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueDepth() {
+        return waiting;
+    }
+
+    public String summary() {
+        return "limit " + getLimit() + ", in flight " + getInFlight() + ", queued " + getQueueDepth()
+                + "; " + completed.get() + " completed, " + throttled.get() + " throttled, "
+                + timeouts.get() + " timed out, " + spikes.get() + " latency spikes, " + cuts.get() + " cuts";
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getCuts() {
+        return cuts.get();
+    }
+}
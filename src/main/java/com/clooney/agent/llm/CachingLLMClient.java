@@ -0,0 +1,131 @@
+package com.clooney.agent.llm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LLMClient decorator that answers repeated prompts from a cache.
+ *
+ * Completions are keyed by the SHA-256 of the prompt, kept in a small in-memory
+ * LRU and persisted as cacheDir/<sha256>.txt so they survive restarts. Concurrent
+ * callers with the same prompt share one underlying request.
+ */
+public class CachingLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final Path cacheDir;
+    private final Map<String, String> memory;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingLLMClient(LLMClient delegate, Path cacheDir, int maxEntries) {
+        this.delegate = delegate;
+        this.cacheDir = cacheDir;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public String complete(String prompt) {
+        String key = sha256(prompt);
+        String cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            hits.incrementAndGet();
+            return existing.join();
+        }
+
+        misses.incrementAndGet();
+        try {
+            String completion = delegate.complete(prompt);
+            store(key, completion);
+            mine.complete(completion);
+            return completion;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * The undecorated client, for callers that need independent samples of the same prompt.
+     */
+    public LLMClient delegate() {
+        return delegate;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    private String lookup(String key) {
+        synchronized (memory) {
+            String value = memory.get(key);
+            if (value != null) return value;
+        }
+        Path file = cacheDir.resolve(key + ".txt");
+        if (!Files.exists(file)) return null;
+        try {
+            String value = Files.readString(file);
+            synchronized (memory) {
+                memory.put(key, value);
+            }
+            return value;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void store(String key, String completion) {
+        synchronized (memory) {
+            memory.put(key, completion);
+        }
+        try {
+            Files.createDirectories(cacheDir);
+            Path tmp = Files.createTempFile(cacheDir, key, ".tmp");
+            Files.writeString(tmp, completion);
+            Files.move(tmp, cacheDir.resolve(key + ".txt"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[Clooney] Could not persist LLM cache entry: " + e.getMessage());
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
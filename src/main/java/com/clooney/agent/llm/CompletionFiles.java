@@ -0,0 +1,136 @@
+package com.clooney.agent.llm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Parses and writes multi-file completions in the marker format used by the
+ * backend and test prompts:
+ *
+ *   ===FILE:relative/path===
+ *   <content>
+ *   ===FILE:other/path===
+ *   <content>
+ *   ===END===
+ */
+public final class CompletionFiles {
+
+    private static final String FILE_MARKER = "===FILE:";
+    private static final String END_MARKER = "===END===";
+    private static final String MANIFEST = ".clooney-files";
+
+    private CompletionFiles() {
+    }
+
+    /**
+     * @return relative path -> trimmed file content, in completion order
+     */
+    public static Map<String, String> parse(String completion) {
+        Map<String, String> files = new LinkedHashMap<>();
+
+        int idx = 0;
+        while (true) {
+            int start = completion.indexOf(FILE_MARKER, idx);
+            if (start < 0) {
+                break;
+            }
+
+            int pathStart = start + FILE_MARKER.length();
+            int pathEnd = completion.indexOf("===", pathStart);
+            if (pathEnd < 0) {
+                break;
+            }
+
+            String relativePath = completion.substring(pathStart, pathEnd).trim();
+
+            int contentStart = completion.indexOf('\n', pathEnd);
+            if (contentStart < 0) {
+                break;
+            }
+            contentStart += 1; // skip newline
+
+            int nextFile = completion.indexOf(FILE_MARKER, contentStart);
+            int end = nextFile >= 0 ? nextFile : completion.indexOf(END_MARKER, contentStart);
+            if (end < 0) {
+                end = completion.length();
+            }
+
+            files.put(relativePath, completion.substring(contentStart, end).trim());
+
+            idx = end;
+        }
+        return files;
+    }
+
+    /**
+     * Files whose content is already on disk are left untouched, so their timestamps do
+     * not trigger recompiles or devtools restarts.
+     *
+     * Files of the previous completion that this one no longer contains are removed
+     * (a feature switched off, another backend stack), as is any other .java source
+     * under outputDir outside target/: stale classes would otherwise keep compiling
+     * against a pom that may no longer provide their dependencies. The previous file
+     * list is kept in {@value #MANIFEST}. An empty completion removes nothing.
+     *
+     * @return number of files actually written
+     */
+    public static int write(Map<String, String> files, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir); // ensure base dir exists
+        if (!files.isEmpty()) prune(files.keySet(), outputDir);
+        int written = 0;
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            Path target = outputDir.resolve(file.getKey());
+            if (Files.exists(target) && Files.readString(target).equals(file.getValue())) {
+                continue;
+            }
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, file.getValue());
+            written++;
+        }
+        if (!files.isEmpty()) Files.write(outputDir.resolve(MANIFEST), files.keySet());
+        return written;
+    }
+
+    private static void prune(Set<String> keep, Path outputDir) throws IOException {
+        Set<Path> wanted = new HashSet<>();
+        for (String file : keep) wanted.add(outputDir.resolve(file).normalize());
+
+        Set<Path> stale = new TreeSet<>();
+        Path manifest = outputDir.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            for (String file : Files.readAllLines(manifest)) {
+                if (!file.isBlank()) stale.add(outputDir.resolve(file.trim()).normalize());
+            }
+        }
+        try (Stream<Path> walk = Files.walk(outputDir)) {
+            walk.filter(p -> p.toString().endsWith(".java"))
+                    .filter(p -> !outputDir.relativize(p).startsWith("target"))
+                    .forEach(p -> stale.add(p.normalize()));
+        }
+        stale.removeAll(wanted);
+
+        int removed = 0;
+        for (Path file : stale) {
+            if (!file.startsWith(outputDir.normalize()) || !Files.isRegularFile(file)) continue;
+            Files.delete(file);
+            removed++;
+            // Drop directories left empty, up to outputDir
+            for (Path dir = file.getParent(); dir != null && !dir.equals(outputDir.normalize()); dir = dir.getParent()) {
+                try (Stream<Path> entries = Files.list(dir)) {
+                    if (entries.findAny().isPresent()) break;
+                }
+                Files.delete(dir);
+            }
+        }
+        if (removed > 0) {
+            System.out.println("[Clooney] Removed " + removed + " generated file(s) the new completion no longer contains.");
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.clooney.agent.llm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LLMClient over one or more OpenAI-compatible endpoints that cuts tail latency
+ * and survives an endpoint going down.
+ *
+ *  - Hedging: if the first request has not answered after the p-th percentile of
+ *    recent completion latencies, a duplicate goes to the next endpoint (the same
+ *    one when only one is configured). The first success wins; the other request
+ *    is cancelled, which aborts its HTTP exchange.
+ *  - Failover: a failed request is retried right away on the next endpoint, until
+ *    every endpoint has been tried.
+ *
+ * Latencies are measured end to end, from {@link #complete} to the winning answer:
+ * the winning attempt's own duration would under-count every hedged request.
+ * Until enough latencies are recorded, the initial hedge delay is used.
+ *
+ * Behind an {@link AdaptiveConcurrencyLLMClient} (see {@link #limitHedgesBy}), a hedge
+ * takes an extra slot of the limiter and is skipped when none is free.
+ */
+public class HedgingLLMClient implements LLMClient {
+
+    private static final int WINDOW = 100;
+    private static final int MIN_SAMPLES = 10;
+
+    private final List<OpenAiLLMClient> endpoints;
+    private final boolean hedge;
+    private final double percentile;
+    private final long initialDelayNanos;
+
+    // Ring buffer of recent end-to-end latencies, guarded by itself
+    private final long[] latencies = new long[WINDOW];
+    private int samples;
+
+    private volatile AdaptiveConcurrencyLLMClient limiter;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgesLimited = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+
+    /**
+     * @param hedge              false = failover only
+     * @param percentile         e.g. 95: hedge once a request is slower than 95% of recent ones
+     * @param initialDelayMillis hedge delay before {@value #MIN_SAMPLES} latencies are known
+     */
+    public HedgingLLMClient(List<OpenAiLLMClient> endpoints, boolean hedge, double percentile, long initialDelayMillis) {
+        if (endpoints.isEmpty()) throw new IllegalArgumentException("No LLM endpoints configured");
+        this.endpoints = List.copyOf(endpoints);
+        this.hedge = hedge;
+        this.percentile = Math.min(100, Math.max(1, percentile));
+        this.initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialDelayMillis);
+    }
+
+    /**
+     * Count hedges against the in-flight limit of the limiter wrapping this client,
+     * which otherwise sees one request where two are running.
+     */
+    public void limitHedgesBy(AdaptiveConcurrencyLLMClient limiter) {
+        this.limiter = limiter;
+    }
+
+    private record Outcome(int attempt, String completion, Throwable error) {}
+
+    @Override
+    public String complete(String prompt) {
+        long begin = System.nanoTime();
+        requests.incrementAndGet();
+        // One hedge on top of trying every endpoint once
+        int maxAttempts = hedge ? Math.max(2, endpoints.size() + 1) : endpoints.size();
+        BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        List<CompletableFuture<String>> attempts = new ArrayList<>();
+
+        long hedgeAt = hedge ? System.nanoTime() + hedgeDelayNanos() : Long.MAX_VALUE;
+        boolean hedged = !hedge;
+        int hedgeAttempt = -1;
+        AdaptiveConcurrencyLLMClient hedgeSlot = null;
+        launch(prompt, attempts, outcomes);
+        int pending = 1;
+        Throwable lastError = null;
+
+        try {
+            while (pending > 0) {
+                Outcome outcome = hedged
+                        ? outcomes.take()
+                        : outcomes.poll(hedgeAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+                if (outcome == null) {
+                    // Still no answer at the hedge delay: race a duplicate
+                    hedged = true;
+                    if (attempts.size() < maxAttempts) {
+                        AdaptiveConcurrencyLLMClient slots = limiter;
+                        if (slots != null && !slots.tryAcquireExtra()) {
+                            hedgesLimited.incrementAndGet();
+                            continue;
+                        }
+                        hedgeSlot = slots;
+                        hedges.incrementAndGet();
+                        hedgeAttempt = attempts.size();
+                        launch(prompt, attempts, outcomes);
+                        pending++;
+                    }
+                    continue;
+                }
+
+                pending--;
+                if (outcome.error == null) {
+                    if (outcome.attempt == hedgeAttempt) hedgeWins.incrementAndGet();
+                    record(System.nanoTime() - begin);
+                    return outcome.completion;
+                }
+
+                lastError = outcome.error;
+                System.err.println("[Clooney] LLM endpoint " + endpointOf(outcome.attempt).getCompletionsUri()
+                        + " failed: " + outcome.error);
+                if (attempts.size() < maxAttempts && pending == 0) {
+                    failovers.incrementAndGet();
+                    if (!hedged) hedgeAt = System.nanoTime() + hedgeDelayNanos();
+                    launch(prompt, attempts, outcomes);
+                    pending++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the LLM", e);
+        } finally {
+            attempts.forEach(attempt -> attempt.cancel(true));
+            if (hedgeSlot != null) hedgeSlot.releaseExtra();
+        }
+        throw lastError instanceof RuntimeException runtime
+                ? runtime
+                : new RuntimeException("All LLM endpoints failed", lastError);
+    }
+
+    // Attempt n goes to endpoint n (mod size)
+    private void launch(String prompt, List<CompletableFuture<String>> attempts, BlockingQueue<Outcome> outcomes) {
+        int attempt = attempts.size();
+        CompletableFuture<String> future = endpointOf(attempt).completeAsync(prompt);
+        attempts.add(future);
+        future.whenComplete((completion, error) -> outcomes.add(new Outcome(attempt, completion,
+                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error)));
+    }
+
+    private OpenAiLLMClient endpointOf(int attempt) {
+        return endpoints.get(attempt % endpoints.size());
+    }
+
+    private void record(long nanos) {
+        synchronized (latencies) {
+            latencies[samples % WINDOW] = nanos;
+            samples++;
+        }
+    }
+
+    long hedgeDelayNanos() {
+        long[] recent;
+        synchronized (latencies) {
+            if (samples < MIN_SAMPLES) return initialDelayNanos;
+            recent = Arrays.copyOf(latencies, Math.min(samples, WINDOW));
+        }
+        Arrays.sort(recent);
+        int index = (int) Math.ceil(percentile / 100 * recent.length) - 1;
+        return recent[Math.max(0, Math.min(recent.length - 1, index))];
+    }
+
+    public String summary() {
+        return requests.get() + " requests, " + hedges.get() + " hedged (" + hedgeWins.get() + " won by the hedge, "
+                + hedgesLimited.get() + " held back by the concurrency limit), " + failovers.get() + " failovers, hedge delay " + TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos()) + " ms";
+    }
+}
@@ -0,0 +1,27 @@
+package com.clooney.agent.llm;
+
+/**
+ * Non-2xx answer from an LLM provider, with its HTTP status.
+ */
+public class LLMApiException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public LLMApiException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * 429 Too Many Requests, or 503 which some OpenAI-compatible servers send when overloaded.
+     */
+    public boolean isThrottled() {
+        return statusCode == 429 || statusCode == 503;
+    }
+}
@@ -0,0 +1,244 @@
+package com.clooney.agent.llm;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * LLMClient that sends each prompt to the cheapest model able to handle its stage.
+ *
+ * Responsibilities:
+ *  - Read the stage from the prompt's tag (see {@link PromptStage}).
+ *  - Keep the models that fit the stage budget: the latency estimate (moving average
+ *    of past calls for that model and stage, seeded with the configured expectation)
+ *    and the cost estimate (prompt tokens, plus as many completion tokens, at the
+ *    model's price) must both be within it. When none fits, the whole ladder is used.
+ *  - Estimates only move when a model is called, so a model left out for being too
+ *    slow gets a trial call every {@value #PROBE_EVERY}th time, whose latency becomes
+ *    its new estimate: a recovered model is back right away.
+ *  - Try them cheapest first and escalate to the next one when the call fails or the
+ *    completion does not pass {@link PromptStage#accepts}. Repair prompts skip the
+ *    cheapest candidate, since they exist because an earlier completion was broken.
+ *  - When every candidate returned unusable output, the last output is returned so
+ *    the caller's own repair loop can still work on it.
+ *
+ * Untagged prompts go to the largest model without validation.
+ */
+public class ModelRouter implements LLMClient {
+
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int PROBE_EVERY = 10;
+
+    /**
+     * @param usdPerMillionTokens blended input/output price
+     * @param expectedSeconds     latency guess used until calls have been measured
+     */
+    public record Model(String name, double usdPerMillionTokens, double expectedSeconds) {}
+
+    /**
+     * Per-call ceiling for a stage; 0 means unbounded.
+     */
+    public record Budget(double maxSeconds, double maxUsd) {
+        static final Budget NONE = new Budget(0, 0);
+    }
+
+    private final List<Model> ladder;
+    private final Map<String, LLMClient> clients;
+    private final Map<PromptStage, Budget> budgets;
+
+    // Guarded by this
+    private final Map<String, Double> latencySeconds = new LinkedHashMap<>();
+    private final Map<String, long[]> stats = new LinkedHashMap<>();
+    private final Map<PromptStage, int[]> escalations = new EnumMap<>(PromptStage.class);
+    private final Map<String, Integer> tooSlow = new HashMap<>();
+    private int probes;
+    private double spentUsd;
+
+    /**
+     * @param clients one client per model name; the ladder is ordered by price
+     */
+    public ModelRouter(List<Model> models, Map<String, LLMClient> clients, Map<PromptStage, Budget> budgets) {
+        if (models.isEmpty()) throw new IllegalArgumentException("No LLM models configured");
+        List<Model> sorted = new ArrayList<>(models);
+        sorted.sort((a, b) -> Double.compare(a.usdPerMillionTokens(), b.usdPerMillionTokens()));
+        for (Model model : sorted) {
+            if (!clients.containsKey(model.name())) {
+                throw new IllegalArgumentException("No LLM client for model " + model.name());
+            }
+        }
+        this.ladder = List.copyOf(sorted);
+        this.clients = Map.copyOf(clients);
+        this.budgets = budgets.isEmpty() ? Map.of() : new EnumMap<>(budgets);
+    }
+
+    @Override
+    public String complete(String prompt) {
+        PromptStage stage = PromptStage.of(prompt);
+        if (stage == null) {
+            Model largest = ladder.get(ladder.size() - 1);
+            return call(largest, null, prompt);
+        }
+
+        List<Model> candidates = candidates(stage, prompt);
+        RuntimeException lastError = null;
+        String lastCompletion = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Model model = candidates.get(i);
+            if (i > 0) {
+                escalated(stage);
+                System.out.println("[Clooney] Escalating " + stage.id() + " prompt to " + model.name());
+            }
+            try {
+                String completion = call(model, stage, prompt);
+                if (stage.accepts(completion)) return completion;
+                rejected(model);
+                lastCompletion = completion;
+            } catch (RuntimeException e) {
+                lastError = e;
+                System.err.println("[Clooney] Model " + model.name() + " failed on " + stage.id() + ": " + e.getMessage());
+            }
+        }
+        if (lastCompletion != null) return lastCompletion;
+        throw lastError;
+    }
+
+    // ===========================
+    // ROUTING
+    // ===========================
+
+    List<Model> candidates(PromptStage stage, String prompt) {
+        Budget budget = budgets.getOrDefault(stage, Budget.NONE);
+        List<Model> fit = new ArrayList<>();
+        for (Model model : ladder) {
+            boolean cheap = budget.maxUsd() <= 0 || estimatedUsd(model, prompt) <= budget.maxUsd();
+            if (!cheap) continue;
+            boolean fast = budget.maxSeconds() <= 0 || estimatedSeconds(model, stage) <= budget.maxSeconds();
+            if (fast || probe(model, stage)) fit.add(model);
+        }
+        // Over budget either way: keep the cheapest-first escalation rather than a single model
+        if (fit.isEmpty()) fit.addAll(ladder);
+        if (stage == PromptStage.REPAIR && fit.size() > 1) fit.remove(0);
+        return fit;
+    }
+
+    // Counts the times a model was too slow for a stage; every PROBE_EVERY-th one it is tried anyway
+    private synchronized boolean probe(Model model, PromptStage stage) {
+        String key = model.name() + "/" + stage.id();
+        if (tooSlow.merge(key, 1, Integer::sum) < PROBE_EVERY) return false;
+        tooSlow.remove(key);
+        probes++;
+        System.out.println("[Clooney] Re-trying " + model.name() + " on " + stage.id() + " (estimated "
+                + Math.round(estimatedSeconds(model, stage)) + " s)");
+        // The trial measurement replaces the stale average instead of being blended into it
+        latencySeconds.remove(key);
+        return true;
+    }
+
+    synchronized double estimatedSeconds(Model model, PromptStage stage) {
+        return latencySeconds.getOrDefault(model.name() + "/" + stage.id(), model.expectedSeconds());
+    }
+
+    // A completion is assumed as long as its prompt; good enough to keep big prompts off pricey models
+    static double estimatedUsd(Model model, String prompt) {
+        return usd(model, prompt.length() * 2L);
+    }
+
+    private static double usd(Model model, long chars) {
+        return (double) chars / CHARS_PER_TOKEN / 1_000_000 * model.usdPerMillionTokens();
+    }
+
+    private String call(Model model, PromptStage stage, String prompt) {
+        long start = System.nanoTime();
+        String completion = clients.get(model.name()).complete(prompt);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        synchronized (this) {
+            if (stage != null) {
+                latencySeconds.merge(model.name() + "/" + stage.id(), seconds,
+                        (old, now) -> (1 - LATENCY_WEIGHT) * old + LATENCY_WEIGHT * now);
+            }
+            long[] s = stats.computeIfAbsent(model.name(), name -> new long[2]);
+            s[0]++;
+            spentUsd += usd(model, prompt.length() + (long) completion.length());
+        }
+        return completion;
+    }
+
+    private synchronized void rejected(Model model) {
+        stats.computeIfAbsent(model.name(), name -> new long[2])[1]++;
+    }
+
+    private synchronized void escalated(PromptStage stage) {
+        escalations.computeIfAbsent(stage, s -> new int[1])[0]++;
+    }
+
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Model model : ladder) {
+            long[] s = stats.getOrDefault(model.name(), new long[2]);
+            if (!sb.isEmpty()) sb.append(", ");
+            sb.append(model.name()).append(' ').append(s[0]).append(" calls (").append(s[1]).append(" rejected)");
+        }
+        sb.append("; escalations ");
+        if (escalations.isEmpty()) sb.append("none");
+        escalations.forEach((stage, n) -> sb.append(stage.id()).append('=').append(n[0]).append(' '));
+        return sb.toString().trim() + "; " + probes + " re-tries of slow models" + String.format(Locale.ROOT, "; ~$%.4f", spentUsd);
+    }
+
+    // ===========================
+    // CONFIGURATION
+    // ===========================
+
+    /**
+     * "gpt-4.1-mini:0.8:20,gpt-4.1:5:45" = name:USD per 1M tokens:expected seconds.
+     */
+    public static List<Model> parseModels(String spec) {
+        List<Model> models = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Expected name:usdPerMillionTokens:seconds, got: " + entry.trim());
+            }
+            try {
+                models.add(new Model(parts[0].trim(), Double.parseDouble(parts[1].trim()), Double.parseDouble(parts[2].trim())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad price or latency in LLM model: " + entry.trim(), e);
+            }
+        }
+        return models;
+    }
+
+    /**
+     * "spec=90s/0.50,backend=240s,repair=/0.20" = stage=seconds/USD per call, either part optional.
+     */
+    public static Map<PromptStage, Budget> parseBudgets(String spec) {
+        Map<PromptStage, Budget> budgets = new EnumMap<>(PromptStage.class);
+        for (String entry : spec.split(",")) {
+            if (entry.isBlank()) continue;
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected stage=seconds/usd, got: " + entry.trim());
+            }
+            PromptStage stage;
+            try {
+                stage = PromptStage.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown pipeline stage: " + parts[0].trim(), e);
+            }
+            String[] limits = parts[1].trim().split("/", -1);
+            try {
+                double seconds = limits[0].isBlank() ? 0 : Double.parseDouble(limits[0].trim().replaceAll("s$", ""));
+                double usd = limits.length < 2 || limits[1].isBlank() ? 0 : Double.parseDouble(limits[1].trim().replace("$", ""));
+                budgets.put(stage, new Budget(seconds, usd));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad budget for stage " + stage.id() + ": " + parts[1].trim(), e);
+            }
+        }
+        return budgets;
+    }
+}
@@ -4,10 +4,14 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Real OpenAI-backed implementation of LLMClient.
@@ -18,45 +22,88 @@ public class OpenAiLLMClient implements LLMClient {
 
     private final String apiKey;
     private final String model;
+    private final URI completionsUri;
     private final HttpClient httpClient;
     private final ObjectMapper mapper = new ObjectMapper();
 
-    // You can change this to the exact endpoint you want to hit.
-    // Example placeholder:
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
+    // Long completions take minutes; beyond this the request counts as timed out
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
+    // Any OpenAI-compatible server works (Azure/OpenRouter/vLLM/a local stand-in)
+    public static final String DEFAULT_BASE_URL = "https://api.openai.com/v1";
 
     public OpenAiLLMClient(String apiKey, String model) {
+        this(apiKey, model, DEFAULT_BASE_URL);
+    }
+
+    /**
+     * @param baseUrl e.g. https://api.openai.com/v1; requests go to baseUrl + "/chat/completions"
+     */
+    public OpenAiLLMClient(String apiKey, String model, String baseUrl) {
         this.apiKey = apiKey;
         this.model = model;
+        this.completionsUri = URI.create(baseUrl.replaceAll("/+$", "") + "/chat/completions");
         this.httpClient = HttpClient.newHttpClient();
     }
 
     @Override
     public String complete(String prompt) {
         try {
-            String requestBody = buildRequestBody(prompt);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(OPENAI_URL))
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
             HttpResponse<String> response = httpClient.send(
-                    request,
+                    buildRequest(prompt),
                     HttpResponse.BodyHandlers.ofString()
             );
+            return contentOf(response);
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("OpenAI API call failed", e);
+        }
+    }
 
-            if (response.statusCode() / 100 != 2) {
-                throw new RuntimeException("OpenAI API error: " + response.statusCode()
-                        + " body=" + response.body());
+    /**
+     * Non-blocking variant; cancelling the returned future aborts the HTTP exchange.
+     */
+    public CompletableFuture<String> completeAsync(String prompt) {
+        HttpRequest request;
+        try {
+            request = buildRequest(prompt);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("OpenAI API call failed", e));
+        }
+        CompletableFuture<HttpResponse<String>> send =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<String> result = send.thenApply(response -> {
+            try {
+                return contentOf(response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        });
+        result.whenComplete((content, error) -> {
+            if (error instanceof CancellationException) send.cancel(true);
+        });
+        return result;
+    }
 
-            return extractContent(response.body());
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException("OpenAI API call failed", e);
+    public URI getCompletionsUri() {
+        return completionsUri;
+    }
+
+    private HttpRequest buildRequest(String prompt) throws IOException {
+        return HttpRequest.newBuilder()
+                .uri(completionsUri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(buildRequestBody(prompt)))
+                .build();
+    }
+
+    private String contentOf(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new LLMApiException(response.statusCode(), "OpenAI API error: " + response.statusCode()
+                    + " body=" + response.body());
         }
+        return extractContent(response.body());
     }
 
     private String buildRequestBody(String prompt) throws IOException {
@@ -68,8 +115,9 @@ public class OpenAiLLMClient implements LLMClient {
         //   ]
         // }
 
-        // Construct JSON manually or via Jackson; here we just build a String:
-        String escapedPrompt = prompt
+        // Construct JSON manually or via Jackson; here we just build a String.
+        // The stage tag is for routing only and is not sent.
+        String escapedPrompt = PromptStage.strip(prompt)
                 .replace("\\", "\\\\")
                 .replace("\"", "\\\"")
                 .replace("\n", "\\n");
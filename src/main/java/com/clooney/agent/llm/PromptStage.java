@@ -0,0 +1,110 @@
+package com.clooney.agent.llm;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pipeline stage a prompt belongs to. Prompts carry it as a first-line tag
+ * (see {@link #tag()}) so LLM decorators can route on it without an API change;
+ * {@link OpenAiLLMClient} strips the tag before sending.
+ *
+ * {@link #accepts} is a cheap structural check of a completion for the stage,
+ * used by {@link ModelRouter} to decide whether to escalate to a larger model.
+ */
+public enum PromptStage {
+
+    SPEC, SPEC_DELTA, SPEC_POLISH, BACKEND, REPAIR, TESTS;
+
+    private static final String PREFIX = "<!-- clooney-stage: ";
+    private static final String SUFFIX = " -->\n";
+
+    public String id() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public String tag() {
+        return PREFIX + id() + SUFFIX;
+    }
+
+    /**
+     * @return null for untagged prompts
+     */
+    public static PromptStage of(String prompt) {
+        if (!prompt.startsWith(PREFIX)) return null;
+        int end = prompt.indexOf(SUFFIX);
+        if (end < 0) return null;
+        try {
+            return valueOf(prompt.substring(PREFIX.length(), end).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static String strip(String prompt) {
+        if (of(prompt) == null) return prompt;
+        return prompt.substring(prompt.indexOf(SUFFIX) + SUFFIX.length());
+    }
+
+    /**
+     * Whether the completion is usable at all: the expected markers are there, the
+     * YAML parses, and no returned Java file was cut off mid-way.
+     */
+    public boolean accepts(String completion) {
+        if (completion == null || completion.isBlank()) return false;
+        return switch (this) {
+            case SPEC, SPEC_DELTA -> acceptsSpec(completion);
+            case SPEC_POLISH -> completion.contains("===SUMMARIES===") && completion.contains("===DESCRIPTIONS===");
+            case BACKEND, REPAIR, TESTS -> acceptsFiles(completion);
+        };
+    }
+
+    private static boolean acceptsSpec(String completion) {
+        int openapi = completion.indexOf("===OPENAPI===");
+        int schema = completion.indexOf("===SCHEMA_SQL===");
+        if (openapi < 0 || schema < openapi) return false;
+        try {
+            return new Yaml().load(completion.substring(openapi + "===OPENAPI===".length(), schema)) instanceof Map;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean acceptsFiles(String completion) {
+        Map<String, String> files = CompletionFiles.parse(completion);
+        if (files.isEmpty()) return false;
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            if (file.getKey().endsWith(".java") && !balanced(file.getValue())) return false;
+        }
+        return true;
+    }
+
+    // Brace balance outside string/char literals and comments: catches truncated output
+    private static boolean balanced(String java) {
+        int depth = 0;
+        for (int i = 0; i < java.length(); i++) {
+            char c = java.charAt(i);
+            if (c == '/' && i + 1 < java.length() && java.charAt(i + 1) == '/') {
+                i = Math.max(i, java.indexOf('\n', i) < 0 ? java.length() : java.indexOf('\n', i));
+            } else if (c == '/' && i + 1 < java.length() && java.charAt(i + 1) == '*') {
+                int end = java.indexOf("*/", i + 2);
+                i = end < 0 ? java.length() : end + 1;
+            } else if (c == '"' || c == '\'') {
+                if (c == '"' && java.startsWith("\"\"\"", i)) {
+                    int end = java.indexOf("\"\"\"", i + 3);
+                    i = end < 0 ? java.length() : end + 2;
+                    continue;
+                }
+                for (i++; i < java.length() && java.charAt(i) != c; i++) {
+                    if (java.charAt(i) == '\\') i++;
+                }
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth < 0) {
+                return false;
+            }
+        }
+        return depth == 0;
+    }
+}
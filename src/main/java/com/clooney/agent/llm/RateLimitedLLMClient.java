@@ -0,0 +1,56 @@
+package com.clooney.agent.llm;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * LLMClient decorator that bounds how hard a shared client hits the provider:
+ * at most {@code maxConcurrent} requests in flight, and request starts spaced to
+ * stay under {@code requestsPerMinute} (0 = no rate cap).
+ */
+public class RateLimitedLLMClient implements LLMClient {
+
+    private final LLMClient delegate;
+    private final Semaphore permits;
+    private final long intervalNanos;
+    private long nextStartNanos = System.nanoTime();
+
+    public RateLimitedLLMClient(LLMClient delegate, int maxConcurrent, int requestsPerMinute) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.intervalNanos = requestsPerMinute > 0 ? 60_000_000_000L / requestsPerMinute : 0;
+    }
+
+    @Override
+    public String complete(String prompt) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an LLM request slot", e);
+        }
+        try {
+            awaitRateSlot();
+            return delegate.complete(prompt);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void awaitRateSlot() {
+        if (intervalNanos == 0) return;
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextStartNanos);
+            nextStartNanos = start + intervalNanos;
+            waitNanos = start - now;
+        }
+        if (waitNanos <= 0) return;
+        try {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the LLM rate limit", e);
+        }
+    }
+}
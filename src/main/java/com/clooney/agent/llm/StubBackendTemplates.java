@@ -0,0 +1,1585 @@
+package com.clooney.agent.llm;
+
+import com.clooney.agent.spec.OpenApiOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic Spring Boot project returned by {@link StubLLMClient}
+ * for backend prompts.
+ *
+ * The base project is a plain MVC + JPA + H2 app with /projects and /tasks,
+ * or the WebFlux + R2DBC equivalent when the prompt asks for the reactive stack.
+ * Optional features requested in the prompt (see Prompts.buildBackendPrompt)
+ * add dependencies, configuration and files on top of it.
+ */
+final class StubBackendTemplates {
+
+    private static final String PKG_PATH = "src/main/java/com/clooney/generated/";
+
+    private StubBackendTemplates() {
+    }
+
+    /**
+     * Optional features, detected from the fixed phrases Prompts puts in the backend prompt.
+     */
+    private record Features(boolean cache, boolean bulk, boolean seedFromSql, boolean events,
+                            boolean fastStartup, boolean reactive, boolean metrics) {
+
+        static Features of(String prompt) {
+            return new Features(
+                    prompt.contains("Add a read-through cache"),
+                    prompt.contains("Add bulk write endpoints"),
+                    prompt.contains("Seed data is provided in data.sql"),
+                    prompt.contains("Add an incremental change feed"),
+                    prompt.contains("Optimize for fast startup"),
+                    prompt.contains("Use a reactive stack end to end"),
+                    prompt.contains("Instrument the backend with metrics"));
+        }
+    }
+
+    static String backendCompletion(String prompt) {
+        Features f = Features.of(prompt);
+        if (f.reactive()) {
+            return reactiveCompletion(f, prompt);
+        }
+
+        List<String> dependencies = new ArrayList<>();
+        if (f.cache()) {
+            dependencies.add(dependency("org.springframework.boot", "spring-boot-starter-cache", null));
+            dependencies.add(dependency("com.github.ben-manes.caffeine", "caffeine", null));
+        }
+        if (f.metrics()) {
+            dependencies.addAll(metricsDependencies());
+            dependencies.add(dependency("org.hibernate.orm", "hibernate-micrometer", null));
+        }
+
+        StringBuilder out = new StringBuilder();
+        file(out, "pom.xml", pom(SERVLET_DEPENDENCIES, dependencies, f.fastStartup() ? fastStartupBuild() : defaultBuild()));
+        file(out, PKG_PATH + "Application.java", application());
+        file(out, PKG_PATH + "entity/ProjectEntity.java", entity("ProjectEntity", "projects", f.events()));
+        file(out, PKG_PATH + "entity/TaskEntity.java", entity("TaskEntity", "tasks", f.events()));
+        file(out, PKG_PATH + "repository/ProjectRepository.java",
+                repository("ProjectRepository", "ProjectEntity", f.cache() ? "projects" : null));
+        file(out, PKG_PATH + "repository/TaskRepository.java",
+                repository("TaskRepository", "TaskEntity", f.cache() ? "tasks" : null));
+        file(out, PKG_PATH + "controller/AsanaCloneController.java", controller(!f.seedFromSql()));
+
+        if (f.cache()) {
+            file(out, PKG_PATH + "config/CacheConfig.java", cacheConfig());
+            file(out, PKG_PATH + "config/HttpCachingConfig.java", httpCachingConfig());
+        }
+        if (f.bulk()) {
+            file(out, PKG_PATH + "service/BulkWriteService.java", bulkWriteService());
+            file(out, PKG_PATH + "controller/BulkWriteController.java", bulkWriteController());
+        }
+        if (f.fastStartup()) {
+            file(out, "run-fast.sh", runFastScript());
+        }
+        if (f.metrics()) {
+            file(out, PKG_PATH + "config/OperationMetricsFilter.java", operationMetricsFilter(prompt));
+        }
+        if (f.events()) {
+            file(out, PKG_PATH + "entity/ChangeEventEntity.java", changeEventEntity());
+            file(out, PKG_PATH + "entity/ChangeEventListener.java", changeEventListener());
+            file(out, PKG_PATH + "repository/ChangeEventRepository.java", changeEventRepository());
+            file(out, PKG_PATH + "controller/EventsController.java", eventsController());
+        }
+
+        out.append("===FILE:src/main/resources/application.yml===\n")
+                .append(applicationYml(f, prompt).strip())
+                .append("\n===END===\n");
+        return out.toString();
+    }
+
+    // ----------------------------------------------------------------------
+    // Helpers
+    // ----------------------------------------------------------------------
+
+    private static void file(StringBuilder out, String path, String content) {
+        out.append("===FILE:").append(path).append("===\n")
+                .append(content.strip())
+                .append("\n\n");
+    }
+
+    private static String dependency(String groupId, String artifactId, String scope) {
+        String scopeXml = scope == null ? "" : "\n            <scope>" + scope + "</scope>";
+        return """
+                        <dependency>
+                            <groupId>%s</groupId>
+                            <artifactId>%s</artifactId>%s
+                        </dependency>
+                """.formatted(groupId, artifactId, scopeXml);
+    }
+
+    // Reads "key=value" settings the prompt passes through to the generated config
+    static String promptValue(String prompt, String key, String defaultValue) {
+        Matcher m = Pattern.compile(Pattern.quote(key) + "=([\\w.\\-]+)").matcher(prompt);
+        return m.find() ? m.group(1).replaceAll("\\.+$", "") : defaultValue;
+    }
+
+    // ----------------------------------------------------------------------
+    // Base project
+    // ----------------------------------------------------------------------
+
+    private static final String SERVLET_DEPENDENCIES = """
+        <dependency>
+            <groupId>org.springframework.boot</groupId>
+            <artifactId>spring-boot-starter-web</artifactId>
+        </dependency>
+
+        <dependency>
+            <groupId>org.springframework.boot</groupId>
+            <artifactId>spring-boot-starter-data-jpa</artifactId>
+        </dependency>
+
+        <dependency>
+            <groupId>com.h2database</groupId>
+            <artifactId>h2</artifactId>
+            <scope>runtime</scope>
+        </dependency>
+""";
+
+    private static String pom(String baseDependencies, List<String> extraDependencies, String build) {
+        return """
+<project xmlns="http://maven.apache.org/POM/4.0.0"
+         xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+         xsi:schemaLocation="http://maven.apache.org/POM/4.0.0 https://maven.apache.org/xsd/maven-4.0.0.xsd">
+    <modelVersion>4.0.0</modelVersion>
+
+    <parent>
+        <groupId>org.springframework.boot</groupId>
+        <artifactId>spring-boot-starter-parent</artifactId>
+        <version>3.3.0</version>
+        <relativePath/>
+    </parent>
+
+    <groupId>com.clooney.generated</groupId>
+    <artifactId>asana-clone-backend</artifactId>
+    <version>0.0.1-SNAPSHOT</version>
+    <name>Asana Clone Backend (Generated)</name>
+    <description>Generated Spring Boot backend for Asana-style API</description>
+
+    <properties>
+        <java.version>17</java.version>
+    </properties>
+
+    <dependencies>
+""" + baseDependencies + String.join("", extraDependencies) + """
+
+        <dependency>
+            <groupId>org.springframework.boot</groupId>
+            <artifactId>spring-boot-starter-test</artifactId>
+            <scope>test</scope>
+        </dependency>
+    </dependencies>
+
+""" + build + """
+</project>
+""";
+    }
+
+    private static String defaultBuild() {
+        return """
+    <build>
+        <plugins>
+            <plugin>
+                <groupId>org.springframework.boot</groupId>
+                <artifactId>spring-boot-maven-plugin</artifactId>
+            </plugin>
+        </plugins>
+    </build>
+""";
+    }
+
+    private static String application() {
+        return """
+package com.clooney.generated;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class Application {
+
+    public static void main(String[] args) {
+        SpringApplication.run(Application.class, args);
+    }
+}
+""";
+    }
+
+    private static String entity(String className, String table, boolean changeFeed) {
+        String listenerImport = changeFeed ? "import jakarta.persistence.EntityListeners;\n" : "";
+        String listener = changeFeed ? "@EntityListeners(ChangeEventListener.class)\n" : "";
+
+        return """
+package com.clooney.generated.entity;
+
+import jakarta.persistence.Entity;
+%3$simport jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+%4$s@Table(name = "%2$s")
+public class %1$s {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String gid;
+
+    private String name;
+
+    public %1$s() {
+    }
+
+    public %1$s(String name) {
+        this.name = name;
+    }
+
+    public String getGid() {
+        return gid;
+    }
+
+    public void setGid(String gid) {
+        this.gid = gid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
+""".formatted(className, table, listenerImport, listener);
+    }
+
+    private static String repository(String className, String entityName, String cacheName) {
+        if (cacheName == null) {
+            return """
+package com.clooney.generated.repository;
+
+import com.clooney.generated.entity.%2$s;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface %1$s extends JpaRepository<%2$s, String> {
+}
+""".formatted(className, entityName);
+        }
+
+        return """
+package com.clooney.generated.repository;
+
+import com.clooney.generated.entity.%2$s;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface %1$s extends JpaRepository<%2$s, String> {
+
+    @Override
+    @Cacheable("%3$s")
+    List<%2$s> findAll();
+
+    @Override
+    @CacheEvict(value = "%3$s", allEntries = true)
+    <S extends %2$s> S save(S entity);
+
+    @Override
+    @CacheEvict(value = "%3$s", allEntries = true)
+    <S extends %2$s> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict(value = "%3$s", allEntries = true)
+    void deleteById(String gid);
+
+    @Override
+    @CacheEvict(value = "%3$s", allEntries = true)
+    void delete(%2$s entity);
+
+    @Override
+    @CacheEvict(value = "%3$s", allEntries = true)
+    void deleteAll();
+}
+""".formatted(className, entityName, cacheName);
+    }
+
+    private static String controller(boolean seedInCode) {
+        String seeding = !seedInCode ? "" : """
+
+        if (projectRepository.count() == 0) {
+            projectRepository.saveAll(List.of(
+                    new ProjectEntity("Website Revamp"),
+                    new ProjectEntity("Personal To-Dos")));
+        }
+
+        if (taskRepository.count() == 0) {
+            taskRepository.saveAll(List.of(
+                    new TaskEntity("Fix login bug"),
+                    new TaskEntity("Record math video")));
+        }
+""".stripTrailing();
+
+        return """
+package com.clooney.generated.controller;
+
+import com.clooney.generated.entity.ProjectEntity;
+import com.clooney.generated.entity.TaskEntity;
+import com.clooney.generated.repository.ProjectRepository;
+import com.clooney.generated.repository.TaskRepository;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class AsanaCloneController {
+
+    private final ProjectRepository projectRepository;
+    private final TaskRepository taskRepository;
+
+    public AsanaCloneController(ProjectRepository projectRepository,
+                                TaskRepository taskRepository) {
+        this.projectRepository = projectRepository;
+        this.taskRepository = taskRepository;%s
+    }
+
+    @GetMapping("/projects")
+    public Map<String, Object> listProjects() {
+        List<ProjectEntity> projects = projectRepository.findAll();
+        return Map.of("data", projects);
+    }
+
+    @GetMapping("/tasks")
+    public Map<String, Object> listTasks() {
+        List<TaskEntity> tasks = taskRepository.findAll();
+        return Map.of("data", tasks);
+    }
+}
+""".formatted(seeding);
+    }
+
+    private static String applicationYml(Features f, String prompt) {
+        // Per-statement SQL logging would dominate bulk loads, so batching turns it off
+        String hibernateProperties = f.bulk()
+                ? "\n        format_sql: true"
+                + "\n        jdbc:"
+                + "\n          batch_size: " + promptValue(prompt, "hibernate.jdbc.batch_size", "500")
+                + "\n          batch_versioned_data: true"
+                + "\n        order_inserts: true"
+                + "\n        order_updates: true"
+                : "\n        format_sql: true";
+        if (f.metrics()) {
+            hibernateProperties += "\n        generate_statistics: true";
+        }
+        String hikari = f.metrics() ? "\n    hikari:\n      pool-name: asana" : "";
+        String sqlLogging = f.bulk()
+                ? "\n    org.hibernate.SQL: INFO"
+                : "\n    org.hibernate.SQL: DEBUG"
+                + "\n    org.hibernate.type.descriptor.sql.BasicBinder: TRACE";
+
+        // Beans are created on first use; JMX and open-in-view only cost startup time here
+        String mainSettings = f.fastStartup()
+                ? "\n  main:\n    lazy-initialization: true\n  jmx:\n    enabled: false"
+                : "";
+        String openInView = f.fastStartup() ? "\n    open-in-view: false" : "";
+
+        // data.sql has to run after Hibernate created the tables
+        String deferInit = f.seedFromSql() ? "\n    defer-datasource-initialization: true" : "";
+        String sqlInit = f.seedFromSql() ? "\n  sql:\n    init:\n      mode: always" : "";
+
+        String yml = """
+spring:%s
+  datasource:
+    url: jdbc:h2:mem:asana;DB_CLOSE_ON_EXIT=FALSE;DB_CLOSE_DELAY=-1
+    driverClassName: org.h2.Driver
+    username: sa
+    password:%s
+  jpa:
+    hibernate:
+      ddl-auto: update
+    show-sql: %s%s%s
+    properties:
+      hibernate:%s%s
+  h2:
+    console:
+      enabled: true
+
+server:
+  port: 8080
+
+logging:
+  level:%s
+""".formatted(mainSettings, hikari, !f.bulk(), openInView, deferInit, hibernateProperties, sqlInit, sqlLogging);
+
+        if (f.cache()) {
+            yml += """
+
+clooney:
+  cache:
+    ttl-seconds: %s
+    maximum-size: %s
+""".formatted(
+                    promptValue(prompt, "clooney.cache.ttl-seconds", "60"),
+                    promptValue(prompt, "clooney.cache.maximum-size", "10000"));
+        }
+        if (f.metrics()) {
+            yml += managementYml(prompt);
+        }
+        return yml;
+    }
+
+    // ----------------------------------------------------------------------
+    // Optional: read-through cache + HTTP caching headers
+    // ----------------------------------------------------------------------
+
+    private static String cacheConfig() {
+        return """
+package com.clooney.generated.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final List<String> CACHE_NAMES = List.of("projects", "tasks");
+
+    @Bean
+    public CacheManager cacheManager(Environment env) {
+        long defaultTtl = env.getProperty("clooney.cache.ttl-seconds", Long.class, 60L);
+        long defaultMaxSize = env.getProperty("clooney.cache.maximum-size", Long.class, 10_000L);
+
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        for (String name : CACHE_NAMES) {
+            long ttl = env.getProperty("clooney.cache." + name + ".ttl-seconds", Long.class, defaultTtl);
+            long maxSize = env.getProperty("clooney.cache." + name + ".maximum-size", Long.class, defaultMaxSize);
+            manager.registerCustomCache(name, Caffeine.newBuilder()
+                    .expireAfterWrite(Duration.ofSeconds(ttl))
+                    .maximumSize(maxSize)
+                    .recordStats()
+                    .build());
+        }
+        return manager;
+    }
+}
+""";
+    }
+
+    private static String httpCachingConfig() {
+        return """
+package com.clooney.generated.config;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class HttpCachingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> etagFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+        filter.setWriteWeakETag(true);
+
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<Filter> cacheControlFilter() {
+        Filter filter = (request, response, chain) -> {
+            if ("GET".equals(((HttpServletRequest) request).getMethod())) {
+                ((HttpServletResponse) response).setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            }
+            chain.doFilter(request, response);
+        };
+
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
+""";
+    }
+
+    // ----------------------------------------------------------------------
+    // Optional: batch create/update + NDJSON bulk load
+    // ----------------------------------------------------------------------
+
+    private static String bulkWriteService() {
+        return """
+package com.clooney.generated.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class BulkWriteService {
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public BulkWriteService(EntityManager entityManager,
+                            ObjectMapper objectMapper,
+                            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    @Transactional
+    public <T> List<T> saveAll(JpaRepository<T, String> repository, List<T> entities) {
+        List<T> saved = new ArrayList<>(entities.size());
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, entities.size());
+            saved.addAll(repository.saveAll(entities.subList(from, to)));
+            entityManager.flush();
+        }
+        return saved;
+    }
+
+    /**
+     * Streams newline-delimited JSON into the table one JDBC batch at a time,
+     * clearing the persistence context between batches so memory stays flat.
+     * A malformed line is a 400 and rolls back the whole load.
+     */
+    @Transactional
+    public <T> long load(InputStream ndjson, Class<T> type, JpaRepository<T, String> repository) throws IOException {
+        long count = 0;
+        List<T> chunk = new ArrayList<>(batchSize);
+        try (MappingIterator<T> it = objectMapper.readerFor(type).readValues(ndjson)) {
+            while (it.hasNextValue()) {
+                chunk.add(it.nextValue());
+                if (chunk.size() == batchSize) {
+                    count += flushChunk(repository, chunk);
+                }
+            }
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "malformed NDJSON after " + (count + chunk.size()) + " rows: " + e.getMessage(), e);
+        }
+        if (!chunk.isEmpty()) {
+            count += flushChunk(repository, chunk);
+        }
+        return count;
+    }
+
+    private <T> int flushChunk(JpaRepository<T, String> repository, List<T> chunk) {
+        int size = chunk.size();
+        repository.saveAll(chunk);
+        entityManager.flush();
+        entityManager.clear();
+        chunk.clear();
+        return size;
+    }
+}
+""";
+    }
+
+    private static String bulkWriteController() {
+        return """
+package com.clooney.generated.controller;
+
+import com.clooney.generated.entity.ProjectEntity;
+import com.clooney.generated.entity.TaskEntity;
+import com.clooney.generated.repository.ProjectRepository;
+import com.clooney.generated.repository.TaskRepository;
+import com.clooney.generated.service.BulkWriteService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+@RestController
+public class BulkWriteController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ProjectRepository projectRepository;
+    private final TaskRepository taskRepository;
+    private final BulkWriteService bulkWriteService;
+
+    public BulkWriteController(ProjectRepository projectRepository,
+                               TaskRepository taskRepository,
+                               BulkWriteService bulkWriteService) {
+        this.projectRepository = projectRepository;
+        this.taskRepository = taskRepository;
+        this.bulkWriteService = bulkWriteService;
+    }
+
+    public record Batch<T>(List<T> data) {
+    }
+
+    @PostMapping("/projects/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Map<String, Object> createProjects(@RequestBody Batch<ProjectEntity> batch) {
+        batch.data().forEach(p -> p.setGid(null));
+        return Map.of("data", bulkWriteService.saveAll(projectRepository, batch.data()));
+    }
+
+    @PutMapping("/projects/batch")
+    public Map<String, Object> updateProjects(@RequestBody Batch<ProjectEntity> batch) {
+        requireExisting(projectRepository, batch.data().stream().map(ProjectEntity::getGid).toList(), ProjectEntity::getGid);
+        return Map.of("data", bulkWriteService.saveAll(projectRepository, batch.data()));
+    }
+
+    @PostMapping(value = "/projects/bulk", consumes = NDJSON)
+    public Map<String, Object> loadProjects(HttpServletRequest request) throws IOException {
+        long inserted = bulkWriteService.load(request.getInputStream(), ProjectEntity.class, projectRepository);
+        return Map.of("data", Map.of("inserted", inserted));
+    }
+
+    @PostMapping("/tasks/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Map<String, Object> createTasks(@RequestBody Batch<TaskEntity> batch) {
+        batch.data().forEach(t -> t.setGid(null));
+        return Map.of("data", bulkWriteService.saveAll(taskRepository, batch.data()));
+    }
+
+    @PutMapping("/tasks/batch")
+    public Map<String, Object> updateTasks(@RequestBody Batch<TaskEntity> batch) {
+        requireExisting(taskRepository, batch.data().stream().map(TaskEntity::getGid).toList(), TaskEntity::getGid);
+        return Map.of("data", bulkWriteService.saveAll(taskRepository, batch.data()));
+    }
+
+    @PostMapping(value = "/tasks/bulk", consumes = NDJSON)
+    public Map<String, Object> loadTasks(HttpServletRequest request) throws IOException {
+        long inserted = bulkWriteService.load(request.getInputStream(), TaskEntity.class, taskRepository);
+        return Map.of("data", Map.of("inserted", inserted));
+    }
+
+    // A batch update only touches existing rows: an unknown gid fails the whole batch
+    // instead of being merged in as a new row
+    private static <T> void requireExisting(JpaRepository<T, String> repository, List<String> gids,
+                                            Function<T, String> gidOf) {
+        if (gids.stream().anyMatch(gid -> gid == null || gid.isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "every item in a batch update needs a gid");
+        }
+        Set<String> missing = new TreeSet<>(gids);
+        for (T existing : repository.findAllById(new TreeSet<>(gids))) {
+            missing.remove(gidOf.apply(existing));
+        }
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "no rows with gid " + missing);
+        }
+    }
+}
+""";
+    }
+
+    // ----------------------------------------------------------------------
+    // Optional: /events change feed with sync tokens
+    // ----------------------------------------------------------------------
+
+    private static String changeEventEntity() {
+        return """
+package com.clooney.generated.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "change_events", indexes = {
+        @Index(name = "idx_change_events_resource", columnList = "resource_type, id"),
+        @Index(name = "idx_change_events_gid", columnList = "resource_gid, id")
+})
+public class ChangeEventEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "resource_type", nullable = false)
+    private String resourceType;
+
+    @Column(name = "resource_gid", nullable = false)
+    private String resourceGid;
+
+    @Column(nullable = false)
+    private String action;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public ChangeEventEntity() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public String getResourceGid() {
+        return resourceGid;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
+""";
+    }
+
+    private static String changeEventListener() {
+        return """
+package com.clooney.generated.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.Table;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Appends one change_events row per insert/update/delete, inside the writing transaction.
+ * Uses plain JDBC so logging a change never re-enters the JPA flush.
+ * The JdbcTemplate is looked up on first use: Hibernate builds this listener while the
+ * entityManagerFactory is created, and with deferred datasource initialization (seed data)
+ * a direct dependency would form a bean cycle.
+ */
+@Component
+public class ChangeEventListener {
+
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+
+    public ChangeEventListener(ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostPersist
+    public void created(Object entity) {
+        record(entity, "added");
+    }
+
+    @PostUpdate
+    public void changed(Object entity) {
+        record(entity, "changed");
+    }
+
+    @PostRemove
+    public void deleted(Object entity) {
+        record(entity, "deleted");
+    }
+
+    private void record(Object entity, String action) {
+        Table table = entity.getClass().getAnnotation(Table.class);
+        String resourceType = table != null ? table.name() : entity.getClass().getSimpleName();
+        Object gid = PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue("gid");
+
+        jdbcTemplate.getObject().update(
+                "INSERT INTO change_events (resource_type, resource_gid, action, created_at) VALUES (?, ?, ?, ?)",
+                resourceType, String.valueOf(gid), action, Timestamp.from(Instant.now()));
+    }
+}
+""";
+    }
+
+    private static String changeEventRepository() {
+        return """
+package com.clooney.generated.repository;
+
+import com.clooney.generated.entity.ChangeEventEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ChangeEventRepository extends JpaRepository<ChangeEventEntity, Long> {
+
+    @Query("select coalesce(max(e.id), 0) from ChangeEventEntity e")
+    long findLatestId();
+
+    @Query(\"""
+            select e from ChangeEventEntity e
+            where e.id > :after
+              and (:resource is null or e.resourceType = :resource or e.resourceGid = :resource)
+            order by e.id
+            \""")
+    List<ChangeEventEntity> findSince(@Param("after") long after,
+                                      @Param("resource") String resource,
+                                      Pageable page);
+}
+""";
+    }
+
+    private static String eventsController() {
+        return """
+package com.clooney.generated.controller;
+
+import com.clooney.generated.entity.ChangeEventEntity;
+import com.clooney.generated.repository.ChangeEventRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asana-style incremental sync: a request without a (valid) sync token gets 412
+ * and a fresh token; later requests return only the events recorded after it.
+ */
+@RestController
+public class EventsController {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final ChangeEventRepository changeEventRepository;
+
+    public EventsController(ChangeEventRepository changeEventRepository) {
+        this.changeEventRepository = changeEventRepository;
+    }
+
+    @GetMapping("/events")
+    public ResponseEntity<Map<String, Object>> events(@RequestParam(required = false) String resource,
+                                                      @RequestParam(required = false) String sync) {
+        Long after = parseToken(sync);
+        if (after == null) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("errors", List.of(Map.of("message", "Sync token invalid or too old")));
+            body.put("sync", token(changeEventRepository.findLatestId()));
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(body);
+        }
+
+        List<ChangeEventEntity> page = changeEventRepository.findSince(after, resource, PageRequest.ofSize(PAGE_SIZE + 1));
+        boolean hasMore = page.size() > PAGE_SIZE;
+        if (hasMore) {
+            page = page.subList(0, PAGE_SIZE);
+        }
+        long next = page.isEmpty() ? after : page.get(page.size() - 1).getId();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("data", page.stream().map(EventsController::toJson).toList());
+        body.put("sync", token(next));
+        body.put("has_more", hasMore);
+        return ResponseEntity.ok(body);
+    }
+
+    private static Map<String, Object> toJson(ChangeEventEntity e) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("action", e.getAction());
+        json.put("resource", Map.of("gid", e.getResourceGid(), "resource_type", e.getResourceType()));
+        json.put("created_at", e.getCreatedAt().toString());
+        return json;
+    }
+
+    private static String token(long eventId) {
+        return Long.toString(eventId, 36);
+    }
+
+    private static Long parseToken(String sync) {
+        if (sync == null || sync.isBlank()) return null;
+        try {
+            return Long.parseLong(sync, 36);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
+""";
+    }
+
+    // ----------------------------------------------------------------------
+    // Optional: fast startup (Spring AOT + CDS archive)
+    // ----------------------------------------------------------------------
+
+    private static String fastStartupBuild() {
+        return """
+    <build>
+        <plugins>
+            <plugin>
+                <groupId>org.springframework.boot</groupId>
+                <artifactId>spring-boot-maven-plugin</artifactId>
+                <executions>
+                    <execution>
+                        <id>process-aot</id>
+                        <goals>
+                            <goal>process-aot</goal>
+                        </goals>
+                    </execution>
+                </executions>
+            </plugin>
+
+            <!-- Extract the fat jar and record a CDS archive from one training start.
+                 Skip with -Dexec.skip=true. -->
+            <plugin>
+                <groupId>org.codehaus.mojo</groupId>
+                <artifactId>exec-maven-plugin</artifactId>
+                <executions>
+                    <execution>
+                        <id>cds-extract</id>
+                        <phase>package</phase>
+                        <goals>
+                            <goal>exec</goal>
+                        </goals>
+                        <configuration>
+                            <executable>java</executable>
+                            <arguments>
+                                <argument>-Djarmode=tools</argument>
+                                <argument>-jar</argument>
+                                <argument>${project.build.directory}/${project.build.finalName}.jar</argument>
+                                <argument>extract</argument>
+                                <argument>--force</argument>
+                                <argument>--destination</argument>
+                                <argument>${project.build.directory}/app</argument>
+                            </arguments>
+                        </configuration>
+                    </execution>
+                    <execution>
+                        <id>cds-train</id>
+                        <phase>package</phase>
+                        <goals>
+                            <goal>exec</goal>
+                        </goals>
+                        <configuration>
+                            <executable>java</executable>
+                            <arguments>
+                                <argument>-XX:ArchiveClassesAtExit=${project.build.directory}/app/app.jsa</argument>
+                                <argument>-Dspring.context.exit=onRefresh</argument>
+                                <argument>-Dspring.aot.enabled=true</argument>
+                                <argument>-jar</argument>
+                                <argument>${project.build.directory}/app/${project.build.finalName}.jar</argument>
+                            </arguments>
+                        </configuration>
+                    </execution>
+                </executions>
+            </plugin>
+        </plugins>
+    </build>
+""";
+    }
+
+    private static String runFastScript() {
+        return """
+#!/bin/sh
+# Starts the AOT-processed app with the CDS archive recorded by `mvn package`.
+# Usage: sh run-fast.sh [--server.port=...]
+# Optional GraalVM native image: mvn -Pnative native:compile && ./target/asana-clone-backend
+set -e
+cd "$(dirname "$0")"
+exec java -XX:SharedArchiveFile=target/app/app.jsa -Xshare:auto \\
+  -Dspring.aot.enabled=true \\
+  -jar target/app/asana-clone-backend-0.0.1-SNAPSHOT.jar "$@"
+""";
+    }
+
+    // ----------------------------------------------------------------------
+    // Reactive stack: WebFlux functional endpoints + R2DBC
+    // ----------------------------------------------------------------------
+
+    private static final String REACTIVE_DEPENDENCIES = """
+        <dependency>
+            <groupId>org.springframework.boot</groupId>
+            <artifactId>spring-boot-starter-webflux</artifactId>
+        </dependency>
+
+        <dependency>
+            <groupId>org.springframework.boot</groupId>
+            <artifactId>spring-boot-starter-data-r2dbc</artifactId>
+        </dependency>
+
+        <dependency>
+            <groupId>io.r2dbc</groupId>
+            <artifactId>r2dbc-h2</artifactId>
+            <scope>runtime</scope>
+        </dependency>
+""";
+
+    private static String reactiveCompletion(Features f, String prompt) {
+        StringBuilder out = new StringBuilder();
+        List<String> dependencies = f.metrics() ? metricsDependencies() : List.of();
+        file(out, "pom.xml", pom(REACTIVE_DEPENDENCIES, dependencies, f.fastStartup() ? fastStartupBuild() : defaultBuild()));
+        file(out, PKG_PATH + "Application.java", application());
+        file(out, PKG_PATH + "entity/ProjectEntity.java", reactiveEntity("ProjectEntity", "projects"));
+        file(out, PKG_PATH + "entity/TaskEntity.java", reactiveEntity("TaskEntity", "tasks"));
+        file(out, PKG_PATH + "repository/ProjectRepository.java", reactiveRepository("ProjectRepository", "ProjectEntity"));
+        file(out, PKG_PATH + "repository/TaskRepository.java", reactiveRepository("TaskRepository", "TaskEntity"));
+        file(out, PKG_PATH + "handler/StreamingResponses.java", streamingResponses());
+        file(out, PKG_PATH + "handler/ProjectHandler.java", reactiveHandler("ProjectHandler", "ProjectEntity", "ProjectRepository"));
+        file(out, PKG_PATH + "handler/TaskHandler.java", reactiveHandler("TaskHandler", "TaskEntity", "TaskRepository"));
+        file(out, PKG_PATH + "router/ApiRouter.java", apiRouter());
+        if (!f.seedFromSql()) {
+            file(out, PKG_PATH + "config/DataInitializer.java", reactiveDataInitializer());
+        }
+        if (f.fastStartup()) {
+            file(out, "run-fast.sh", runFastScript());
+        }
+        if (f.metrics()) {
+            file(out, PKG_PATH + "config/OperationMetricsWebFilter.java", operationMetricsWebFilter(prompt));
+        }
+        file(out, "src/main/resources/schema.sql", reactiveSchemaSql(prompt));
+
+        out.append("===FILE:src/main/resources/application.yml===\n")
+                .append(reactiveApplicationYml(f, prompt).strip())
+                .append("\n===END===\n");
+        return out.toString();
+    }
+
+    private static String reactiveEntity(String className, String table) {
+        return """
+package com.clooney.generated.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.util.UUID;
+
+@Table("%2$s")
+public class %1$s implements Persistable<String> {
+
+    @Id
+    private String gid;
+
+    private String name;
+
+    // Ids are assigned here, so a non-null id does not mean the row already exists
+    @Transient
+    private boolean fresh;
+
+    public %1$s() {
+    }
+
+    public %1$s(String name) {
+        this.gid = UUID.randomUUID().toString();
+        this.name = name;
+        this.fresh = true;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getId() {
+        return gid;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return fresh;
+    }
+
+    public String getGid() {
+        return gid;
+    }
+
+    public void setGid(String gid) {
+        this.gid = gid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
+""".formatted(className, table);
+    }
+
+    private static String reactiveRepository(String className, String entityName) {
+        return """
+package com.clooney.generated.repository;
+
+import com.clooney.generated.entity.%2$s;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface %1$s extends ReactiveCrudRepository<%2$s, String> {
+}
+""".formatted(className, entityName);
+    }
+
+    private static String streamingResponses() {
+        return """
+package com.clooney.generated.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * List responses written while the rows arrive, never collected into a List:
+ * NDJSON or server-sent events when the client asks for a stream,
+ * otherwise {"data": [...]} in chunks of CHUNK_SIZE rows.
+ */
+@Component
+public class StreamingResponses {
+
+    private static final int CHUNK_SIZE = 100;
+    private static final List<MediaType> STREAMING = List.of(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    private final ObjectMapper objectMapper;
+
+    public StreamingResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <T> Mono<ServerResponse> list(ServerRequest request, Flux<T> rows, Class<T> type) {
+        for (MediaType streaming : STREAMING) {
+            if (request.headers().accept().stream().anyMatch(streaming::equalsTypeAndSubtype)) {
+                return ServerResponse.ok().contentType(streaming).body(rows, type);
+            }
+        }
+
+        Flux<DataBuffer> body = Flux.concat(
+                        Mono.just("{\\"data\\":["),
+                        rows.index().map(row -> (row.getT1() == 0 ? "" : ",") + toJson(row.getT2())),
+                        Mono.just("]}"))
+                .buffer(CHUNK_SIZE)
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(
+                        String.join("", chunk).getBytes(StandardCharsets.UTF_8)));
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromDataBuffers(body));
+    }
+
+    private String toJson(Object row) {
+        try {
+            return objectMapper.writeValueAsString(row);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + row.getClass().getSimpleName(), e);
+        }
+    }
+}
+""";
+    }
+
+    private static String reactiveHandler(String className, String entityName, String repositoryName) {
+        return """
+package com.clooney.generated.handler;
+
+import com.clooney.generated.entity.%2$s;
+import com.clooney.generated.repository.%3$s;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+@Component
+public class %1$s {
+
+    private final %3$s repository;
+    private final StreamingResponses responses;
+
+    public %1$s(%3$s repository, StreamingResponses responses) {
+        this.repository = repository;
+        this.responses = responses;
+    }
+
+    public Mono<ServerResponse> list(ServerRequest request) {
+        return responses.list(request, repository.findAll(), %2$s.class);
+    }
+}
+""".formatted(className, entityName, repositoryName);
+    }
+
+    private static String apiRouter() {
+        return """
+package com.clooney.generated.router;
+
+import com.clooney.generated.handler.ProjectHandler;
+import com.clooney.generated.handler.TaskHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+@Configuration
+public class ApiRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> routes(ProjectHandler projects, TaskHandler tasks) {
+        return RouterFunctions.route()
+                .GET("/projects", projects::list)
+                .GET("/tasks", tasks::list)
+                .build();
+    }
+}
+""";
+    }
+
+    private static String reactiveDataInitializer() {
+        return """
+package com.clooney.generated.config;
+
+import com.clooney.generated.entity.ProjectEntity;
+import com.clooney.generated.entity.TaskEntity;
+import com.clooney.generated.repository.ProjectRepository;
+import com.clooney.generated.repository.TaskRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+@Component
+public class DataInitializer implements ApplicationRunner {
+
+    private final ProjectRepository projectRepository;
+    private final TaskRepository taskRepository;
+
+    public DataInitializer(ProjectRepository projectRepository, TaskRepository taskRepository) {
+        this.projectRepository = projectRepository;
+        this.taskRepository = taskRepository;
+    }
+
+    // Runs once on the main thread before traffic, so blocking until the rows exist is fine
+    @Override
+    public void run(ApplicationArguments args) {
+        Flux.concat(
+                        seed(projectRepository, List.of(
+                                new ProjectEntity("Website Revamp"),
+                                new ProjectEntity("Personal To-Dos"))),
+                        seed(taskRepository, List.of(
+                                new TaskEntity("Fix login bug"),
+                                new TaskEntity("Record math video"))))
+                .blockLast();
+    }
+
+    private static <T> Flux<T> seed(ReactiveCrudRepository<T, String> repository, List<T> rows) {
+        return repository.count().flatMapMany(count -> count == 0 ? repository.saveAll(rows) : Flux.empty());
+    }
+}
+""";
+    }
+
+    // The spec's schema (so data.sql matches it) plus the tables the stub entities map
+    private static String reactiveSchemaSql(String prompt) {
+        int start = prompt.indexOf("Here is the SQL schema:");
+        String specSchema = start < 0 ? "" : prompt.substring(start + "Here is the SQL schema:".length()).strip();
+        return specSchema.replaceAll("(?i)CREATE TABLE (?!IF NOT EXISTS)", "CREATE TABLE IF NOT EXISTS ") + """
+
+
+CREATE TABLE IF NOT EXISTS projects (
+  gid VARCHAR(64) PRIMARY KEY,
+  name TEXT
+);
+
+CREATE TABLE IF NOT EXISTS tasks (
+  gid VARCHAR(64) PRIMARY KEY,
+  name TEXT
+);
+""";
+    }
+
+    private static String reactiveApplicationYml(Features f, String prompt) {
+        String mainSettings = f.fastStartup()
+                ? "\n  main:\n    lazy-initialization: true\n  jmx:\n    enabled: false"
+                : "";
+
+        // schema.sql (and data.sql when seeding) run through R2DBC at startup
+        String yml = """
+spring:%s
+  r2dbc:
+    url: r2dbc:h2:mem:///asana;DB_CLOSE_DELAY=-1
+    username: sa
+    password:
+    pool:
+      initial-size: 10
+      max-size: 50
+  sql:
+    init:
+      mode: always
+
+server:
+  port: 8080
+
+logging:
+  level:
+    org.springframework.r2dbc: INFO
+""".formatted(mainSettings);
+        return f.metrics() ? yml + managementYml(prompt) : yml;
+    }
+
+    // ----------------------------------------------------------------------
+    // Optional: actuator + per-operation timers + Prometheus
+    // ----------------------------------------------------------------------
+
+    // "  - GET /projects -> api.get.projects" lines of the metrics block
+    private static final Pattern OPERATION_LINE =
+            Pattern.compile("(?m)^  - ([A-Z]+) (/\\S*) -> (api[\\w.]*)$");
+
+    private static List<String> metricsDependencies() {
+        return List.of(
+                dependency("org.springframework.boot", "spring-boot-starter-actuator", null),
+                dependency("io.micrometer", "micrometer-registry-prometheus", "runtime"));
+    }
+
+    // Java source of the List.of(...) operation table, path templates compiled to regexes up front
+    private static String operationTable(String prompt) {
+        List<String> entries = new ArrayList<>();
+        Matcher m = OPERATION_LINE.matcher(prompt);
+        while (m.find()) {
+            String regex = OpenApiOperations.pathPattern(m.group(2)).pattern()
+                    .replace("\\", "\\\\").replace("\"", "\\\"");
+            entries.add("            new Operation(\"%s\", Pattern.compile(\"%s\"), \"%s\")"
+                    .formatted(m.group(1), regex, m.group(3)));
+        }
+        return "List.of(\n" + String.join(",\n", entries) + ")";
+    }
+
+    private static String operationMetricsFilter(String prompt) {
+        return """
+package com.clooney.generated.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * One Timer per OpenAPI operation, named after its operationId
+ * (api.get.projects is exported as api_get_projects_seconds). Histograms and
+ * SLO buckets are configured under management.metrics.distribution.*.api.
+ */
+@Component
+public class OperationMetricsFilter extends OncePerRequestFilter {
+
+    private record Operation(String method, Pattern path, String metric) {
+    }
+
+    private static final List<Operation> OPERATIONS = %s;
+
+    private final MeterRegistry registry;
+
+    public OperationMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Operation operation = match(request.getMethod(), request.getRequestURI());
+        if (operation == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(registry);
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            int status = failed ? 500 : response.getStatus();
+            sample.stop(Timer.builder(operation.metric())
+                    .tag("method", operation.method())
+                    .tag("status", Integer.toString(status))
+                    .tag("outcome", Outcome.forStatus(status).name())
+                    .register(registry));
+        }
+    }
+
+    private static Operation match(String method, String path) {
+        for (Operation operation : OPERATIONS) {
+            if (operation.method().equals(method) && operation.path().matcher(path).matches()) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
+""".formatted(operationTable(prompt));
+    }
+
+    private static String operationMetricsWebFilter(String prompt) {
+        return """
+package com.clooney.generated.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * One Timer per OpenAPI operation, named after its operationId
+ * (api.get.projects is exported as api_get_projects_seconds). A streamed
+ * response is timed until its last row is written. Histograms and SLO
+ * buckets are configured under management.metrics.distribution.*.api.
+ */
+@Component
+public class OperationMetricsWebFilter implements WebFilter {
+
+    private record Operation(String method, Pattern path, String metric) {
+    }
+
+    private static final List<Operation> OPERATIONS = %s;
+
+    private final MeterRegistry registry;
+
+    public OperationMetricsWebFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Operation operation = match(request.getMethod().name(), request.getPath().value());
+        if (operation == null) {
+            return chain.filter(exchange);
+        }
+
+        Timer.Sample sample = Timer.start(registry);
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode code = exchange.getResponse().getStatusCode();
+            int status = signal == SignalType.ON_ERROR ? 500 : code == null ? 200 : code.value();
+            sample.stop(Timer.builder(operation.metric())
+                    .tag("method", operation.method())
+                    .tag("status", Integer.toString(status))
+                    .tag("outcome", Outcome.forStatus(status).name())
+                    .register(registry));
+        });
+    }
+
+    private static Operation match(String method, String path) {
+        for (Operation operation : OPERATIONS) {
+            if (operation.method().equals(method) && operation.path().matcher(path).matches()) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
+""".formatted(operationTable(prompt));
+    }
+
+    private static String managementYml(String prompt) {
+        Matcher m = Pattern.compile("management\\.metrics\\.distribution\\.slo\\.api=([\\w,]+)").matcher(prompt);
+        String slo = m.find() ? m.group(1).replaceAll(",+$", "") : "50ms,100ms,250ms,500ms,1000ms";
+        return """
+
+management:
+  endpoints:
+    web:
+      exposure:
+        include: health,info,metrics,prometheus
+  metrics:
+    tags:
+      application: asana-clone-backend
+    distribution:
+      percentiles-histogram:
+        api: true
+        "[http.server.requests]": true
+      slo:
+        api: %1$s
+        "[http.server.requests]": %1$s
+""".formatted(slo);
+    }
+}
@@ -0,0 +1,392 @@
+package com.clooney.agent.seed;
+
+import com.clooney.agent.inspect.APICall;
+import com.clooney.agent.inspect.ApiPaths;
+import com.clooney.agent.inspect.CallStore;
+import com.clooney.agent.inspect.CapturePolicy;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Turns captured response bodies into seed rows for the generated backend.
+ *
+ * Responsibilities:
+ *  - Read raw_*.json and collect every entity (object with a "gid") found in
+ *    the "data" field of successful responses, merged per table + gid.
+ *  - Keep only tables and columns that exist in schema.sql; nested objects
+ *    such as "assignee": {"gid": ...} fill an "assignee_gid" column, and when
+ *    that column has a FOREIGN KEY the nested object also becomes a row of the
+ *    referenced table. Tables are written in schema.sql order.
+ *  - Of those, keep only what the generated backend maps: the tables and
+ *    columns of its own src/main/resources/schema.sql, or else of its JPA
+ *    entities (Hibernate creates only those, so other INSERTs fail at startup).
+ *  - Multiply the rows by a scale factor (synthetic copies get suffixed gids).
+ *  - Write src/main/resources/data.sql with multi-row INSERTs, or a CSV bundle
+ *    under src/main/resources/seed/ plus a data.sql that loads it via H2 CSVREAD.
+ */
+public class SeedDataSynthesizer {
+
+    public enum Format { SQL, CSV }
+
+    private static final int ROWS_PER_INSERT = 1000;
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?[\"`]?(\\w+)[\"`]?\\s*\\((.*?)\\)\\s*;",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern REFERENCES = Pattern.compile(
+            "(?:FOREIGN\\s+KEY\\s*\\(\\s*[\"`]?(\\w+)[\"`]?\\s*\\)\\s*)?REFERENCES\\s+[\"`]?(\\w+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALTER_TABLE = Pattern.compile(
+            "ALTER\\s+TABLE\\s+[\"`]?(\\w+)[\"`]?\\s+ADD\\s+([^;]*);", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ENTITY_TABLE = Pattern.compile("@Table\\s*\\(\\s*(?:name\\s*=\\s*)?\"(\\w+)\"");
+    private static final Pattern ENTITY_CLASS = Pattern.compile("\\bclass\\s+(\\w+)");
+    // A field with the annotations directly above it
+    private static final Pattern ENTITY_FIELD = Pattern.compile(
+            "((?:@\\w+(?:\\s*\\([^)]*\\))?\\s+)*)private\\s+(?!static\\b)(?:final\\s+)?[\\w.<>,?\\s]+?\\s+(\\w+)\\s*(?:=[^;]*)?;");
+    private static final Pattern COLUMN_NAME = Pattern.compile("@(?:Join)?Column\\s*\\([^)]*name\\s*=\\s*\"(\\w+)\"");
+
+    private final Path logsDir;
+    private final Path specDir;
+    private final Path outputDir;
+    private final int scaleFactor;
+    private final Format format;
+
+    public SeedDataSynthesizer(Path logsDir, Path specDir, Path outputDir, int scaleFactor, Format format) {
+        this.logsDir = logsDir;
+        this.specDir = specDir;
+        this.outputDir = outputDir; // e.g. backend/generated/java-backend
+        this.scaleFactor = Math.max(1, scaleFactor);
+        this.format = format;
+    }
+
+    /**
+     * @return number of rows written across all tables
+     */
+    public long synthesizeSeedData() {
+        try {
+            String schemaSql = Files.readString(specDir.resolve("schema.sql"));
+            Map<String, List<String>> tables = restrictTo(parseSchema(schemaSql), backendTables(outputDir));
+            Map<String, Map<String, Map<String, Object>>> rows =
+                    collectRows(loadAllCalls(), tables, parseForeignKeys(schemaSql));
+
+            Path resources = outputDir.resolve("src/main/resources");
+            Files.createDirectories(resources);
+
+            return format == Format.CSV
+                    ? writeCsvBundle(resources, tables, rows)
+                    : writeDataSql(resources.resolve("data.sql"), tables, rows);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Input
+    // ----------------------------------------------------------------------
+
+    private List<APICall> loadAllCalls() {
+        List<APICall> res = new ArrayList<>();
+        try {
+            for (Path file : CallStore.logFiles(logsDir)) {
+                res.addAll(CallStore.readCalls(file));
+            }
+        } catch (IOException e) {
+            System.err.println("[Clooney] Could not read capture logs for seeding: " + e.getMessage());
+        }
+        return res;
+    }
+
+    // table -> ordered column names
+    static Map<String, List<String>> parseSchema(String schemaSql) {
+        Map<String, List<String>> tables = new LinkedHashMap<>();
+        Matcher m = CREATE_TABLE.matcher(schemaSql);
+        while (m.find()) {
+            List<String> columns = new ArrayList<>();
+            for (String def : splitTopLevel(m.group(2))) {
+                String first = def.trim().split("\\s+")[0].replaceAll("[\"`]", "");
+                String upper = first.toUpperCase(Locale.ROOT);
+                if (first.isEmpty() || upper.equals("PRIMARY") || upper.equals("FOREIGN")
+                        || upper.equals("CONSTRAINT") || upper.equals("UNIQUE") || upper.equals("CHECK")) {
+                    continue;
+                }
+                columns.add(first.toLowerCase(Locale.ROOT));
+            }
+            tables.put(m.group(1).toLowerCase(Locale.ROOT), columns);
+        }
+        return tables;
+    }
+
+    // table -> column -> referenced table
+    static Map<String, Map<String, String>> parseForeignKeys(String schemaSql) {
+        Map<String, Map<String, String>> res = new LinkedHashMap<>();
+        Matcher m = CREATE_TABLE.matcher(schemaSql);
+        while (m.find()) {
+            Map<String, String> references = new LinkedHashMap<>();
+            for (String def : splitTopLevel(m.group(2))) {
+                Matcher ref = REFERENCES.matcher(def);
+                if (!ref.find()) continue;
+                String column = ref.group(1) != null ? ref.group(1) : def.trim().split("\\s+")[0].replaceAll("[\"`]", "");
+                references.put(column.toLowerCase(Locale.ROOT), ref.group(2).toLowerCase(Locale.ROOT));
+            }
+            res.put(m.group(1).toLowerCase(Locale.ROOT), references);
+        }
+        Matcher alter = ALTER_TABLE.matcher(schemaSql);
+        while (alter.find()) {
+            Matcher ref = REFERENCES.matcher(alter.group(2));
+            if (!ref.find() || ref.group(1) == null) continue;
+            res.computeIfAbsent(alter.group(1).toLowerCase(Locale.ROOT), t -> new LinkedHashMap<>())
+                    .put(ref.group(1).toLowerCase(Locale.ROOT), ref.group(2).toLowerCase(Locale.ROOT));
+        }
+        return res;
+    }
+
+    // ----------------------------------------------------------------------
+    // What the generated backend maps
+    // ----------------------------------------------------------------------
+
+    /**
+     * Tables and columns the generated backend creates: its own schema.sql when it
+     * ships one (R2DBC), otherwise its @Entity classes. Null when neither is there.
+     */
+    static Map<String, List<String>> backendTables(Path backendDir) throws IOException {
+        Path schema = backendDir.resolve("src/main/resources/schema.sql");
+        if (Files.exists(schema)) {
+            return parseSchema(Files.readString(schema));
+        }
+        Path sources = backendDir.resolve("src/main/java");
+        if (!Files.isDirectory(sources)) return null;
+
+        Map<String, List<String>> res = new LinkedHashMap<>();
+        try (Stream<Path> files = Files.walk(sources)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".java")).sorted().toList()) {
+                String source = Files.readString(file);
+                if (!source.contains("@Entity")) continue;
+                Matcher table = ENTITY_TABLE.matcher(source);
+                Matcher type = ENTITY_CLASS.matcher(source);
+                if (!type.find()) continue;
+                String name = table.find() ? table.group(1) : ApiPaths.sqlName(type.group(1));
+
+                List<String> columns = new ArrayList<>();
+                Matcher field = ENTITY_FIELD.matcher(source.substring(type.end()));
+                while (field.find()) {
+                    String annotations = field.group(1);
+                    if (annotations.contains("@Transient") || annotations.contains("@OneToMany")
+                            || annotations.contains("@ManyToMany")) continue;
+                    Matcher column = COLUMN_NAME.matcher(annotations);
+                    columns.add(column.find() ? column.group(1).toLowerCase(Locale.ROOT)
+                            : ApiPaths.sqlName(field.group(2))
+                                    + (annotations.contains("@ManyToOne") || annotations.contains("@OneToOne") ? "_gid" : ""));
+                }
+                res.put(name.toLowerCase(Locale.ROOT), columns);
+            }
+        }
+        return res.isEmpty() ? null : res;
+    }
+
+    // Spec tables and columns the backend also has, in spec order; every row needs its gid
+    static Map<String, List<String>> restrictTo(Map<String, List<String>> tables, Map<String, List<String>> backend) {
+        if (backend == null) return tables;
+        Map<String, List<String>> res = new LinkedHashMap<>();
+        Set<String> skipped = new LinkedHashSet<>();
+        tables.forEach((table, columns) -> {
+            List<String> mapped = backend.get(table);
+            if (mapped == null || !mapped.contains("gid")) {
+                skipped.add(table);
+                return;
+            }
+            res.put(table, columns.stream().filter(mapped::contains).toList());
+        });
+        if (!skipped.isEmpty()) {
+            System.out.println("[Clooney] Not seeding tables the generated backend does not map: " + String.join(", ", skipped));
+        }
+        return res;
+    }
+
+    private static List<String> splitTopLevel(String body) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == ',' && depth == 0) {
+                parts.add(body.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(body.substring(start));
+        return parts;
+    }
+
+    // table -> gid -> column -> value
+    private Map<String, Map<String, Map<String, Object>>> collectRows(List<APICall> calls,
+                                                                    Map<String, List<String>> tables,
+                                                                    Map<String, Map<String, String>> foreignKeys) {
+        Map<String, Map<String, Map<String, Object>>> rows = new LinkedHashMap<>();
+        for (APICall call : calls) {
+            if (call.status / 100 != 2 || !(call.responseBody instanceof Map<?, ?> body)
+                    || CapturePolicy.isCapMarker(body)) continue;
+
+            String table = ApiPaths.tableForPath(call.path);
+            if (table == null || !tables.containsKey(table)) continue;
+
+            Object data = body.get("data");
+            List<?> items = data instanceof List<?> list ? list : Collections.singletonList(data);
+            for (Object item : items) {
+                addRow(rows, tables, foreignKeys, table, item, true);
+            }
+        }
+
+        // Referenced tables come first in schema.sql, so follow its order
+        Map<String, Map<String, Map<String, Object>>> ordered = new LinkedHashMap<>();
+        for (String table : tables.keySet()) {
+            if (rows.containsKey(table)) ordered.put(table, rows.get(table));
+        }
+        return ordered;
+    }
+
+    // Nested objects only fill columns that the table's own responses left empty
+    private static void addRow(Map<String, Map<String, Map<String, Object>>> rows,
+                               Map<String, List<String>> tables,
+                               Map<String, Map<String, String>> foreignKeys,
+                               String table, Object item, boolean primary) {
+        List<String> columns = tables.get(table);
+        if (columns == null || !(item instanceof Map<?, ?> entity) || entity.get("gid") == null) return;
+
+        Map<String, Object> row = rows
+                .computeIfAbsent(table, t -> new LinkedHashMap<>())
+                .computeIfAbsent(String.valueOf(entity.get("gid")), g -> new LinkedHashMap<>());
+        for (String column : columns) {
+            Object value = columnValue(entity, column);
+            if (value == null) continue;
+            if (primary) row.put(column, value);
+            else row.putIfAbsent(column, value);
+        }
+
+        foreignKeys.getOrDefault(table, Map.of()).forEach((column, target) -> {
+            if (column.endsWith("_gid") && !target.equals(table)) {
+                addRow(rows, tables, foreignKeys, target,
+                        entity.get(column.substring(0, column.length() - "_gid".length())), false);
+            }
+        });
+    }
+
+    private static Object columnValue(Map<?, ?> entity, String column) {
+        Object value = entity.get(column);
+        if (value == null && column.endsWith("_gid")) {
+            Object ref = entity.get(column.substring(0, column.length() - "_gid".length()));
+            if (ref instanceof Map<?, ?> refMap) value = refMap.get("gid");
+        }
+        if (value instanceof Map<?, ?> || value instanceof List<?>) return null;
+        return value;
+    }
+
+    // ----------------------------------------------------------------------
+    // Output
+    // ----------------------------------------------------------------------
+
+    private long writeDataSql(Path target,
+                              Map<String, List<String>> tables,
+                              Map<String, Map<String, Map<String, Object>>> rows) throws IOException {
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(target)) {
+            for (Map.Entry<String, Map<String, Map<String, Object>>> entry : rows.entrySet()) {
+                List<String> columns = tables.get(entry.getKey());
+                String header = "INSERT INTO " + entry.getKey() + " (" + String.join(", ", columns) + ") VALUES\n";
+
+                int inStatement = 0;
+                for (int copy = 0; copy < scaleFactor; copy++) {
+                    for (Map<String, Object> row : entry.getValue().values()) {
+                        out.write(inStatement == 0 ? header : ",\n");
+                        out.write("  (");
+                        for (int i = 0; i < columns.size(); i++) {
+                            if (i > 0) out.write(", ");
+                            out.write(sqlLiteral(valueForCopy(columns.get(i), row, copy)));
+                        }
+                        out.write(")");
+                        written++;
+                        if (++inStatement == ROWS_PER_INSERT) {
+                            out.write(";\n\n");
+                            inStatement = 0;
+                        }
+                    }
+                }
+                if (inStatement > 0) out.write(";\n\n");
+            }
+        }
+        System.out.println("[Clooney] Wrote " + written + " seed rows into " + target.toAbsolutePath());
+        return written;
+    }
+
+    private long writeCsvBundle(Path resources,
+                                Map<String, List<String>> tables,
+                                Map<String, Map<String, Map<String, Object>>> rows) throws IOException {
+        Path seedDir = resources.resolve("seed");
+        Files.createDirectories(seedDir);
+
+        long written = 0;
+        StringBuilder loader = new StringBuilder();
+        for (Map.Entry<String, Map<String, Map<String, Object>>> entry : rows.entrySet()) {
+            String table = entry.getKey();
+            List<String> columns = tables.get(table);
+
+            try (BufferedWriter out = Files.newBufferedWriter(seedDir.resolve(table + ".csv"))) {
+                out.write(String.join(",", columns));
+                out.write("\n");
+                for (int copy = 0; copy < scaleFactor; copy++) {
+                    for (Map<String, Object> row : entry.getValue().values()) {
+                        for (int i = 0; i < columns.size(); i++) {
+                            if (i > 0) out.write(",");
+                            out.write(csvField(valueForCopy(columns.get(i), row, copy)));
+                        }
+                        out.write("\n");
+                        written++;
+                    }
+                }
+            }
+
+            String cols = String.join(", ", columns);
+            loader.append("INSERT INTO ").append(table).append(" (").append(cols).append(")\n")
+                    .append("  SELECT ").append(cols)
+                    .append(" FROM CSVREAD('classpath:seed/").append(table).append(".csv');\n\n");
+        }
+        Files.writeString(resources.resolve("data.sql"), loader.toString());
+        System.out.println("[Clooney] Wrote " + written + " seed rows into " + seedDir.toAbsolutePath());
+        return written;
+    }
+
+    // Copy 0 is the captured row; synthetic copies get unique gids and names
+    private static Object valueForCopy(String column, Map<String, Object> row, int copy) {
+        Object value = row.get(column);
+        if (copy == 0 || value == null) return value;
+        if (column.equals("gid")) return value + "-" + copy;
+        if (column.equals("name")) return value + " #" + copy;
+        return value;
+    }
+
+    private static String sqlLiteral(Object value) {
+        if (value == null) return "NULL";
+        if (value instanceof Number) return value.toString();
+        if (value instanceof Boolean b) return b ? "TRUE" : "FALSE";
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) return "";
+        return "\"" + value.toString().replace("\"", "\"\"") + "\"";
+    }
+}
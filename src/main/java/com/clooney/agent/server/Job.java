@@ -0,0 +1,127 @@
+package com.clooney.agent.server;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One pipeline run submitted to the {@link JobServer}, with its progress and metrics.
+ */
+public class Job {
+
+    public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    final String id;
+    final Path projectRoot;
+    final List<String> pages;
+    final boolean capture;
+    final Map<String, String> options;
+
+    final AtomicLong llmCalls = new AtomicLong();
+    final AtomicLong llmMillis = new AtomicLong();
+
+    private State state = State.QUEUED;
+    private String stage;
+    private long stageStartedAt;
+    private final Map<String, Long> stageMillis = new LinkedHashMap<>();
+    private final long createdAt = System.currentTimeMillis();
+    private long startedAt;
+    private long finishedAt;
+    private String error;
+    private Future<?> future;
+
+    Job(String id, Path projectRoot, List<String> pages, boolean capture, Map<String, String> options) {
+        this.id = id;
+        this.projectRoot = projectRoot;
+        this.pages = pages;
+        this.capture = capture;
+        this.options = options;
+    }
+
+    synchronized void attach(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * @return false if the job was cancelled while still queued
+     */
+    synchronized boolean start() {
+        if (state != State.QUEUED) return false;
+        state = State.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    synchronized void enterStage(String name) {
+        long now = System.currentTimeMillis();
+        closeStage(now);
+        stage = name;
+        stageStartedAt = now;
+    }
+
+    synchronized void finish(State result, String error) {
+        if (state == State.CANCELLED) return;
+        long now = System.currentTimeMillis();
+        closeStage(now);
+        this.state = result;
+        this.error = error;
+        this.finishedAt = now;
+    }
+
+    synchronized boolean cancel() {
+        if (state != State.QUEUED && state != State.RUNNING) return false;
+        long now = System.currentTimeMillis();
+        closeStage(now);
+        state = State.CANCELLED;
+        finishedAt = now;
+        if (future != null) future.cancel(true);
+        return true;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    synchronized boolean isDone() {
+        return finishedAt > 0;
+    }
+
+    synchronized long durationMillis() {
+        if (startedAt == 0) return 0;
+        return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+
+    synchronized Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", id);
+        json.put("state", state);
+        json.put("stage", stage);
+        json.put("projectRoot", projectRoot.toString());
+        json.put("pages", pages);
+        json.put("capture", capture);
+        json.put("options", options);
+        json.put("createdAt", createdAt);
+        json.put("queuedMillis", (startedAt > 0 ? startedAt : System.currentTimeMillis()) - createdAt);
+        json.put("durationMillis", durationMillis());
+
+        Map<String, Long> stages = new LinkedHashMap<>(stageMillis);
+        if (stage != null && finishedAt == 0) {
+            stages.put(stage, System.currentTimeMillis() - stageStartedAt);
+        }
+        json.put("stageMillis", stages);
+        json.put("llmCalls", llmCalls.get());
+        json.put("llmMillis", llmMillis.get());
+        if (error != null) json.put("error", error);
+        return json;
+    }
+
+    private void closeStage(long now) {
+        if (stage != null && stageStartedAt > 0) {
+            stageMillis.merge(stage, now - stageStartedAt, Long::sum);
+            stageStartedAt = 0;
+        }
+    }
+}
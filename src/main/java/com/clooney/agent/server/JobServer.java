@@ -0,0 +1,312 @@
+package com.clooney.agent.server;
+
+import com.clooney.agent.Orchestrator;
+import com.clooney.agent.config.Config;
+import com.clooney.agent.config.GenerationOptions;
+import com.clooney.agent.llm.AdaptiveConcurrencyLLMClient;
+import com.clooney.agent.llm.CachingLLMClient;
+import com.clooney.agent.llm.LLMClient;
+import com.clooney.agent.llm.RateLimitedLLMClient;
+import com.clooney.agent.verify.CompileVerifier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs pipeline jobs for many target apps in one warm process (--mode=server).
+ *
+ * Local HTTP API (bound to 127.0.0.1):
+ *  - POST   /jobs        {"projectRoot": "/abs/dir", "pages": [...], "capture": false,
+ *                         "options": {"CLOONEY_SEED": "true", ...}}  -> 202 {"id": ...}
+ *  - GET    /jobs        all jobs, oldest first
+ *  - GET    /jobs/{id}   state, current stage, per-stage timings, LLM calls/time
+ *  - DELETE /jobs/{id}   cancel a queued or running job
+ *  - GET    /metrics     queue depth, job counts by state, shared LLM/cache counters
+ *
+ * Each job gets its own Config rooted at its projectRoot (logs, spec, backend and
+ * tests all live under it) and its own CLOONEY_* options layered over the server's
+ * environment. All jobs share one rate-limited, caching LLM client and one
+ * CompileVerifier (dependency classpath cache), so the settings that build them
+ * (CLOONEY_LLM_*, CLOONEY_SERVER_*) are server-wide and rejected as job options.
+ * Jobs run on a fixed worker pool with a bounded queue; a full queue answers 429.
+ * Only one queued or running job may own a projectRoot; a second one answers 409.
+ */
+public class JobServer {
+
+    private static final int MAX_FINISHED_JOBS = 1000;
+    private static final int LLM_MEMORY_CACHE_ENTRIES = 256;
+    // Read once when the shared LLM client and worker pool are built
+    private static final List<String> SERVER_WIDE_OPTIONS = List.of("CLOONEY_LLM_", "CLOONEY_SERVER_", "CLOONEY_USE_STUB_LLM");
+
+    private final Config baseConfig;
+    private final GenerationOptions serverOptions;
+    private final CachingLLMClient llm;
+    private final AdaptiveConcurrencyLLMClient adaptive; // null unless CLOONEY_LLM_ADAPTIVE
+    private final CompileVerifier verifier;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, Job> jobs = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private HttpServer http;
+
+    public JobServer(Config baseConfig) {
+        this.baseConfig = baseConfig;
+        this.serverOptions = baseConfig.getGenerationOptions();
+
+        LLMClient provider = Orchestrator.createLLMClient(baseConfig);
+        this.adaptive = provider instanceof AdaptiveConcurrencyLLMClient limiter ? limiter : null;
+        LLMClient limited = new RateLimitedLLMClient(
+                provider,
+                serverOptions.getLlmMaxConcurrency(),
+                serverOptions.getLlmRequestsPerMinute());
+        this.llm = new CachingLLMClient(limited, baseConfig.getCacheDir().resolve("llm"), LLM_MEMORY_CACHE_ENTRIES);
+        this.verifier = new CompileVerifier(baseConfig.getCacheDir());
+
+        int workerCount = Math.max(1, serverOptions.getServerWorkers());
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, serverOptions.getServerQueueSize())));
+    }
+
+    public void start() throws IOException {
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), serverOptions.getServerPort()), 0);
+        http.setExecutor(Executors.newFixedThreadPool(4));
+        http.createContext("/jobs", this::handleJobs);
+        http.createContext("/metrics", exchange -> {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, Map.of("error", "Use GET"));
+                return;
+            }
+            respond(exchange, 200, metrics());
+        });
+        http.start();
+        System.out.println("[Clooney] Job server listening on http://127.0.0.1:" + http.getAddress().getPort()
+                + " (" + workers.getCorePoolSize() + " workers)");
+    }
+
+    public void stop() {
+        if (http != null) http.stop(0);
+        workers.shutdownNow();
+    }
+
+    // ===========================
+    // HTTP
+    // ===========================
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().replaceAll("/+$", "");
+            String method = exchange.getRequestMethod();
+
+            if (path.equals("/jobs")) {
+                if ("POST".equals(method)) {
+                    submit(exchange);
+                } else if ("GET".equals(method)) {
+                    List<Map<String, Object>> all = new ArrayList<>();
+                    jobs.values().forEach(job -> all.add(job.toJson()));
+                    respond(exchange, 200, all);
+                } else {
+                    respond(exchange, 405, Map.of("error", "Use GET or POST"));
+                }
+                return;
+            }
+
+            Job job = jobs.get(path.substring("/jobs/".length()));
+            if (job == null) {
+                respond(exchange, 404, Map.of("error", "No such job"));
+            } else if ("GET".equals(method)) {
+                respond(exchange, 200, job.toJson());
+            } else if ("DELETE".equals(method)) {
+                boolean cancelled = job.cancel();
+                respond(exchange, cancelled ? 200 : 409, job.toJson());
+            } else {
+                respond(exchange, 405, Map.of("error", "Use GET or DELETE"));
+            }
+        } catch (RuntimeException e) {
+            respond(exchange, 500, Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void submit(HttpExchange exchange) throws IOException {
+        JsonNode body;
+        try {
+            body = mapper.readTree(exchange.getRequestBody());
+        } catch (IOException e) {
+            respond(exchange, 400, Map.of("error", "Body must be JSON"));
+            return;
+        }
+
+        String root = body == null ? null : body.path("projectRoot").asText(null);
+        if (root == null || !Path.of(root).isAbsolute()) {
+            respond(exchange, 400, Map.of("error", "projectRoot must be an absolute path"));
+            return;
+        }
+
+        List<String> pages = new ArrayList<>();
+        body.path("pages").forEach(p -> pages.add(p.asText()));
+        if (pages.isEmpty()) pages.addAll(List.of("home", "projects", "tasks"));
+
+        Map<String, String> options = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = body.path("options").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> option = it.next();
+            if (!option.getKey().startsWith("CLOONEY_")) {
+                respond(exchange, 400, Map.of("error", "Unknown option " + option.getKey()));
+                return;
+            }
+            if (SERVER_WIDE_OPTIONS.stream().anyMatch(option.getKey()::startsWith)) {
+                respond(exchange, 400, Map.of("error", option.getKey()
+                        + " is a server-wide setting; set it in the server's environment instead"));
+                return;
+            }
+            options.put(option.getKey(), option.getValue().asText());
+        }
+
+        Job job = new Job(String.format("job-%06d", sequence.incrementAndGet()), Path.of(root).normalize(),
+                pages, body.path("capture").asBoolean(false), options);
+        Config config;
+        try {
+            config = configFor(job);
+        } catch (IllegalStateException e) {
+            respond(exchange, 400, Map.of("error", e.getMessage()));
+            return;
+        }
+
+        // Two jobs on one root would overwrite each other's spec, backend and checkpoint
+        Job owner;
+        boolean queued = true;
+        synchronized (jobs) {
+            owner = jobs.values().stream()
+                    .filter(other -> !other.isDone() && other.projectRoot.equals(job.projectRoot))
+                    .findFirst().orElse(null);
+            if (owner == null) {
+                try {
+                    jobs.put(job.id, job);
+                    job.attach(workers.submit(() -> run(job, config)));
+                } catch (RejectedExecutionException e) {
+                    jobs.remove(job.id);
+                    queued = false;
+                }
+            }
+        }
+        if (owner != null) {
+            respond(exchange, 409, Map.of("error", owner.id + " is already running for " + job.projectRoot));
+            return;
+        }
+        if (!queued) {
+            respond(exchange, 429, Map.of("error", "Job queue is full, retry later"));
+            return;
+        }
+        trimFinishedJobs();
+        respond(exchange, 202, job.toJson());
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // ===========================
+    // JOBS
+    // ===========================
+    private Config configFor(Job job) {
+        Map<String, String> env = new HashMap<>(System.getenv());
+        env.putAll(job.options);
+        return new Config(
+                baseConfig.getOpenAiApiKey(),
+                baseConfig.getModelName(),
+                job.projectRoot,
+                baseConfig.getAsanaEmail(),
+                baseConfig.getAsanaPassword(),
+                baseConfig.getAsanaCookie(),
+                GenerationOptions.fromEnv(env)
+        );
+    }
+
+    private void run(Job job, Config config) {
+        if (!job.start()) return;
+        System.out.println("[Clooney] " + job.id + " started for " + job.projectRoot);
+
+        GenerationOptions options = config.getGenerationOptions();
+        // Candidates must be independent samples, so they bypass the response cache
+        LLMClient shared = options.getCandidates() > 1 ? llm.delegate() : llm;
+        LLMClient metered = prompt -> {
+            long start = System.nanoTime();
+            try {
+                return shared.complete(prompt);
+            } finally {
+                job.llmCalls.incrementAndGet();
+                job.llmMillis.addAndGet((System.nanoTime() - start) / 1_000_000);
+            }
+        };
+        CompileVerifier jobVerifier = options.isVerifyEnabled() || options.getCandidates() > 1 ? verifier : null;
+
+        try {
+            new Orchestrator(config, metered, jobVerifier, job::enterStage).runBackendPipeline(job.pages, job.capture);
+            job.finish(Job.State.SUCCEEDED, null);
+            System.out.println("[Clooney] " + job.id + " succeeded in " + job.durationMillis() + " ms");
+        } catch (RuntimeException e) {
+            job.finish(Job.State.FAILED, String.valueOf(e.getMessage()));
+            System.err.println("[Clooney] " + job.id + " failed: " + e.getMessage());
+        }
+    }
+
+    private void trimFinishedJobs() {
+        List<String> finished = jobs.values().stream().filter(Job::isDone).map(j -> j.id).toList();
+        for (int i = 0; i < finished.size() - MAX_FINISHED_JOBS; i++) {
+            jobs.remove(finished.get(i));
+        }
+    }
+
+    private Map<String, Object> metrics() {
+        Map<String, Long> byState = new LinkedHashMap<>();
+        for (Job.State state : Job.State.values()) byState.put(state.name(), 0L);
+        long llmCalls = 0;
+        long llmMillis = 0;
+        for (Job job : jobs.values()) {
+            byState.merge(job.state().name(), 1L, Long::sum);
+            llmCalls += job.llmCalls.get();
+            llmMillis += job.llmMillis.get();
+        }
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("workers", workers.getCorePoolSize());
+        json.put("activeWorkers", workers.getActiveCount());
+        json.put("queued", workers.getQueue().size());
+        json.put("jobs", byState);
+        json.put("llmCalls", llmCalls);
+        json.put("llmMillis", llmMillis);
+        json.put("llmCacheHits", llm.hits());
+        json.put("llmCacheMisses", llm.misses());
+        if (adaptive != null) {
+            json.put("llmConcurrencyLimit", adaptive.getLimit());
+            json.put("llmInFlight", adaptive.getInFlight());
+            json.put("llmQueueDepth", adaptive.getQueueDepth());
+            json.put("llmThrottled", adaptive.getThrottled());
+            json.put("llmLimitCuts", adaptive.getCuts());
+        }
+        return json;
+    }
+}
@@ -0,0 +1,195 @@
+package com.clooney.agent.spec;
+
+import com.clooney.agent.inspect.APICall;
+import com.clooney.agent.inspect.CallStore;
+import com.clooney.agent.inspect.CaptureArchive;
+import com.clooney.agent.inspect.StoredCall;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Captured calls (raw_*.json, raw_*.capture) grouped by endpoint ("METHOD /path"), kept per log file
+ * so a single changed file can be re-read without touching the others.
+ *
+ * {@link #shapes()} fingerprints each endpoint by structure only (statuses, query
+ * keys, JSON field paths), which is what the spec depends on: new values for the
+ * same fields do not change the fingerprint.
+ *
+ * Calls are held in a {@link CallStore} (raw, deduplicated bodies). {@link #shapes()}
+ * works on the stored form, computing the field paths of each distinct body once;
+ * {@link #clusters()} materializes only the distinct calls of each endpoint and
+ * parses each distinct body once, so repeated captures of the same request and
+ * response cost neither heap nor prompt space there.
+ */
+public class CaptureClusters {
+
+    private final Path logsDir;
+    private final CallStore store = new CallStore();
+    private final Map<Path, List<StoredCall>> callsByFile = new TreeMap<>();
+
+    public CaptureClusters(Path logsDir) {
+        this.logsDir = logsDir;
+    }
+
+    public void loadAll() {
+        callsByFile.clear();
+        try {
+            for (Path file : CallStore.logFiles(logsDir)) {
+                refresh(file);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Re-read one log file; a deleted file drops its calls. A JSON log also decides
+     * whether its raw_*.capture counterpart is read (see {@link CallStore#logFiles}).
+     *
+     * @return false when the file could not be parsed (e.g. still being written); its previous calls are kept
+     */
+    public boolean refresh(Path file) {
+        boolean ok = reload(file);
+        if (!CaptureArchive.isArchive(file)) ok &= reload(CaptureArchive.sibling(file));
+        return ok;
+    }
+
+    private boolean reload(Path file) {
+        if (!Files.exists(file) || CallStore.isShadowed(file)) {
+            if (callsByFile.remove(file) != null) dropUnusedBodies();
+            return true;
+        }
+        try {
+            List<StoredCall> previous = callsByFile.put(file, store.read(file));
+            if (previous != null) dropUnusedBodies();
+            return true;
+        } catch (IOException e) {
+            System.err.println("[Clooney] Skipping unreadable capture log " + file.getFileName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void dropUnusedBodies() {
+        List<StoredCall> live = new ArrayList<>();
+        callsByFile.values().forEach(live::addAll);
+        store.retainOnly(live);
+    }
+
+    /**
+     * Distinct calls per endpoint, materialized. Exact repeats (same url, query,
+     * status and bodies) are kept once: they add nothing to the spec, and dropping
+     * them leaves {@link #shapesOf} and the per-field statistics of
+     * {@link LocalSpecInference} unchanged. Bodies shared by several calls are parsed
+     * once and share one read-only tree. Oversized-body markers come out as null, so
+     * the spec never mistakes them for a response schema.
+     */
+    public Map<String, List<APICall>> clusters() {
+        Map<String, Set<StoredCall>> distinct = new TreeMap<>();
+        for (List<StoredCall> calls : callsByFile.values()) {
+            for (StoredCall call : calls) {
+                distinct.computeIfAbsent(call.endpoint(), k -> new LinkedHashSet<>()).add(call);
+            }
+        }
+        Map<CallStore.Body, Object> parsed = new IdentityHashMap<>();
+        Map<String, List<APICall>> res = new TreeMap<>();
+        distinct.forEach((endpoint, calls) -> {
+            List<APICall> cluster = new ArrayList<>(calls.size());
+            for (StoredCall call : calls) cluster.add(call.toApiCall(parsed).withoutCapMarkers());
+            res.put(endpoint, cluster);
+        });
+        return res;
+    }
+
+    /**
+     * @return endpoint -> structural fingerprint, same as {@link #shapesOf} over {@link #clusters()}
+     */
+    public Map<String, String> shapes() {
+        Map<String, Set<String>> byEndpoint = new TreeMap<>();
+        for (List<StoredCall> calls : callsByFile.values()) {
+            for (StoredCall call : calls) {
+                Set<String> shape = byEndpoint.computeIfAbsent(call.endpoint(), k -> new TreeSet<>());
+                shape.add("status " + call.status());
+                call.query().keySet().forEach(k -> shape.add("query " + k));
+                addBodyPaths("request $", call.requestBody(), shape);
+                addBodyPaths("response $", call.responseBody(), shape);
+            }
+        }
+        Map<String, String> res = new TreeMap<>();
+        byEndpoint.forEach((endpoint, shape) -> res.put(endpoint, String.join("\n", shape)));
+        return res;
+    }
+
+    private static void addBodyPaths(String prefix, CallStore.Body body, Set<String> out) {
+        Set<String> paths = body == null || body.isCapMarker()
+                ? Set.of(" null")
+                : body.derive(value -> {
+                    Set<String> res = new TreeSet<>();
+                    fieldPaths("", value, res);
+                    return res;
+                });
+        for (String path : paths) out.add(prefix + path);
+    }
+
+    /**
+     * Captured calls currently held, and what the compact store keeps of them.
+     */
+    public String storeSummary() {
+        int calls = callsByFile.values().stream().mapToInt(List::size).sum();
+        return calls + " calls, " + store.uniqueBodies() + " distinct bodies, "
+                + store.bodyBytes() / 1024 + " KiB of body JSON";
+    }
+
+    public static Map<String, String> shapesOf(Map<String, List<APICall>> clusters) {
+        Map<String, String> res = new TreeMap<>();
+        for (Map.Entry<String, List<APICall>> cluster : clusters.entrySet()) {
+            Set<String> shape = new TreeSet<>();
+            for (APICall original : cluster.getValue()) {
+                APICall call = original.withoutCapMarkers();
+                shape.add("status " + call.status);
+                if (call.query != null) call.query.keySet().forEach(k -> shape.add("query " + k));
+                fieldPaths("request $", call.requestBody, shape);
+                fieldPaths("response $", call.responseBody, shape);
+            }
+            res.put(cluster.getKey(), String.join("\n", shape));
+        }
+        return res;
+    }
+
+    /**
+     * Endpoints added, removed or with a different fingerprint between two {@link #shapes()} results.
+     */
+    public static Set<String> changedEndpoints(Map<String, String> before, Map<String, String> after) {
+        Set<String> res = new TreeSet<>();
+        Set<String> all = new HashSet<>(before.keySet());
+        all.addAll(after.keySet());
+        for (String endpoint : all) {
+            if (!Objects.equals(before.get(endpoint), after.get(endpoint))) res.add(endpoint);
+        }
+        return res;
+    }
+
+    private static void fieldPaths(String path, Object value, Set<String> out) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                fieldPaths(path + "." + e.getKey(), e.getValue(), out);
+            }
+        } else if (value instanceof List<?> list) {
+            for (Object item : list) fieldPaths(path + "[]", item, out);
+            if (list.isEmpty()) out.add(path + "[]");
+        } else {
+            out.add(path + (value == null ? " null" : " " + value.getClass().getSimpleName()));
+        }
+    }
+}
@@ -0,0 +1,531 @@
+package com.clooney.agent.spec;
+
+import com.clooney.agent.inspect.APICall;
+import com.clooney.agent.inspect.ApiPaths;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic spec inference from clustered captures, without an LLM.
+ *
+ *  - Paths: numeric / long hex segments become parameters named after the preceding
+ *    segment ("/projects/145001/tasks" -> "/projects/{project_gid}/tasks"); clusters
+ *    that share a template are merged.
+ *  - Query parameters: union over the calls, required when present in every call,
+ *    integer/boolean when every value is one (values that are known gids stay strings).
+ *  - Schemas: every object with a "gid" is an entity. Response data belongs to the table
+ *    named by the last literal path segment. A nested entity belongs to the path table
+ *    whose gids include all of its gids ("assignee" -> users), else to the plural of
+ *    its field name. Types, date formats, nullability and required fields are merged
+ *    over all samples.
+ *  - DDL: one table per entity; nested entities become <field>_gid foreign keys, arrays
+ *    of entities join tables, other nested values a TEXT column holding JSON.
+ */
+public class LocalSpecInference {
+
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern DATE_TIME = Pattern.compile("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}(:\\d{2}(\\.\\d+)?)?(Z|[+-]\\d{2}:?\\d{2})?");
+    private static final List<String> METHOD_ORDER = List.of("get", "post", "put", "patch", "delete", "head", "options");
+
+    // template -> method -> calls
+    private final Map<String, Map<String, List<APICall>>> endpoints = new TreeMap<>();
+    // table -> merged shape of every entity sample
+    private final Map<String, Shape> entities = new TreeMap<>();
+    // table -> merged shape of request "data" objects
+    private final Map<String, Shape> requests = new TreeMap<>();
+    private final Set<String> knownGids = new HashSet<>();
+    // field table -> path table it was resolved to by gid ("assignees" -> "users")
+    private final Map<String, String> aliases = new HashMap<>();
+
+    public LocalSpecInference(Map<String, List<APICall>> clusters) {
+        for (List<APICall> calls : clusters.values()) {
+            for (APICall call : calls) {
+                if (call.path == null || call.method == null) continue;
+                endpoints.computeIfAbsent(template(call.path), k -> new TreeMap<>())
+                        .computeIfAbsent(call.method.toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                        .add(call.withoutCapMarkers());
+            }
+        }
+        resolveAliases();
+        endpoints.forEach((path, byMethod) -> byMethod.values().forEach(calls -> calls.forEach(call -> collect(path, call))));
+    }
+
+    // First pass over the responses: which gids each table holds
+    private void resolveAliases() {
+        Map<String, Set<String>> pathGids = new HashMap<>();
+        Map<String, Set<String>> fieldGids = new HashMap<>();
+        endpoints.forEach((path, byMethod) -> byMethod.values().forEach(calls -> calls.forEach(call -> {
+            String table = ApiPaths.tableForPath(path);
+            if (table == null || call.status / 100 != 2 || !(call.responseBody instanceof Map<?, ?> body)) return;
+            Object data = body.containsKey("data") ? body.get("data") : body;
+            for (Object item : data instanceof List<?> list ? list : List.of(data == null ? "" : data)) {
+                if (item instanceof Map<?, ?> entity && entity.get("gid") != null) {
+                    pathGids.computeIfAbsent(table, t -> new HashSet<>()).add(String.valueOf(entity.get("gid")));
+                    nestedGids(entity, fieldGids);
+                }
+            }
+        })));
+
+        fieldGids.forEach((fieldTable, gids) -> {
+            if (pathGids.containsKey(fieldTable)) return;
+            pathGids.entrySet().stream()
+                    .filter(e -> e.getValue().containsAll(gids))
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .findFirst()
+                    .ifPresent(table -> aliases.put(fieldTable, table));
+        });
+    }
+
+    private static void nestedGids(Map<?, ?> entity, Map<String, Set<String>> out) {
+        entity.forEach((key, value) -> {
+            for (Object item : value instanceof List<?> list ? list : List.of(value == null ? "" : value)) {
+                if (item instanceof Map<?, ?> nested && nested.get("gid") != null) {
+                    out.computeIfAbsent(plural(columnName(String.valueOf(key))), t -> new HashSet<>())
+                            .add(String.valueOf(nested.get("gid")));
+                    nestedGids(nested, out);
+                }
+            }
+        });
+    }
+
+    // ===========================
+    // OPENAPI
+    // ===========================
+    public Map<String, Object> openApi() {
+        Map<String, Object> doc = new LinkedHashMap<>();
+        doc.put("openapi", "3.0.3");
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("title", "Inferred API");
+        info.put("version", "1.0.0");
+        doc.put("info", info);
+
+        Map<String, Object> paths = new LinkedHashMap<>();
+        endpoints.forEach((path, byMethod) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            byMethod.entrySet().stream()
+                    .sorted((a, b) -> Integer.compare(methodRank(a.getKey()), methodRank(b.getKey())))
+                    .forEach(e -> item.put(e.getKey(), operation(path, e.getKey(), e.getValue())));
+            paths.put(path, item);
+        });
+        doc.put("paths", paths);
+
+        Map<String, Object> schemas = new LinkedHashMap<>();
+        entities.forEach((table, shape) -> schemas.put(schemaName(table), objectSchema(shape, null, null)));
+        requests.forEach((table, shape) -> schemas.put(schemaName(table) + "Request", objectSchema(shape, null, null)));
+        if (!schemas.isEmpty()) {
+            Map<String, Object> components = new LinkedHashMap<>();
+            components.put("schemas", schemas);
+            doc.put("components", components);
+        }
+        return doc;
+    }
+
+    private Map<String, Object> operation(String path, String method, List<APICall> calls) {
+        String table = ApiPaths.tableForPath(path);
+        String resource = table == null ? "resource" : table.replace('_', ' ');
+        boolean item = path.endsWith("}");
+
+        Map<String, Object> op = new LinkedHashMap<>();
+        op.put("tags", List.of(table == null ? "Default" : pascal(table)));
+        op.put("summary", summary(method, resource, item));
+        op.put("operationId", OpenApiOperations.deriveOperationId(method, path));
+
+        List<Object> parameters = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.startsWith("{")) continue;
+            Map<String, Object> param = new LinkedHashMap<>();
+            param.put("name", segment.substring(1, segment.length() - 1));
+            param.put("in", "path");
+            param.put("required", true);
+            param.put("schema", Map.of("type", "string"));
+            parameters.add(param);
+        }
+        parameters.addAll(queryParameters(calls));
+        if (!parameters.isEmpty()) op.put("parameters", parameters);
+
+        Shape requestBody = new Shape();
+        calls.stream().filter(c -> c.requestBody != null).forEach(c -> requestBody.add(c.requestBody));
+        if (requestBody.samples > 0) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("required", true);
+            body.put("content", Map.of("application/json",
+                    Map.of("schema", bodySchema(requestBody, table == null ? null : schemaName(table) + "Request"))));
+            op.put("requestBody", body);
+        }
+
+        Map<Integer, Shape> byStatus = new TreeMap<>();
+        for (APICall call : calls) {
+            Shape shape = byStatus.computeIfAbsent(call.status, s -> new Shape());
+            if (call.responseBody != null) shape.add(call.responseBody);
+        }
+        Map<String, Object> responses = new LinkedHashMap<>();
+        byStatus.forEach((status, shape) -> {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("description", status / 100 == 2 ? "OK" : "Error");
+            if (shape.samples > 0) {
+                String ref = status / 100 == 2 && table != null && entities.containsKey(table) ? schemaName(table) : null;
+                response.put("content", Map.of("application/json", Map.of("schema", bodySchema(shape, ref))));
+            }
+            responses.put(String.valueOf(status), response);
+        });
+        op.put("responses", responses);
+        return op;
+    }
+
+    private List<Object> queryParameters(List<APICall> calls) {
+        Map<String, List<String>> values = new TreeMap<>();
+        Map<String, Integer> seen = new TreeMap<>();
+        for (APICall call : calls) {
+            if (call.query == null) continue;
+            call.query.forEach((name, value) -> {
+                values.computeIfAbsent(name, k -> new ArrayList<>()).add(String.valueOf(value));
+                seen.merge(name, 1, Integer::sum);
+            });
+        }
+
+        List<Object> res = new ArrayList<>();
+        values.forEach((name, observed) -> {
+            String type = "string";
+            if (observed.stream().allMatch(v -> v.equals("true") || v.equals("false"))) {
+                type = "boolean";
+            } else if (observed.stream().allMatch(v -> v.matches("-?\\d{1,18}") && !knownGids.contains(v))) {
+                type = "integer";
+            }
+            Map<String, Object> param = new LinkedHashMap<>();
+            param.put("name", name);
+            param.put("in", "query");
+            param.put("required", seen.get(name) == calls.size());
+            param.put("schema", Map.of("type", type));
+            res.add(param);
+        });
+        return res;
+    }
+
+    // Envelope bodies ({"data": ...}) point "data" at the named component
+    private Map<String, Object> bodySchema(Shape body, String dataSchema) {
+        if (body.object && body.properties.containsKey("data") && dataSchema != null) {
+            return objectSchema(body, "data", dataSchema);
+        }
+        return schemaOf("body", body);
+    }
+
+    private Map<String, Object> objectSchema(Shape shape, String refField, String refSchema) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("type", "object");
+        List<String> required = new ArrayList<>();
+        Map<String, Object> properties = new LinkedHashMap<>();
+        shape.properties.forEach((name, property) -> {
+            if (name.equals(refField)) {
+                Map<String, Object> ref = Map.of("$ref", "#/components/schemas/" + refSchema);
+                properties.put(name, property.array && !property.object
+                        ? new LinkedHashMap<>(Map.of("type", "array", "items", ref))
+                        : ref);
+            } else {
+                properties.put(name, schemaOf(name, property));
+            }
+            if (property.samples == shape.objects && property.nulls == 0) required.add(name);
+        });
+        if (!required.isEmpty()) res.put("required", required);
+        res.put("properties", properties);
+        return res;
+    }
+
+    private Map<String, Object> schemaOf(String field, Shape shape) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        if (shape.isEntity()) {
+            String ref = "#/components/schemas/" + schemaName(tableForField(field));
+            if (shape.nulls > 0) {
+                res.put("allOf", List.of(Map.of("$ref", ref)));
+                res.put("nullable", true);
+            } else {
+                res.put("$ref", ref);
+            }
+            return res;
+        }
+
+        switch (shape.type()) {
+            case "object" -> res.putAll(objectSchema(shape, null, null));
+            case "array" -> {
+                res.put("type", "array");
+                res.put("items", shape.items == null ? Map.of("type", "string") : schemaOf(field, shape.items));
+            }
+            case "string" -> {
+                res.put("type", "string");
+                if (shape.isDate()) res.put("format", "date");
+                else if (shape.isDateTime()) res.put("format", "date-time");
+            }
+            case "integer" -> {
+                res.put("type", "integer");
+                res.put("format", "int64");
+            }
+            default -> res.put("type", shape.type());
+        }
+        if (shape.nulls > 0) res.put("nullable", true);
+        return res;
+    }
+
+    // ===========================
+    // DDL
+    // ===========================
+    // Foreign keys are added once every table exists, so references may form cycles
+    public String schemaSql() {
+        List<String> statements = new ArrayList<>();
+        List<String> joinTables = new ArrayList<>();
+        List<String> foreignKeys = new ArrayList<>();
+        for (String table : tablesInDependencyOrder()) {
+            Shape shape = entities.get(table);
+            List<String> columns = new ArrayList<>();
+            columns.add("gid VARCHAR(64) PRIMARY KEY");
+
+            shape.properties.forEach((name, property) -> {
+                String column = columnName(name);
+                if (column.equals("gid")) return;
+                boolean notNull = property.samples == shape.objects && property.nulls == 0;
+
+                if (property.isEntity()) {
+                    String target = tableForField(name);
+                    columns.add(column + "_gid VARCHAR(64)" + (notNull ? " NOT NULL" : ""));
+                    addForeignKey(foreignKeys, table, column + "_gid", target);
+                } else if (property.array && property.items != null && property.items.isEntity()) {
+                    String target = tableForField(name);
+                    String joinTable = table + "_" + column;
+                    String left = singular(table) + "_gid";
+                    String right = singular(column) + "_gid";
+                    if (right.equals(left)) right = "related_" + right;
+                    joinTables.add("CREATE TABLE " + joinTable + " (\n"
+                            + "  " + left + " VARCHAR(64) NOT NULL,\n"
+                            + "  " + right + " VARCHAR(64) NOT NULL,\n"
+                            + "  PRIMARY KEY (" + left + ", " + right + ")\n"
+                            + ");");
+                    addForeignKey(foreignKeys, joinTable, left, table);
+                    addForeignKey(foreignKeys, joinTable, right, target);
+                } else {
+                    columns.add(column + " " + sqlType(property) + (notNull ? " NOT NULL" : ""));
+                }
+            });
+            statements.add("CREATE TABLE " + table + " (\n  " + String.join(",\n  ", columns) + "\n);");
+        }
+        statements.addAll(joinTables);
+        statements.addAll(foreignKeys);
+        return String.join("\n\n", statements);
+    }
+
+    // Only tables inferred from the captures exist, so a reference to anything else stays a plain column
+    private void addForeignKey(List<String> foreignKeys, String table, String column, String target) {
+        if (entities.containsKey(target)) {
+            foreignKeys.add("ALTER TABLE " + table + " ADD FOREIGN KEY (" + column + ") REFERENCES " + target + "(gid);");
+        }
+    }
+
+    private static String sqlType(Shape shape) {
+        return switch (shape.type()) {
+            case "boolean" -> "BOOLEAN";
+            case "integer" -> "BIGINT";
+            case "number" -> "DOUBLE PRECISION";
+            case "string" -> shape.isDate() ? "DATE" : shape.isDateTime() ? "TIMESTAMP" : "TEXT";
+            default -> "TEXT";
+        };
+    }
+
+    // Referenced tables first, so seed rows can be inserted in schema order
+    private List<String> tablesInDependencyOrder() {
+        Set<String> ordered = new LinkedHashSet<>();
+        for (String table : entities.keySet()) visit(table, ordered, new HashSet<>());
+        return new ArrayList<>(ordered);
+    }
+
+    private void visit(String table, Set<String> ordered, Set<String> path) {
+        if (ordered.contains(table) || !path.add(table)) return;
+        for (Map.Entry<String, Shape> property : entities.get(table).properties.entrySet()) {
+            if (property.getValue().isEntity()) {
+                String target = tableForField(property.getKey());
+                if (entities.containsKey(target)) visit(target, ordered, path);
+            }
+        }
+        ordered.add(table);
+    }
+
+    // ===========================
+    // COLLECTION
+    // ===========================
+    private void collect(String path, APICall call) {
+        String table = ApiPaths.tableForPath(path);
+        if (table == null) return;
+
+        if (call.status / 100 == 2 && call.responseBody instanceof Map<?, ?> body) {
+            Object data = body.containsKey("data") ? body.get("data") : body;
+            if (data instanceof List<?> list) {
+                list.forEach(item -> addEntity(table, item));
+            } else {
+                addEntity(table, data);
+            }
+        }
+        if (call.requestBody instanceof Map<?, ?> body && body.get("data") instanceof Map<?, ?> data) {
+            requests.computeIfAbsent(table, t -> new Shape()).add(data);
+        }
+    }
+
+    private void addEntity(String table, Object value) {
+        if (!(value instanceof Map<?, ?> entity) || entity.get("gid") == null) return;
+        knownGids.add(String.valueOf(entity.get("gid")));
+        entities.computeIfAbsent(table, t -> new Shape()).add(entity);
+        entity.forEach((key, nested) -> {
+            String target = tableForField(String.valueOf(key));
+            if (nested instanceof List<?> list) {
+                list.forEach(item -> addEntity(target, item));
+            } else {
+                addEntity(target, nested);
+            }
+        });
+    }
+
+    /**
+     * Merged structure of every value observed at one position.
+     */
+    private static final class Shape {
+        int samples;
+        int nulls;
+        int objects;
+        boolean string;
+        boolean integer;
+        boolean number;
+        boolean bool;
+        boolean array;
+        boolean object;
+        boolean allDates = true;
+        boolean allDateTimes = true;
+        final Map<String, Shape> properties = new LinkedHashMap<>();
+        Shape items;
+
+        void add(Object value) {
+            samples++;
+            if (value == null) {
+                nulls++;
+            } else if (value instanceof Map<?, ?> map) {
+                object = true;
+                objects++;
+                map.forEach((k, v) -> properties.computeIfAbsent(String.valueOf(k), n -> new Shape()).add(v));
+            } else if (value instanceof List<?> list) {
+                array = true;
+                if (items == null) items = new Shape();
+                list.forEach(items::add);
+            } else if (value instanceof Boolean) {
+                bool = true;
+            } else if (value instanceof Integer || value instanceof Long || value instanceof BigInteger || value instanceof Short) {
+                integer = true;
+            } else if (value instanceof Number) {
+                number = true;
+            } else {
+                String s = String.valueOf(value);
+                string = true;
+                allDates &= DATE.matcher(s).matches();
+                allDateTimes &= DATE_TIME.matcher(s).matches();
+            }
+        }
+
+        boolean isDate() {
+            return string && allDates;
+        }
+
+        boolean isDateTime() {
+            return string && allDateTimes;
+        }
+
+        boolean isEntity() {
+            return object && properties.containsKey("gid");
+        }
+
+        String type() {
+            if (object) return "object";
+            if (array) return "array";
+            if (string || !(integer || number || bool)) return "string";
+            if (bool && !(integer || number)) return "boolean";
+            if (bool) return "string";
+            return number ? "number" : "integer";
+        }
+    }
+
+    // ===========================
+    // NAMING
+    // ===========================
+
+    // "/projects/145001/tasks" -> "/projects/{project_gid}/tasks"
+    static String template(String path) {
+        StringBuilder sb = new StringBuilder();
+        String previous = null;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            if (previous != null && ApiPaths.isIdSegment(segment)) {
+                sb.append("/{").append(singular(columnName(previous))).append("_gid}");
+            } else {
+                sb.append('/').append(segment);
+            }
+            previous = segment;
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    private String tableForField(String field) {
+        String table = plural(columnName(field));
+        return aliases.getOrDefault(table, table);
+    }
+
+    private static String columnName(String name) {
+        return ApiPaths.sqlName(name);
+    }
+
+    // "tasks" -> "Task", "custom_fields" -> "CustomField"
+    static String schemaName(String table) {
+        return pascal(singular(table));
+    }
+
+    private static String pascal(String snake) {
+        StringBuilder sb = new StringBuilder();
+        for (String word : snake.split("_")) {
+            if (!word.isEmpty()) sb.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+        }
+        return sb.toString();
+    }
+
+    private static String plural(String word) {
+        if (word.endsWith("s")) return word;
+        if (word.endsWith("y") && word.length() > 1 && "aeiou".indexOf(word.charAt(word.length() - 2)) < 0) {
+            return word.substring(0, word.length() - 1) + "ies";
+        }
+        return word + "s";
+    }
+
+    private static String singular(String word) {
+        if (word.endsWith("ies")) return word.substring(0, word.length() - 3) + "y";
+        if (word.endsWith("s") && !word.endsWith("ss")) return word.substring(0, word.length() - 1);
+        return word;
+    }
+
+    private static String summary(String method, String resource, boolean item) {
+        String one = singular(resource);
+        return switch (method) {
+            case "get" -> item ? "Get " + one : "List " + resource;
+            case "post" -> "Create " + one;
+            case "put", "patch" -> "Update " + one;
+            case "delete" -> "Delete " + one;
+            default -> method.toUpperCase(Locale.ROOT) + " " + resource;
+        };
+    }
+
+    private static int methodRank(String method) {
+        int i = METHOD_ORDER.indexOf(method);
+        return i < 0 ? METHOD_ORDER.size() : i;
+    }
+}
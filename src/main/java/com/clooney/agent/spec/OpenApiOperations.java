@@ -0,0 +1,125 @@
+package com.clooney.agent.spec;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the operation list (method + path + operationId) out of an OpenAPI YAML document.
+ *
+ * Used by the code generators to tell the LLM exactly which endpoints an
+ * optional feature applies to. Malformed specs yield an empty list.
+ */
+public final class OpenApiOperations {
+
+    private static final Set<String> HTTP_METHODS =
+            Set.of("get", "put", "post", "delete", "options", "head", "patch", "trace");
+
+    private OpenApiOperations() {
+    }
+
+    /**
+     * A single operation from the "paths" section.
+     * operationId falls back to a camelCase name derived from method + path.
+     */
+    public record Operation(String method, String path, String operationId) {
+
+        public boolean isRead() {
+            return "GET".equals(method);
+        }
+
+        /**
+         * Micrometer name of the operation's timer: "getUsersByUserGidTasks" -> "api.get.users.by.user.gid.tasks"
+         */
+        public String metricName() {
+            StringBuilder sb = new StringBuilder("api");
+            for (String word : operationId.split("(?<=[a-z0-9])(?=[A-Z])|[^A-Za-z0-9]+")) {
+                if (!word.isEmpty()) sb.append('.').append(word.toLowerCase(Locale.ROOT));
+            }
+            return sb.toString();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<Operation> parse(String openapiYaml) {
+        List<Operation> res = new ArrayList<>();
+        if (openapiYaml == null || openapiYaml.isBlank()) return res;
+
+        Object root;
+        try {
+            root = new Yaml(new SafeConstructor(new LoaderOptions())).load(openapiYaml);
+        } catch (RuntimeException e) {
+            return res;
+        }
+        if (!(root instanceof Map<?, ?> doc) || !(doc.get("paths") instanceof Map<?, ?> paths)) {
+            return res;
+        }
+
+        for (Map.Entry<?, ?> pathEntry : paths.entrySet()) {
+            String path = String.valueOf(pathEntry.getKey());
+            if (!(pathEntry.getValue() instanceof Map<?, ?> item)) continue;
+
+            for (Map.Entry<?, ?> opEntry : item.entrySet()) {
+                String method = String.valueOf(opEntry.getKey()).toLowerCase(Locale.ROOT);
+                if (!HTTP_METHODS.contains(method)) continue;
+
+                String operationId = null;
+                if (opEntry.getValue() instanceof Map<?, ?> op && op.get("operationId") != null) {
+                    operationId = String.valueOf(op.get("operationId"));
+                }
+                if (operationId == null || operationId.isBlank()) {
+                    operationId = deriveOperationId(method, path);
+                }
+                res.add(new Operation(method.toUpperCase(Locale.ROOT), path, operationId));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Paths of all GET operations, in document order.
+     */
+    public static List<String> readPaths(String openapiYaml) {
+        return parse(openapiYaml).stream()
+                .filter(Operation::isRead)
+                .map(Operation::path)
+                .toList();
+    }
+
+    /**
+     * Regex matching concrete request paths of a templated OpenAPI path, with an optional trailing slash:
+     * "/projects/{project_gid}/tasks" -> ^/projects/[^/]+/tasks/?$
+     */
+    public static Pattern pathPattern(String templatePath) {
+        StringBuilder regex = new StringBuilder("^");
+        for (String part : templatePath.split("(?=\\{)|(?<=\\})")) {
+            regex.append(part.startsWith("{") ? "[^/]+" : Pattern.quote(part));
+        }
+        return Pattern.compile(regex.append("/?$").toString());
+    }
+
+    // "GET /users/{user_gid}/tasks" -> "getUsersByUserGidTasks"
+    static String deriveOperationId(String method, String path) {
+        StringBuilder sb = new StringBuilder(method.toLowerCase(Locale.ROOT));
+        for (String segment : path.split("/")) {
+            if (segment.isBlank()) continue;
+            boolean param = segment.startsWith("{") && segment.endsWith("}");
+            if (param) {
+                sb.append("By");
+                segment = segment.substring(1, segment.length() - 1);
+            }
+            for (String word : segment.split("[^A-Za-z0-9]+")) {
+                if (word.isEmpty()) continue;
+                sb.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+            }
+        }
+        return sb.toString();
+    }
+}
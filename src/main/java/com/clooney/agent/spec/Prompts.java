@@ -1,5 +1,12 @@
 package com.clooney.agent.spec;
 
+import com.clooney.agent.config.GenerationOptions;
+import com.clooney.agent.llm.PromptStage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 public class Prompts {
 
     /**
@@ -13,7 +20,7 @@ public class Prompts {
      *  - ===END===
      */
     public static String buildSpecPrompt(String summaryJson) {
-        return """
+        return PromptStage.SPEC.tag() + """
 You are an expert backend engineer and API designer.
 You will be given a JSON object that groups observed HTTP API calls
 by method + path. The JSON contains, for each endpoint, examples of:
@@ -51,6 +58,99 @@ Here is the JSON with observed API calls:
 """ + summaryJson + "\n";
     }
 
+    /**
+     * Delta variant of {@link #buildSpecPrompt(String)}: only the new or changed
+     * endpoint clusters are sent, together with the names already used in the
+     * existing spec, and the model returns just the parts to add or replace.
+     *
+     * The LLMClient stub looks for the phrase:
+     *  - "Update an existing OpenAPI spec"
+     * and reads the "- METHOD /path" lines under "Endpoints to add or update:".
+     */
+    public static String buildSpecDeltaPrompt(List<String> endpoints, String summaryJson,
+                                              Collection<String> existingPaths,
+                                              Collection<String> existingSchemas,
+                                              Collection<String> existingTables) {
+        return PromptStage.SPEC_DELTA.tag() + """
+You are an expert backend engineer and API designer.
+
+Update an existing OpenAPI spec
+and its SQL schema with newly observed HTTP API calls.
+
+The existing spec already defines these paths:
+""" + bulletList(existingPaths) + """
+These components/schemas:
+""" + bulletList(existingSchemas) + """
+And these SQL tables:
+""" + bulletList(existingTables) + """
+
+Endpoints to add or update:
+""" + bulletList(endpoints) + """
+
+Guidelines:
+- Return ONLY the paths for the endpoints listed above, as a partial OpenAPI 3.0 document
+  with "paths" and, if needed, "components.schemas".
+- Use templated paths (e.g. /tasks/{task_gid}); reuse an existing path template when one matches.
+- Reuse the existing schema and table names for the same resources; a returned schema or
+  table replaces the existing one with that name, so include all of its fields.
+- For SQL, return only CREATE TABLE statements for new or changed tables.
+
+Return the result in the following exact format (no explanation text):
+
+===OPENAPI===
+<partial OpenAPI 3 YAML here>
+===SCHEMA_SQL===
+<CREATE TABLE statements here, may be empty>
+===END===
+
+Here is the JSON with the observed calls for those endpoints:
+
+""" + summaryJson + "\n";
+    }
+
+    /**
+     * Optional follow-up to local spec inference: better human-facing text only.
+     *
+     * The LLMClient stub looks for the phrase:
+     *  - "Improve the summaries and descriptions"
+     * and the markers ===SUMMARIES=== / ===DESCRIPTIONS=== / ===END===.
+     */
+    public static String buildSpecPolishPrompt(List<String> operations, List<String> schemas) {
+        return PromptStage.SPEC_POLISH.tag() + """
+You are an expert API designer.
+
+Improve the summaries and descriptions of an OpenAPI spec that was inferred
+from captured HTTP traffic. Paths, parameters and schemas are fixed; only
+write better human-facing text.
+
+Operations (operationId: METHOD path (current summary)):
+""" + bulletList(operations) + """
+
+Schemas (name: fields):
+""" + bulletList(schemas) + """
+
+Guidelines:
+- One short line per operation summary (imperative, e.g. "List tasks in a project").
+- One sentence per schema description.
+- Use the operationIds and schema names exactly as given; skip any you cannot improve.
+
+Return the result in the following exact format (no explanation text):
+
+===SUMMARIES===
+<operationId>: <summary>
+===DESCRIPTIONS===
+<SchemaName>: <description>
+===END===
+""";
+    }
+
+    private static String bulletList(Collection<String> items) {
+        if (items.isEmpty()) return "- (none)\n";
+        StringBuilder sb = new StringBuilder();
+        for (String item : items) sb.append("- ").append(item).append("\n");
+        return sb.toString();
+    }
+
     /**
      * Prompt for generating a Spring Boot backend implementation from:
      *  - an OpenAPI spec
@@ -63,12 +163,67 @@ Here is the JSON with observed API calls:
      *  - ===END===
      */
     public static String buildBackendPrompt(String openapiYaml, String schemaSql) {
-        return """
+        return buildBackendPrompt(openapiYaml, schemaSql, GenerationOptions.defaults());
+    }
+
+    /**
+     * Same as {@link #buildBackendPrompt(String, String)}, plus one requirement
+     * block per optional feature enabled in {@code options}.
+     *
+     * Each block starts with a fixed phrase that the LLMClient stub looks for
+     * (e.g. "Add a read-through cache") to emit the matching files.
+     */
+    public static String buildBackendPrompt(String openapiYaml, String schemaSql, GenerationOptions options) {
+        return PromptStage.BACKEND.tag() + """
 You are an expert Java backend engineer.
 
 Generate Spring Boot backend code
 for the following API and database schema.
 
+""" + backendStackRequirements(options) + backendFeatureRequirements(openapiYaml, options)
+                + backendProjectStructure(options) + """
+Return all files in the following exact format:
+
+===FILE:backend/generated/java-backend/pom.xml===
+<pom.xml content>
+...
+===END===
+
+Here is the OpenAPI spec:
+
+""" + openapiYaml + """
+
+Here is the SQL schema:
+
+""" + schemaSql + "\n";
+    }
+
+    private static String backendStackRequirements(GenerationOptions options) {
+        if (options.isReactiveBackend()) {
+            return """
+Requirements:
+- Use Java 17 and Spring Boot 3.
+- Use a reactive stack end to end: Spring WebFlux on Netty and Spring Data R2DBC.
+  No spring-boot-starter-web, no JPA/Hibernate, no JDBC, and no blocking calls
+  (block(), Thread.sleep, blocking I/O) on request paths.
+- Implement REST endpoints that match the OpenAPI spec as functional endpoints:
+  one handler class per resource with Mono<ServerResponse> methods, wired in a RouterFunction bean.
+- Use Spring Data Relational entities (@Table, @Id) that match the provided SQL schema, and
+  ReactiveCrudRepository repositories. Ids are assigned by the application, so entities
+  implement Persistable to be inserted rather than updated.
+- List endpoints stream the repository Flux instead of collecting it:
+  - Accept: application/x-ndjson or text/event-stream -> one JSON object per row as it is read.
+  - Otherwise -> {"data": [...]}, written in chunks while the rows arrive.
+- Include a working persistence setup:
+  - Add io.r2dbc:r2dbc-h2 as a runtime dependency and point spring.r2dbc.url at an in-memory H2 database.
+  - R2DBC does not create tables: put the SQL schema in src/main/resources/schema.sql
+    and set spring.sql.init.mode=always.
+  - Size the R2DBC connection pool (spring.r2dbc.pool.initial-size / max-size).
+- Use constructor injection.
+- Do not include any explanation comments outside of the code.
+""";
+        }
+        return """
 Requirements:
 - Use Java 17 and Spring Boot 3.
 - Use layered architecture: controller, service, repository, entity (JPA).
@@ -80,6 +235,26 @@ Requirements:
 - Use standard Spring Boot annotations (@RestController, @Service, @Entity, etc.).
 - Use constructor injection where possible.
 - Do not include any explanation comments outside of the code.
+""";
+    }
+
+    private static String backendProjectStructure(GenerationOptions options) {
+        if (options.isReactiveBackend()) {
+            return """
+
+Project structure to generate:
+- pom.xml
+- src/main/java/com/clooney/generated/Application.java
+- src/main/java/com/clooney/generated/handler/...Handler.java
+- src/main/java/com/clooney/generated/router/ApiRouter.java
+- src/main/java/com/clooney/generated/repository/...Repository.java
+- src/main/java/com/clooney/generated/entity/...Entity.java
+- src/main/resources/schema.sql
+- src/main/resources/application.yml (R2DBC H2 config)
+
+""";
+        }
+        return """
 
 Project structure to generate:
 - pom.xml
@@ -90,20 +265,182 @@ Project structure to generate:
 - src/main/java/com/clooney/generated/entity/...Entity.java
 - src/main/resources/application.yml (basic H2 config)
 
-Return all files in the following exact format:
+""";
+    }
 
-===FILE:backend/generated/java-backend/pom.xml===
-<pom.xml content>
-...
-===END===
+    /**
+     * Cache, bulk writes and the change feed are built on servlet filters and JPA,
+     * so the reactive stack only gets seed data and fast startup.
+     */
+    private static String backendFeatureRequirements(String openapiYaml, GenerationOptions options) {
+        boolean reactive = options.isReactiveBackend();
+        StringBuilder sb = new StringBuilder();
 
-Here is the OpenAPI spec:
+        if (options.isCacheEnabled() && !reactive) {
+            List<String> readPaths = OpenApiOperations.readPaths(openapiYaml);
+            sb.append("""
 
-""" + openapiYaml + """
+Add a read-through cache for read endpoints:
+- Use Spring Cache (@EnableCaching) backed by Caffeine
+  (spring-boot-starter-cache + com.github.ben-manes.caffeine:caffeine).
+- One named cache per resource, with expireAfterWrite and maximumSize read from
+  clooney.cache.<resource>.ttl-seconds / clooney.cache.<resource>.maximum-size,
+  falling back to clooney.cache.ttl-seconds=%d and clooney.cache.maximum-size=%d.
+- Evict the whole resource cache on every create, update and delete of that resource.
+- Register ShallowEtagHeaderFilter with weak ETags so GET responses carry an ETag
+  and a matching If-None-Match returns 304 Not Modified.
+- Send Cache-Control: no-cache on GET responses, and Last-Modified where the entity
+  has a modification timestamp.
+- Cache these GET endpoints: %s
+""".formatted(options.getCacheTtlSeconds(), options.getCacheMaxEntries(),
+                    readPaths.isEmpty() ? "(all list endpoints)" : String.join(", ", readPaths)));
+        }
 
-Here is the SQL schema:
+        if (options.isBulkEnabled() && !reactive) {
+            sb.append("""
 
-""" + schemaSql + "\n";
+Add bulk write endpoints for every resource:
+- POST /<resource>/batch takes {"data": [...]} and creates all items with repository.saveAll.
+- PUT /<resource>/batch takes {"data": [...]} and updates all items; every item must carry its id (400 otherwise)
+  and every id must already exist: check them with findAllById before saving and reject the whole batch with
+  404 when any is unknown, so saveAll never inserts an unknown id as a new row.
+- POST /<resource>/bulk consumes application/x-ndjson and streams the request body with a Jackson
+  MappingIterator, saving one batch at a time and flushing + clearing the EntityManager between batches.
+  Return {"data": {"inserted": <count>}}. A line that is not valid JSON for the entity is a 400 (map the
+  Jackson parse/mapping exception), and the load is rolled back.
+- Enable JDBC batching: hibernate.jdbc.batch_size=%d, hibernate.order_inserts=true,
+  hibernate.order_updates=true. Use UUID or sequence ids, never IDENTITY, so inserts can batch.
+- Turn off per-statement SQL logging (show-sql, org.hibernate.SQL DEBUG).
+- Seed data with saveAll instead of individual save calls.
+""".formatted(options.getBatchSize()));
+        }
+
+        if (options.isSeedEnabled() && reactive) {
+            sb.append("""
+
+Seed data is provided in data.sql:
+- Do not insert any rows from Java code (no seeding in constructors or ApplicationRunners).
+- src/main/resources/data.sql is generated separately; spring.sql.init runs it after schema.sql.
+- Keep table and column names exactly as in the SQL schema so the seed INSERTs match.
+""");
+        } else if (options.isSeedEnabled()) {
+            sb.append("""
+
+Seed data is provided in data.sql:
+- Do not insert any rows from Java code (no seeding in constructors or CommandLineRunners).
+- src/main/resources/data.sql is generated separately and must run after Hibernate creates the
+  tables: set spring.jpa.defer-datasource-initialization=true and spring.sql.init.mode=always.
+- Keep table and column names exactly as in the SQL schema so the seed INSERTs match.
+""");
+        }
+
+        if (options.isEventsEnabled() && !reactive) {
+            sb.append("""
+
+Add an incremental change feed (Asana /events):
+- An append-only change_events table (id, resource_type, resource_gid, action, created_at) with
+  indexes on (resource_type, id) and (resource_gid, id).
+- A JPA entity listener on every resource entity that appends added/changed/deleted rows in
+  the same transaction as the write. The listener must not take JdbcTemplate, DataSource or a
+  repository directly in its constructor: inject ObjectProvider<...> (or @Lazy) and resolve it on
+  first use, otherwise it forms a bean cycle with the entityManagerFactory.
+- GET /events?resource=<type or gid>&sync=<token>: without a valid token return 412 with
+  {"sync": <latest token>}; otherwise return only events after the token as
+  {"data": [...], "sync": <next token>, "has_more": <bool>}, 100 events per page.
+  Query by id range on the index, never by scanning the resource tables.
+""");
+        }
+
+        if (options.isFastStartup()) {
+            sb.append("""
+
+Optimize for fast startup (the app is started and stopped many times per CI run):
+- In pom.xml, run the spring-boot-maven-plugin process-aot goal.
+- In the package phase, extract the jar (java -Djarmode=tools -jar <jar> extract --force
+  --destination target/app) and train a CDS archive with
+  java -XX:ArchiveClassesAtExit=target/app/app.jsa -Dspring.context.exit=onRefresh
+  -Dspring.aot.enabled=true -jar target/app/<jar> (exec-maven-plugin).
+- Add run-fast.sh starting the extracted jar with -XX:SharedArchiveFile=target/app/app.jsa
+  and -Dspring.aot.enabled=true.
+- Set spring.main.lazy-initialization=true, spring.jmx.enabled=false and, with JPA,
+  spring.jpa.open-in-view=false. Keep beans that must run at startup (data loaders, schedulers)
+  eager with @Lazy(false).
+- Keep the build compatible with the spring-boot-starter-parent "native" profile (GraalVM),
+  e.g. no runtime classpath scanning or reflection the AOT engine cannot see.
+""");
+        }
+
+        if (options.isMetricsEnabled()) {
+            StringBuilder operations = new StringBuilder();
+            for (OpenApiOperations.Operation op : OpenApiOperations.parse(openapiYaml)) {
+                operations.append("  - ").append(op.method()).append(' ').append(op.path())
+                        .append(" -> ").append(op.metricName()).append('\n');
+            }
+            String slo = options.getMetricsSloMs().replace(",", "ms,") + "ms";
+            sb.append("""
+
+Instrument the backend with metrics:
+- Add spring-boot-starter-actuator and io.micrometer:micrometer-registry-prometheus; expose
+  health, info, metrics and prometheus (GET /actuator/prometheus) via management.endpoints.web.exposure.include.
+- Time every API operation with a Micrometer Timer named after its OpenAPI operationId and tagged
+  with method, status and outcome. Record them in one request filter (%s) that matches
+  method + path against this table, instead of annotating each handler:
+%s- Publish percentile histograms and SLO buckets for these timers and for http.server.requests:
+  management.metrics.distribution.percentiles-histogram.api=true,
+  management.metrics.distribution.slo.api=%s, and the same for http.server.requests.
+- Keep the JVM, process and system metrics the actuator binds by default.
+""".formatted(reactive ? "a WebFilter" : "a servlet filter",
+                    operations.length() == 0 ? "  (all operations of the OpenAPI spec)\n" : operations, slo));
+            sb.append(reactive ? """
+- Keep the R2DBC connection pool enabled so its r2dbc.pool.* metrics are bound.
+""" : """
+- Bind HikariCP pool metrics (set spring.datasource.hikari.pool-name) and Hibernate statistics:
+  add org.hibernate.orm:hibernate-micrometer and set hibernate.generate_statistics=true.
+""");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Prompt for repairing generated files that failed to compile.
+     *
+     * Takes the javac diagnostics (path:line:column: message) and the current
+     * content of the files they point at; asks for corrected versions of those
+     * files only, in the same ===FILE:...=== format.
+     *
+     * The LLMClient stub looks for the phrase:
+     *  - "Fix the compilation errors"
+     */
+    public static String buildRepairPrompt(String diagnostics, Map<String, String> brokenFiles) {
+        StringBuilder files = new StringBuilder();
+        for (Map.Entry<String, String> file : brokenFiles.entrySet()) {
+            files.append("===FILE:").append(file.getKey()).append("===\n")
+                    .append(file.getValue()).append("\n");
+        }
+        files.append("===END===\n");
+
+        return PromptStage.REPAIR.tag() + """
+You are an expert Java backend engineer.
+
+Fix the compilation errors
+in the following generated Spring Boot files.
+
+Requirements:
+- Return every file listed below, corrected, with the same relative path.
+- Do not return files that are not listed.
+- Keep the existing behaviour, package names and public API; change only what is needed to compile.
+- Do not include any explanation text; only code.
+
+Return the files in the following format:
+
+===FILE:relative/path===
+<file content>
+===END===
+
+Compiler errors:
+
+""" + diagnostics + "\n\nFiles:\n\n" + files;
     }
 
     /**
@@ -116,7 +453,7 @@ Here is the SQL schema:
      *  - ===END===
      */
     public static String buildTestsPrompt(String openapiYaml) {
-        return """
+        return PromptStage.TESTS.tag() + """
 You are an expert in API testing with JUnit 5 and RestAssured.
 
 Generate JUnit tests using RestAssured
@@ -129,7 +466,14 @@ Requirements:
 - For each endpoint, include:
   - A happy-path test.
   - At least one edge-case / negative test if appropriate.
-- Make the base URI configurable at the top of each test class (localhost:8080 by default).
+- Make the base URI configurable at the top of each test class (localhost:8080 by default),
+  read from the api.baseUrl system property.
+- Tests run in parallel (JUnit 5 concurrent classes and methods), so:
+  - Never assign RestAssured static fields (baseURI, port, basePath, filters, config).
+  - Build one immutable RequestSpecification per class with RequestSpecBuilder
+    and use given(SPEC) in every test.
+  - Keep tests independent: no shared mutable state, no ordering between tests,
+    create any data a test needs inside that test.
 - Do not include any explanation text; only code.
 
 Return the tests in the following format:
@@ -0,0 +1,203 @@
+package com.clooney.agent.spec;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.representer.Representer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Merges a partial spec produced by a delta prompt into the existing documents.
+ *
+ *  - openapi.yaml: operations of the partial "paths" replace the same method on the
+ *    same path (a path whose template differs only in parameter names counts as the
+ *    same path); components.schemas replace schemas with the same name.
+ *  - schema.sql: a CREATE TABLE replaces the statement for the same table, new
+ *    tables go before the first statement that is not a CREATE TABLE (so ALTER
+ *    TABLE ... ADD FOREIGN KEY still runs after every table exists), and other
+ *    statements are appended unless already present.
+ *
+ * Nothing is ever removed: an endpoint missing from a capture is not evidence that
+ * the API dropped it.
+ */
+final class SpecMerger {
+
+    private static final Pattern CREATE_TABLE =
+            Pattern.compile("(?is)^\\s*CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?[\"`]?(\\w+)");
+
+    private SpecMerger() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static String mergeOpenApi(String existingYaml, String partialYaml) {
+        Map<String, Object> doc = load(existingYaml);
+        Map<String, Object> partial = load(partialYaml);
+
+        Map<String, Object> paths = (Map<String, Object>) doc.computeIfAbsent("paths", k -> new LinkedHashMap<>());
+        if (partial.get("paths") instanceof Map<?, ?> newPaths) {
+            for (Map.Entry<?, ?> entry : newPaths.entrySet()) {
+                String path = String.valueOf(entry.getKey());
+                if (!(entry.getValue() instanceof Map<?, ?> operations)) continue;
+
+                String key = existingTemplate(paths, path);
+                Map<String, Object> item = paths.get(key) instanceof Map<?, ?> m
+                        ? (Map<String, Object>) m
+                        : new LinkedHashMap<>();
+                operations.forEach((method, op) -> item.put(String.valueOf(method), op));
+                paths.put(key, item);
+            }
+        }
+
+        if (partial.get("components") instanceof Map<?, ?> components
+                && components.get("schemas") instanceof Map<?, ?> newSchemas) {
+            Map<String, Object> docComponents =
+                    (Map<String, Object>) doc.computeIfAbsent("components", k -> new LinkedHashMap<>());
+            Map<String, Object> schemas =
+                    (Map<String, Object>) docComponents.computeIfAbsent("schemas", k -> new LinkedHashMap<>());
+            newSchemas.forEach((name, schema) -> schemas.put(String.valueOf(name), schema));
+        }
+
+        return toYaml(doc);
+    }
+
+    static String mergeSchemaSql(String existingSql, String partialSql) {
+        List<String> statements = statements(existingSql);
+        for (String statement : statements(partialSql)) {
+            String table = tableName(statement);
+            if (table == null) {
+                if (statements.stream().noneMatch(s -> sameStatement(s, statement))) statements.add(statement);
+                continue;
+            }
+            int existing = -1;
+            int firstOther = statements.size();
+            for (int i = 0; i < statements.size(); i++) {
+                String name = tableName(statements.get(i));
+                if (table.equalsIgnoreCase(name)) existing = i;
+                if (name == null && firstOther == statements.size()) firstOther = i;
+            }
+            if (existing >= 0) {
+                statements.set(existing, statement);
+            } else {
+                statements.add(firstOther, statement);
+            }
+        }
+        return String.join(";\n\n", statements) + (statements.isEmpty() ? "" : ";");
+    }
+
+    // ===========================
+    // EXISTING NAMES (for the delta prompt)
+    // ===========================
+    static List<String> schemaNames(String openapiYaml) {
+        List<String> res = new ArrayList<>();
+        Map<String, Object> doc = load(openapiYaml);
+        if (doc.get("components") instanceof Map<?, ?> components
+                && components.get("schemas") instanceof Map<?, ?> schemas) {
+            schemas.keySet().forEach(name -> res.add(String.valueOf(name)));
+        }
+        return res;
+    }
+
+    static List<String> tableNames(String schemaSql) {
+        List<String> res = new ArrayList<>();
+        for (String statement : statements(schemaSql)) {
+            String table = tableName(statement);
+            if (table != null) res.add(table);
+        }
+        return res;
+    }
+
+    private static String existingTemplate(Map<String, Object> paths, String path) {
+        String normalized = normalize(path);
+        for (String existing : paths.keySet()) {
+            if (normalize(existing).equals(normalized)) return existing;
+        }
+        return path;
+    }
+
+    // "/tasks/{task_gid}/" -> "/tasks/{}"
+    private static String normalize(String path) {
+        String res = path.replaceAll("\\{[^}/]*}", "{}").toLowerCase(Locale.ROOT);
+        return res.length() > 1 && res.endsWith("/") ? res.substring(0, res.length() - 1) : res;
+    }
+
+    // Splits on the ";" that end statements, not those inside literals, quoted names or comments
+    private static List<String> statements(String sql) {
+        List<String> res = new ArrayList<>();
+        if (sql == null) return res;
+        int start = 0;
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                // '' inside a literal closes and reopens it, which lands in the same place
+                int end = sql.indexOf(c, i + 1);
+                i = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? sql.length() : end + 2;
+            } else if (c == ';') {
+                addStatement(res, sql.substring(start, i));
+                start = ++i;
+            } else {
+                i++;
+            }
+        }
+        addStatement(res, sql.substring(start));
+        return res;
+    }
+
+    // A piece that is only comments and whitespace is not a statement; a trailing
+    // line comment keeps its newline so the ";" joined after it is not commented out
+    private static void addStatement(List<String> statements, String piece) {
+        if (withoutLeadingComments(piece).isBlank()) return;
+        String statement = piece.strip();
+        statements.add(statement.substring(statement.lastIndexOf('\n') + 1).contains("--") ? statement + "\n" : statement);
+    }
+
+    private static String withoutLeadingComments(String statement) {
+        String res = statement.strip();
+        while (res.startsWith("--") || res.startsWith("/*")) {
+            int end = res.startsWith("--") ? res.indexOf('\n') : res.indexOf("*/");
+            if (end < 0) return "";
+            res = res.substring(end + (res.startsWith("--") ? 1 : 2)).strip();
+        }
+        return res;
+    }
+
+    private static boolean sameStatement(String a, String b) {
+        return withoutLeadingComments(a).replaceAll("\\s+", " ")
+                .equalsIgnoreCase(withoutLeadingComments(b).replaceAll("\\s+", " "));
+    }
+
+    private static String tableName(String statement) {
+        Matcher m = CREATE_TABLE.matcher(withoutLeadingComments(statement));
+        return m.find() ? m.group(1) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> load(String yaml) {
+        if (yaml == null || yaml.isBlank()) return new LinkedHashMap<>();
+        Object root = new Yaml(new SafeConstructor(new LoaderOptions())).load(yaml);
+        return root instanceof Map<?, ?> m ? (Map<String, Object>) m : new LinkedHashMap<>();
+    }
+
+    static String toYaml(Map<String, Object> doc) {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(2);
+        options.setPrettyFlow(true);
+        options.setWidth(120);
+        return new Yaml(new SafeConstructor(new LoaderOptions()), new Representer(options), options).dump(doc).strip();
+    }
+}
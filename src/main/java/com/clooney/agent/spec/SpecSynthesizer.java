@@ -1,66 +1,254 @@
 package com.clooney.agent.spec;
 
+import com.clooney.agent.config.GenerationOptions;
 import com.clooney.agent.inspect.APICall;
 import com.clooney.agent.llm.LLMClient;
+import com.clooney.agent.spec.OpenApiOperations.Operation;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 public class SpecSynthesizer {
 
+    // Shapes of the clusters the current spec was synthesized from (see CaptureClusters#shapes)
+    static final String CLUSTERS_FILE = "spec-clusters.json";
+
     private final Path logsDir;
     private final Path outputDir;
     private final LLMClient llm;
+    private final GenerationOptions options;
     private final ObjectMapper mapper = new ObjectMapper();
 
     public SpecSynthesizer(Path logsDir, Path outputDir, LLMClient llm) {
+        this(logsDir, outputDir, llm, GenerationOptions.defaults());
+    }
+
+    /**
+     * Honours CLOONEY_SPEC_ENGINE=local (no LLM, see {@link LocalSpecInference}) and
+     * CLOONEY_SPEC_DELTA (prompt only for new or changed endpoint clusters and merge
+     * the answer into the existing openapi.yaml).
+     */
+    public SpecSynthesizer(Path logsDir, Path outputDir, LLMClient llm, GenerationOptions options) {
         this.logsDir = logsDir;
         this.outputDir = outputDir;
         this.llm = llm;
+        this.options = options;
     }
 
     public void synthesize() {
-        List<APICall> allCalls = loadAllCalls();
-        Map<String, List<APICall>> clusters = clusterByEndpoint(allCalls);
+        CaptureClusters captures = new CaptureClusters(logsDir);
+        captures.loadAll();
+        synthesize(captures.clusters());
+    }
+
+    /**
+     * Synthesize from clusters that are already in memory (e.g. kept warm by watch mode).
+     */
+    public void synthesize(Map<String, List<APICall>> clusters) {
+        if ("local".equals(options.getSpecEngine())) {
+            synthesizeLocal(clusters);
+            return;
+        }
+        if (options.isSpecDelta() && Files.exists(outputDir.resolve("openapi.yaml"))) {
+            synthesizeDelta(clusters);
+            return;
+        }
+
         String prompt = buildPrompt(clusters);
         String completion = llm.complete(prompt);
 
         String openapi = extractBetween(completion, "===OPENAPI===", "===SCHEMA_SQL===");
         String schemaSql = extractBetween(completion, "===SCHEMA_SQL===", "===END===");
+        write(openapi, schemaSql, CaptureClusters.shapesOf(clusters));
+    }
+
+    // ===========================
+    // LOCAL
+    // ===========================
+    private void synthesizeLocal(Map<String, List<APICall>> clusters) {
+        long start = System.nanoTime();
+        LocalSpecInference inference = new LocalSpecInference(clusters);
+        Map<String, Object> openapi = inference.openApi();
+        String schemaSql = inference.schemaSql();
+        System.out.println("[Clooney] Inferred spec locally from " + clusters.size() + " endpoint cluster(s) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+
+        if (options.isSpecPolish()) {
+            polish(openapi);
+        }
+        write(SpecMerger.toYaml(openapi), schemaSql, CaptureClusters.shapesOf(clusters));
+    }
+
+    /**
+     * The model only gets to rename things for humans: operation summaries and
+     * schema descriptions. Paths, parameters and types stay exactly as inferred.
+     */
+    @SuppressWarnings("unchecked")
+    private void polish(Map<String, Object> openapi) {
+        Map<String, Map<String, Object>> operations = new LinkedHashMap<>();
+        List<String> operationLines = new ArrayList<>();
+        ((Map<String, Object>) openapi.get("paths")).forEach((path, item) ->
+                ((Map<String, Object>) item).forEach((method, op) -> {
+                    Map<String, Object> operation = (Map<String, Object>) op;
+                    String id = String.valueOf(operation.get("operationId"));
+                    operations.put(id, operation);
+                    operationLines.add(id + ": " + method.toUpperCase() + " " + path + " (" + operation.get("summary") + ")");
+                }));
+
+        Map<String, Map<String, Object>> schemas = new LinkedHashMap<>();
+        List<String> schemaLines = new ArrayList<>();
+        if (openapi.get("components") instanceof Map<?, ?> components
+                && components.get("schemas") instanceof Map<?, ?> all) {
+            all.forEach((name, schema) -> {
+                Map<String, Object> s = (Map<String, Object>) schema;
+                schemas.put(String.valueOf(name), s);
+                Object properties = s.get("properties");
+                schemaLines.add(name + ": " + (properties instanceof Map<?, ?> p ? String.join(", ", (Iterable<String>) p.keySet()) : ""));
+            });
+        }
+
+        String completion = llm.complete(Prompts.buildSpecPolishPrompt(operationLines, schemaLines));
+        int summaries = applyLines(extractBetween(completion, "===SUMMARIES===", "===DESCRIPTIONS==="), operations, "summary");
+        int descriptions = applyLines(extractBetween(completion, "===DESCRIPTIONS===", "===END==="), schemas, "description");
+        System.out.println("[Clooney] Polished " + summaries + " summaries and " + descriptions + " schema descriptions.");
+    }
+
+    // "key: text" lines; unknown keys are ignored
+    private static int applyLines(String section, Map<String, Map<String, Object>> targets, String field) {
+        int applied = 0;
+        for (String line : section.split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) continue;
+            Map<String, Object> target = targets.get(line.substring(0, colon).trim());
+            String text = line.substring(colon + 1).trim();
+            if (target != null && !text.isEmpty()) {
+                target.put(field, text);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    // ===========================
+    // DELTA
+    // ===========================
 
+    /**
+     * An endpoint cluster is sent to the LLM when its shape differs from the one
+     * recorded at the last synthesis, or (without a record) when no operation of
+     * the existing spec matches it. Endpoints that disappeared from the captures
+     * are kept in the spec.
+     */
+    private void synthesizeDelta(Map<String, List<APICall>> clusters) {
         try {
-            Files.createDirectories(outputDir);
-            Files.writeString(outputDir.resolve("openapi.yaml"), openapi);
-            Files.writeString(outputDir.resolve("schema.sql"), schemaSql);
+            String existingOpenapi = Files.readString(outputDir.resolve("openapi.yaml"));
+            Path schemaFile = outputDir.resolve("schema.sql");
+            String existingSchema = Files.exists(schemaFile) ? Files.readString(schemaFile) : "";
+
+            Map<String, String> recorded = readRecordedShapes();
+            Map<String, String> shapes = CaptureClusters.shapesOf(clusters);
+            List<Operation> operations = OpenApiOperations.parse(existingOpenapi);
+
+            Map<String, List<APICall>> changed = new TreeMap<>();
+            for (Map.Entry<String, List<APICall>> cluster : clusters.entrySet()) {
+                String endpoint = cluster.getKey();
+                boolean stale = recorded.containsKey(endpoint)
+                        ? !recorded.get(endpoint).equals(shapes.get(endpoint))
+                        : !covered(endpoint, operations);
+                if (stale) changed.put(endpoint, cluster.getValue());
+            }
+
+            if (changed.isEmpty()) {
+                System.out.println("[Clooney] Spec up to date with " + clusters.size() + " endpoint(s); no LLM call.");
+                write(existingOpenapi, existingSchema, shapes);
+                return;
+            }
+
+            System.out.println("[Clooney] Delta spec synthesis for " + changed.size() + " of "
+                    + clusters.size() + " endpoint(s): " + changed.keySet());
+            List<String> existingPaths = new ArrayList<>();
+            for (Operation op : operations) existingPaths.add(op.method() + " " + op.path());
+            String prompt = Prompts.buildSpecDeltaPrompt(
+                    new ArrayList<>(changed.keySet()),
+                    mapper.writerWithDefaultPrettyPrinter().writeValueAsString(changed),
+                    existingPaths,
+                    SpecMerger.schemaNames(existingOpenapi),
+                    SpecMerger.tableNames(existingSchema));
+            String completion = llm.complete(prompt);
+
+            String partialOpenapi = extractBetween(completion, "===OPENAPI===", "===SCHEMA_SQL===");
+            String openapi = SpecMerger.mergeOpenApi(existingOpenapi, partialOpenapi);
+            String schemaSql = SpecMerger.mergeSchemaSql(existingSchema,
+                    extractBetween(completion, "===SCHEMA_SQL===", "===END==="));
+
+            // A changed endpoint the completion left out keeps its old shape (or none),
+            // so the next run sends it again instead of treating it as done
+            List<Operation> merged = OpenApiOperations.parse(partialOpenapi);
+            Map<String, String> recordable = new TreeMap<>(shapes);
+            List<String> missed = new ArrayList<>();
+            for (String endpoint : changed.keySet()) {
+                if (covered(endpoint, merged)) continue;
+                missed.add(endpoint);
+                if (recorded.containsKey(endpoint)) recordable.put(endpoint, recorded.get(endpoint));
+                else recordable.remove(endpoint);
+            }
+            if (!missed.isEmpty()) {
+                System.out.println("[Clooney] Delta completion did not cover " + missed + "; they stay pending.");
+            }
+            write(openapi, schemaSql, recordable);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private List<APICall> loadAllCalls() {
-        List<APICall> res = new ArrayList<>();
-        if (!Files.exists(logsDir)) return res;
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(logsDir, "raw_*.json")) {
-            for (Path file : stream) {
-                APICall[] arr = mapper.readValue(file.toFile(), APICall[].class);
-                res.addAll(Arrays.asList(arr));
+    private static boolean covered(String endpoint, List<Operation> operations) {
+        int space = endpoint.indexOf(' ');
+        String method = endpoint.substring(0, space);
+        String path = endpoint.substring(space + 1);
+        for (Operation op : operations) {
+            if (op.method().equalsIgnoreCase(method) && OpenApiOperations.pathPattern(op.path()).matcher(path).matches()) {
+                return true;
             }
+        }
+        return false;
+    }
+
+    private Map<String, String> readRecordedShapes() {
+        Path file = outputDir.resolve(CLUSTERS_FILE);
+        if (!Files.exists(file)) return Map.of();
+        try {
+            return mapper.readValue(file.toFile(), new TypeReference<TreeMap<String, String>>() { });
         } catch (IOException e) {
-            // ignore in stub
+            System.err.println("[Clooney] Ignoring unreadable " + CLUSTERS_FILE + ": " + e.getMessage());
+            return Map.of();
+        }
+    }
+
+    // shapes: endpoint -> shape the written spec reflects
+    private void write(String openapi, String schemaSql, Map<String, String> shapes) {
+        try {
+            Files.createDirectories(outputDir);
+            writeIfChanged(outputDir.resolve("openapi.yaml"), openapi);
+            writeIfChanged(outputDir.resolve("schema.sql"), schemaSql);
+            mapper.writerWithDefaultPrettyPrinter()
+                    .writeValue(outputDir.resolve(CLUSTERS_FILE).toFile(), shapes);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        return res;
     }
 
-    private Map<String, List<APICall>> clusterByEndpoint(List<APICall> calls) {
-        return calls.stream().collect(Collectors.groupingBy(
-                c -> c.method + " " + c.path
-        ));
+    // Leaves the file (and its mtime) alone when nothing changed, so checkpoints stay valid
+    private static void writeIfChanged(Path file, String content) throws IOException {
+        if (Files.exists(file) && Files.readString(file).equals(content)) return;
+        Files.writeString(file, content);
     }
 
     private String buildPrompt(Map<String, List<APICall>> clusters) {
@@ -0,0 +1,146 @@
+package com.clooney.agent.tests;
+
+import com.clooney.agent.inspect.APICall;
+import com.clooney.agent.inspect.CallStore;
+import com.clooney.agent.inspect.CapturePolicy;
+import com.clooney.agent.spec.OpenApiOperations;
+import com.clooney.agent.spec.OpenApiOperations.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a standalone load-test module (tests/load) for the generated backend.
+ *
+ * Responsibilities:
+ *  - Read the operations from openapi.yaml.
+ *  - Match captured calls (raw_*.json) to those operations to get a request mix
+ *    weighted by observed call frequency, with recorded paths/bodies as samples.
+ *  - Write a Maven module with a JDK HttpClient load generator (closed and open
+ *    loop) that reports throughput and p50/p99/p999 latency as JSON.
+ *
+ * No LLM call is needed: the runner is a fixed template and the mix is data.
+ */
+public class LoadTestSynthesizer {
+
+    private static final int MAX_SAMPLES_PER_ENDPOINT = 20;
+
+    private final Path logsDir;
+    private final Path specDir;
+    private final Path outputDir;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public LoadTestSynthesizer(Path logsDir, Path specDir, Path outputDir) {
+        this.logsDir = logsDir;
+        this.specDir = specDir;
+        this.outputDir = outputDir; // e.g. tests/load
+    }
+
+    public void synthesizeLoadTests() {
+        try {
+            String openapi = Files.readString(specDir.resolve("openapi.yaml"));
+            List<Map<String, Object>> mix = buildMix(OpenApiOperations.parse(openapi), loadAllCalls());
+
+            Path javaDir = outputDir.resolve("src/main/java/tests/load");
+            Path resourcesDir = outputDir.resolve("src/main/resources");
+            Files.createDirectories(javaDir);
+            Files.createDirectories(resourcesDir);
+
+            Files.writeString(outputDir.resolve("pom.xml"), LoadTestTemplates.pom());
+            Files.writeString(javaDir.resolve("LoadTest.java"), LoadTestTemplates.loadTest());
+            Files.writeString(javaDir.resolve("RequestMix.java"), LoadTestTemplates.requestMix());
+            Files.writeString(javaDir.resolve("LatencyHistogram.java"), LoadTestTemplates.latencyHistogram());
+            mapper.writerWithDefaultPrettyPrinter().writeValue(resourcesDir.resolve("mix.json").toFile(), mix);
+
+            System.out.println("[Clooney] Wrote load-test module with " + mix.size()
+                    + " endpoints into " + outputDir.toAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private List<APICall> loadAllCalls() {
+        List<APICall> res = new ArrayList<>();
+        try {
+            for (Path file : CallStore.logFiles(logsDir)) {
+                res.addAll(CallStore.readCalls(file));
+            }
+        } catch (IOException e) {
+            System.err.println("[Clooney] Could not read capture logs for the load mix: " + e.getMessage());
+        }
+        return res;
+    }
+
+    /**
+     * One entry per operation: weight = number of matching captured calls.
+     * Operations never observed only make it in when they need no path parameters
+     * (weight 1), since there is no concrete value to send otherwise.
+     * DELETE is left out so a run does not empty the data set it measures.
+     */
+    List<Map<String, Object>> buildMix(List<Operation> operations, List<APICall> calls) {
+        List<Map<String, Object>> mix = new ArrayList<>();
+        for (Operation op : operations) {
+            if ("DELETE".equals(op.method())) continue;
+
+            Pattern template = OpenApiOperations.pathPattern(op.path());
+            List<APICall> matching = calls.stream()
+                    .filter(c -> op.method().equalsIgnoreCase(c.method))
+                    .filter(c -> c.status / 100 == 2)
+                    .filter(c -> c.path != null && template.matcher(c.path).matches())
+                    .filter(c -> !CapturePolicy.isCapMarker(c.requestBody))
+                    .collect(Collectors.toList());
+
+            Set<Map<String, Object>> samples = new LinkedHashSet<>();
+            for (APICall call : matching) {
+                if (samples.size() == MAX_SAMPLES_PER_ENDPOINT) break;
+                samples.add(sample(call.path + queryString(call.query), call.requestBody));
+            }
+
+            boolean hasPathParams = op.path().contains("{");
+            if (samples.isEmpty()) {
+                if (hasPathParams || !op.isRead()) continue;
+                samples.add(sample(op.path(), null));
+            }
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("method", op.method());
+            entry.put("path", op.path());
+            entry.put("operationId", op.operationId());
+            entry.put("weight", Math.max(1, matching.size()));
+            entry.put("samples", new ArrayList<>(samples));
+            mix.add(entry);
+        }
+        return mix;
+    }
+
+    private Map<String, Object> sample(String path, Object body) {
+        Map<String, Object> sample = new LinkedHashMap<>();
+        sample.put("path", path);
+        if (body != null) {
+            try {
+                sample.put("body", body instanceof String s ? s : mapper.writeValueAsString(body));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return sample;
+    }
+
+    // Captured query values are still in their raw, already-encoded form
+    private static String queryString(Map<String, Object> query) {
+        if (query == null || query.isEmpty()) return "";
+        return query.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining("&", "?", ""));
+    }
+}
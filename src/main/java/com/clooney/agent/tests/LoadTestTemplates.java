@@ -0,0 +1,427 @@
+package com.clooney.agent.tests;
+
+/**
+ * Fixed sources of the generated load-test module (tests/load).
+ * Only mix.json changes between generations.
+ */
+final class LoadTestTemplates {
+
+    private LoadTestTemplates() {
+    }
+
+    static String pom() {
+        return """
+<project xmlns="http://maven.apache.org/POM/4.0.0"
+         xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+         xsi:schemaLocation="http://maven.apache.org/POM/4.0.0 https://maven.apache.org/xsd/maven-4.0.0.xsd">
+    <modelVersion>4.0.0</modelVersion>
+
+    <groupId>com.clooney.tests</groupId>
+    <artifactId>asana-clone-load-tests</artifactId>
+    <version>0.0.1-SNAPSHOT</version>
+    <name>Asana Clone Load Tests</name>
+    <description>JDK HttpClient load generator for the generated backend</description>
+
+    <properties>
+        <maven.compiler.source>17</maven.compiler.source>
+        <maven.compiler.target>17</maven.compiler.target>
+        <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>
+    </properties>
+
+    <dependencies>
+        <dependency>
+            <groupId>com.fasterxml.jackson.core</groupId>
+            <artifactId>jackson-databind</artifactId>
+            <version>2.17.1</version>
+        </dependency>
+    </dependencies>
+
+    <build>
+        <plugins>
+            <plugin>
+                <groupId>org.codehaus.mojo</groupId>
+                <artifactId>exec-maven-plugin</artifactId>
+                <version>3.1.0</version>
+                <configuration>
+                    <mainClass>tests.load.LoadTest</mainClass>
+                </configuration>
+            </plugin>
+        </plugins>
+    </build>
+</project>
+""";
+    }
+
+    static String loadTest() {
+        return """
+package tests.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for the generated backend, driven by mix.json.
+ *
+ * Usage (from tests/load):
+ *   mvn -q compile exec:java -Dexec.args="--mode=closed --concurrency=32 --duration=30"
+ *   mvn -q compile exec:java -Dexec.args="--mode=open --rate=500 --duration=30"
+ *
+ * Options: --base-url (default http://localhost:8080), --mode=closed|open,
+ * --concurrency (closed), --rate in req/s (open), --duration and --warmup in seconds,
+ * --max-in-flight (open), --report (default target/load-report.json).
+ *
+ * closed: N workers each send their next request as soon as the previous one completes.
+ * open:   requests start on a fixed schedule whatever the response times; latency is
+ *         measured from the scheduled start so queueing delay is not hidden.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String baseUrl = opts.getOrDefault("base-url", System.getProperty("api.baseUrl", "http://localhost:8080"));
+        String mode = opts.getOrDefault("mode", "closed");
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "16"));
+        double rate = Double.parseDouble(opts.getOrDefault("rate", "200"));
+        int maxInFlight = Integer.parseInt(opts.getOrDefault("max-in-flight", "10000"));
+        long durationSeconds = Long.parseLong(opts.getOrDefault("duration", "30"));
+        long warmupSeconds = Long.parseLong(opts.getOrDefault("warmup", "5"));
+        Path report = Path.of(opts.getOrDefault("report", "target/load-report.json"));
+
+        RequestMix mix = RequestMix.load(baseUrl);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        System.out.println("[LoadTest] " + mode + " loop against " + baseUrl + ", "
+                + mix.size() + " endpoints, warmup " + warmupSeconds + "s, measuring " + durationSeconds + "s");
+
+        Stats warmup = new Stats(mix);
+        Stats measured = new Stats(mix);
+        if (mode.equals("open")) {
+            runOpen(client, mix, rate, maxInFlight, warmupSeconds, warmup);
+            runOpen(client, mix, rate, maxInFlight, durationSeconds, measured);
+        } else {
+            runClosed(client, mix, concurrency, warmupSeconds, warmup);
+            runClosed(client, mix, concurrency, durationSeconds, measured);
+        }
+
+        Map<String, Object> json = measured.toJson(mode, durationSeconds);
+        json.put("config", Map.of(
+                "baseUrl", baseUrl,
+                "concurrency", concurrency,
+                "rate", rate,
+                "warmupSeconds", warmupSeconds));
+
+        ObjectMapper mapper = new ObjectMapper();
+        if (report.getParent() != null) Files.createDirectories(report.getParent());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), json);
+        System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json.get("overall")));
+        System.out.println("[LoadTest] Report written to " + report.toAbsolutePath());
+    }
+
+    private static void runClosed(HttpClient client, RequestMix mix, int concurrency,
+                                  long seconds, Stats stats) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Thread[] workers = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    RequestMix.Entry entry = mix.next(random);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(entry.request(random),
+                                HttpResponse.BodyHandlers.discarding());
+                        stats.record(entry, System.nanoTime() - start, response.statusCode());
+                    } catch (IOException e) {
+                        stats.record(entry, System.nanoTime() - start, -1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "load-worker-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static void runOpen(HttpClient client, RequestMix mix, double rate, int maxInFlight,
+                                long seconds, Stats stats) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger inFlight = new AtomicInteger();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (long scheduled = System.nanoTime(); scheduled < end; scheduled += intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            RequestMix.Entry entry = mix.next(random);
+            if (inFlight.get() >= maxInFlight) {
+                stats.drop(entry);
+                continue;
+            }
+            inFlight.incrementAndGet();
+            long intendedStart = scheduled;
+            client.sendAsync(entry.request(random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        int status = error != null ? -1 : response.statusCode();
+                        stats.record(entry, System.nanoTime() - intendedStart, status);
+                        inFlight.decrementAndGet();
+                    });
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            String[] kv = arg.substring(2).split("=", 2);
+            opts.put(kv[0], kv.length > 1 ? kv[1] : "true");
+        }
+        return opts;
+    }
+
+    /**
+     * Per-endpoint and overall counters; safe for concurrent recording.
+     */
+    static final class Stats {
+
+        private final Map<String, EndpointStats> byEndpoint = new LinkedHashMap<>();
+        private final EndpointStats overall = new EndpointStats();
+
+        Stats(RequestMix mix) {
+            for (RequestMix.Entry entry : mix.entries()) {
+                byEndpoint.put(entry.key(), new EndpointStats());
+            }
+        }
+
+        void record(RequestMix.Entry entry, long latencyNanos, int status) {
+            byEndpoint.get(entry.key()).record(latencyNanos, status);
+            overall.record(latencyNanos, status);
+        }
+
+        void drop(RequestMix.Entry entry) {
+            byEndpoint.get(entry.key()).dropped.incrementAndGet();
+            overall.dropped.incrementAndGet();
+        }
+
+        Map<String, Object> toJson(String mode, long seconds) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("mode", mode);
+            json.put("durationSeconds", seconds);
+            json.put("overall", overall.toJson(seconds));
+            Map<String, Object> endpoints = new LinkedHashMap<>();
+            byEndpoint.forEach((key, s) -> endpoints.put(key, s.toJson(seconds)));
+            json.put("endpoints", endpoints);
+            return json;
+        }
+    }
+
+    static final class EndpointStats {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+
+        void record(long latencyNanos, int status) {
+            latency.record(latencyNanos);
+            if (status < 200 || status >= 400) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Map<String, Object> toJson(long seconds) {
+            long count = latency.count();
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("requests", count);
+            json.put("errors", errors.get());
+            json.put("dropped", dropped.get());
+            json.put("throughputRps", seconds == 0 ? 0 : (double) count / seconds);
+            json.put("p50Ms", latency.percentileMillis(50));
+            json.put("p99Ms", latency.percentileMillis(99));
+            json.put("p999Ms", latency.percentileMillis(99.9));
+            json.put("maxMs", latency.maxMillis());
+            return json;
+        }
+    }
+}
+""";
+    }
+
+    static String requestMix() {
+        return """
+package tests.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted request mix read from mix.json (generated from openapi.yaml and capture logs).
+ * Requests are built once up front and reused for every send.
+ */
+public final class RequestMix {
+
+    public record Entry(String key, List<HttpRequest> requests) {
+
+        HttpRequest request(Random random) {
+            return requests.get(requests.size() == 1 ? 0 : random.nextInt(requests.size()));
+        }
+    }
+
+    private final List<Entry> entries;
+    private final long[] cumulativeWeights;
+
+    private RequestMix(List<Entry> entries, long[] cumulativeWeights) {
+        this.entries = entries;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    public static RequestMix load(String baseUrl) throws IOException {
+        JsonNode root;
+        try (InputStream in = RequestMix.class.getResourceAsStream("/mix.json")) {
+            if (in == null) throw new IllegalStateException("mix.json not found on the classpath");
+            root = new ObjectMapper().readTree(in);
+        }
+
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        List<Entry> entries = new ArrayList<>();
+        long[] cumulative = new long[root.size()];
+        long total = 0;
+        for (JsonNode node : root) {
+            String method = node.get("method").asText();
+            List<HttpRequest> requests = new ArrayList<>();
+            for (JsonNode sample : node.get("samples")) {
+                HttpRequest.BodyPublisher body = sample.hasNonNull("body")
+                        ? HttpRequest.BodyPublishers.ofString(sample.get("body").asText())
+                        : HttpRequest.BodyPublishers.noBody();
+                requests.add(HttpRequest.newBuilder(URI.create(base + sample.get("path").asText()))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Accept", "application/json")
+                        .header("Content-Type", "application/json")
+                        .method(method, body)
+                        .build());
+            }
+            total += Math.max(1, node.path("weight").asLong(1));
+            cumulative[entries.size()] = total;
+            entries.add(new Entry(method + " " + node.get("path").asText(), requests));
+        }
+        if (entries.isEmpty()) throw new IllegalStateException("mix.json has no endpoints");
+        return new RequestMix(entries, cumulative);
+    }
+
+    public Entry next(Random random) {
+        long pick = (long) (random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1]);
+        int idx = Arrays.binarySearch(cumulativeWeights, pick + 1);
+        return entries.get(idx >= 0 ? idx : -idx - 1);
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
+""";
+    }
+
+    static String latencyHistogram() {
+        return """
+package tests.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram in microseconds.
+ * 128 sub-buckets per power of two keep the relative error under 1%
+ * with a fixed ~60 KB footprint, however long the run is.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+    private static final int BUCKETS = 2 * HALF + (64 - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        counts.incrementAndGet(index(micros));
+        total.incrementAndGet();
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public double maxMillis() {
+        return maxMicros.get() / 1_000.0;
+    }
+
+    public double percentileMillis(double percentile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(percentile / 100.0 * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros.get()) / 1_000.0;
+            }
+        }
+        return maxMillis();
+    }
+
+    static int index(long micros) {
+        if (micros < 2 * HALF) return (int) micros;
+        int shift = (63 - Long.numberOfLeadingZeros(micros)) - (SUB_BUCKET_BITS - 1);
+        return 2 * HALF + (shift - 1) * HALF + (int) ((micros >> shift) - HALF);
+    }
+
+    static long upperBound(int index) {
+        if (index < 2 * HALF) return index;
+        int shift = (index - 2 * HALF) / HALF + 1;
+        long sub = (index - 2 * HALF) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
+""";
+    }
+}
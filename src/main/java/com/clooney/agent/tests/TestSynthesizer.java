@@ -1,76 +1,58 @@
 package com.clooney.agent.tests;
 
+import com.clooney.agent.config.GenerationOptions;
+import com.clooney.agent.llm.CompletionFiles;
 import com.clooney.agent.llm.LLMClient;
+import com.clooney.agent.spec.OpenApiOperations;
 import com.clooney.agent.spec.Prompts;
+import com.clooney.agent.verify.CandidateSelector;
+import com.clooney.agent.verify.CompileVerifier;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 
 public class TestSynthesizer {
 
     private final Path specDir;
     private final Path outputDir;
     private final LLMClient llm;
+    private final GenerationOptions options;
+    private final CompileVerifier verifier; // null = no compile check of candidates
+    private final Path modulePom;           // pom.xml of the module the tests compile in
 
     public TestSynthesizer(Path specDir, Path outputDir, LLMClient llm) {
+        this(specDir, outputDir, llm, GenerationOptions.defaults(), null, null);
+    }
+
+    public TestSynthesizer(Path specDir, Path outputDir, LLMClient llm, GenerationOptions options,
+                           CompileVerifier verifier, Path modulePom) {
         this.specDir = specDir;
         this.outputDir = outputDir;
         this.llm = llm;
+        this.options = options;
+        this.verifier = verifier;
+        this.modulePom = modulePom;
     }
 
     public void synthesizeTests() {
         try {
             String openapi = Files.readString(specDir.resolve("openapi.yaml"));
             String prompt = Prompts.buildTestsPrompt(openapi);
-            String completion = llm.complete(prompt);
 
-            writeFilesFromCompletion(completion);
+            Map<String, String> files;
+            if (options.getCandidates() > 1) {
+                String pomXml = modulePom != null && Files.exists(modulePom) ? Files.readString(modulePom) : null;
+                files = new CandidateSelector(llm, options.getCandidates(), verifier, pomXml,
+                        OpenApiOperations.parse(openapi)).select(prompt).files();
+            } else {
+                files = CompletionFiles.parse(llm.complete(prompt));
+            }
+            int written = CompletionFiles.write(files, outputDir);
+            System.out.println("[Clooney] Wrote " + written + " of " + files.size() + " test files (unchanged files kept).");
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
-
-    private void writeFilesFromCompletion(String completion) throws IOException {
-        Files.createDirectories(outputDir); // e.g. tests/backend/src/test/java/tests/backend
-
-        final String fileMarker = "===FILE:";
-        final String endMarker = "===END===";
-
-        int idx = 0;
-        while (true) {
-            int start = completion.indexOf(fileMarker, idx);
-            if (start < 0) {
-                break;
-            }
-
-            int pathStart = start + fileMarker.length();
-            int pathEnd = completion.indexOf("===", pathStart);
-            if (pathEnd < 0) {
-                break;
-            }
-
-            String relativePath = completion.substring(pathStart, pathEnd).trim();
-
-            int contentStart = completion.indexOf('\n', pathEnd);
-            if (contentStart < 0) {
-                break;
-            }
-            contentStart += 1; // skip newline
-
-            int nextFile = completion.indexOf(fileMarker, contentStart);
-            int end = nextFile >= 0 ? nextFile : completion.indexOf(endMarker, contentStart);
-            if (end < 0) {
-                end = completion.length();
-            }
-
-            String fileContent = completion.substring(contentStart, end).trim();
-
-            Path target = outputDir.resolve(relativePath);
-            Files.createDirectories(target.getParent());
-            Files.writeString(target, fileContent);
-
-            idx = end;
-        }
-    }
 }
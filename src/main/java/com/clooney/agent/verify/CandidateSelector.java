@@ -0,0 +1,132 @@
+package com.clooney.agent.verify;
+
+import com.clooney.agent.llm.CompletionFiles;
+import com.clooney.agent.llm.LLMClient;
+import com.clooney.agent.spec.OpenApiOperations.Operation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Requests several completions of the same prompt concurrently and keeps the first good one.
+ *
+ * Candidates are checked in the order they arrive:
+ *  - the ===FILE:...=== markers parse into at least one file,
+ *  - the Java sources compile in memory ({@link CompileVerifier}, when one is given),
+ *  - every OpenAPI path is referenced ({@link SpecCoverage}).
+ *
+ * The first candidate passing all three wins and the outstanding requests are
+ * cancelled. If none passes, the best-scoring candidate is returned.
+ */
+public class CandidateSelector {
+
+    /**
+     * A scored completion. {@code compiled} is null when no verifier was configured
+     * or the classpath could not be resolved.
+     */
+    public record Candidate(int index, Map<String, String> files, Boolean compiled,
+                            CompileReport report, double coverage) {
+
+        public boolean passed() {
+            return !files.isEmpty() && !Boolean.FALSE.equals(compiled) && coverage >= 1.0;
+        }
+
+        double score() {
+            return (files.isEmpty() ? 0 : 1) + (Boolean.FALSE.equals(compiled) ? 0 : 1) + coverage;
+        }
+    }
+
+    private final LLMClient llm;
+    private final int candidates;
+    private final CompileVerifier verifier; // null = skip the compile check
+    private final String pomXml;            // null = use the candidate's own pom.xml
+    private final List<Operation> operations;
+
+    public CandidateSelector(LLMClient llm, int candidates, CompileVerifier verifier, String pomXml,
+                             List<Operation> operations) {
+        this.llm = llm;
+        this.candidates = Math.max(1, candidates);
+        this.verifier = verifier;
+        this.pomXml = pomXml;
+        this.operations = operations;
+    }
+
+    public Candidate select(String prompt) {
+        ExecutorService executor = Executors.newFixedThreadPool(candidates);
+        CompletionService<String> completions = new ExecutorCompletionService<>(executor);
+        List<Future<String>> pending = new ArrayList<>();
+        for (int i = 0; i < candidates; i++) {
+            pending.add(completions.submit(() -> llm.complete(prompt)));
+        }
+
+        List<Candidate> scored = new ArrayList<>();
+        RuntimeException lastError = null;
+        try {
+            for (int i = 0; i < candidates; i++) {
+                String completion;
+                try {
+                    completion = completions.take().get();
+                } catch (ExecutionException e) {
+                    lastError = e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+                    System.out.println("[Clooney] Candidate request failed: " + e.getCause().getMessage());
+                    continue;
+                }
+
+                Candidate candidate = score(i + 1, completion);
+                scored.add(candidate);
+                System.out.println("[Clooney] Candidate " + candidate.index() + "/" + candidates + ": "
+                        + candidate.files().size() + " file(s), compiles=" + describe(candidate.compiled())
+                        + ", spec coverage=" + Math.round(100 * candidate.coverage()) + "%");
+                if (candidate.passed()) {
+                    return candidate;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for candidates", e);
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+            executor.shutdownNow();
+        }
+
+        if (scored.isEmpty()) {
+            throw lastError != null ? lastError : new IllegalStateException("No candidate completion");
+        }
+        Candidate best = scored.stream().max(Comparator.comparingDouble(Candidate::score)).get();
+        System.out.println("[Clooney] WARNING: no candidate passed all checks; keeping candidate " + best.index() + ".");
+        return best;
+    }
+
+    private Candidate score(int index, String completion) {
+        Map<String, String> files = CompletionFiles.parse(completion);
+        if (files.isEmpty()) {
+            return new Candidate(index, files, false, null, 0);
+        }
+
+        Boolean compiled = null;
+        CompileReport report = null;
+        String pom = pomXml != null ? pomXml : files.get("pom.xml");
+        if (verifier != null && pom != null) {
+            try {
+                report = verifier.verify(files, pom);
+                compiled = report.success();
+            } catch (IOException e) {
+                System.out.println("[Clooney] WARNING: skipping compile check: " + e.getMessage());
+            }
+        }
+        return new Candidate(index, files, compiled, report, SpecCoverage.of(operations, files.values()));
+    }
+
+    private static String describe(Boolean compiled) {
+        return compiled == null ? "unchecked" : compiled.toString();
+    }
+}
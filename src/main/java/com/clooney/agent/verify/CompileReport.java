@@ -0,0 +1,36 @@
+package com.clooney.agent.verify;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of compiling a set of generated sources in-process.
+ *
+ * @param success  true when javac reported no errors
+ * @param problems errors, mapped back to the generated relative file paths
+ * @param millis   wall time of the compilation (excluding classpath resolution)
+ */
+public record CompileReport(boolean success, List<Problem> problems, long millis) {
+
+    public record Problem(String file, long line, long column, String message) {
+
+        @Override
+        public String toString() {
+            return file + ":" + line + ":" + column + ": " + message;
+        }
+    }
+
+    /**
+     * @return relative path -> errors in that file, in file order
+     */
+    public Map<String, List<Problem>> problemsByFile() {
+        return problems.stream().collect(Collectors.groupingBy(
+                Problem::file, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    public String summary() {
+        return problems.stream().map(Problem::toString).collect(Collectors.joining("\n"));
+    }
+}
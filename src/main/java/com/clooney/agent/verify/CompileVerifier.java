@@ -0,0 +1,128 @@
+package com.clooney.agent.verify;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiles generated Java sources in-process with javax.tools.
+ *
+ * Sources are read from memory (the parsed completion) and class files are
+ * discarded into memory, so nothing is written to disk and no Maven build runs.
+ * Dependencies come from {@link DependencyClasspath}, keyed by the generated pom.xml.
+ */
+public class CompileVerifier {
+
+    private final DependencyClasspath classpath;
+
+    public CompileVerifier(Path cacheDir) {
+        this.classpath = new DependencyClasspath(cacheDir);
+    }
+
+    /**
+     * Compile every *.java entry of a generated project; the classpath comes from its "pom.xml" entry.
+     */
+    public CompileReport verify(Map<String, String> files) throws IOException {
+        String pomXml = files.get("pom.xml");
+        if (pomXml == null) {
+            throw new IOException("Generated files contain no pom.xml to resolve dependencies from");
+        }
+        return verify(files, pomXml);
+    }
+
+    public CompileReport verify(Map<String, String> files, String pomXml) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler; run Clooney on a JDK, not a JRE");
+        }
+
+        List<JavaFileObject> sources = new ArrayList<>();
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            if (file.getKey().endsWith(".java")) {
+                sources.add(new SourceFile(file.getKey(), file.getValue()));
+            }
+        }
+        if (sources.isEmpty()) {
+            return new CompileReport(true, List.of(), 0);
+        }
+
+        List<String> options = List.of(
+                "-classpath", classpath.resolve(pomXml),
+                "--release", "17",
+                "-proc:none",
+                "-parameters",
+                "-Xlint:none",
+                "-nowarn");
+
+        long start = System.nanoTime();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8);
+        boolean success;
+        try (InMemoryOutput fileManager = new InMemoryOutput(standard)) {
+            success = compiler.getTask(null, fileManager, diagnostics, options, null, sources).call();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        List<CompileReport.Problem> problems = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+            if (d.getKind() != Diagnostic.Kind.ERROR) continue;
+            String file = d.getSource() instanceof SourceFile sf ? sf.relativePath : "<unknown>";
+            problems.add(new CompileReport.Problem(file, d.getLineNumber(), d.getColumnNumber(),
+                    d.getMessage(Locale.ROOT)));
+        }
+        return new CompileReport(success, problems, millis);
+    }
+
+    // Generated source held in memory, remembering its path inside the generated project
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String relativePath;
+        private final String content;
+
+        SourceFile(String relativePath, String content) {
+            super(URI.create("string:///" + relativePath.replace('\\', '/')), Kind.SOURCE);
+            this.relativePath = relativePath;
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    // Keeps compiled classes in memory instead of writing them next to the sources
+    private static final class InMemoryOutput extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        InMemoryOutput(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    return new ByteArrayOutputStream();
+                }
+            };
+        }
+    }
+}
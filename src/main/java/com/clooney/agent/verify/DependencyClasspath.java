@@ -0,0 +1,119 @@
+package com.clooney.agent.verify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the dependency classpath of a generated pom.xml, cached by pom content.
+ *
+ * The first resolution for a given pom runs `mvn dependency:build-classpath` once;
+ * the result is stored as cacheDir/classpath-<sha256>.txt, so later verifications
+ * of the same dependency set never start Maven again. Maven writes to a temp file
+ * that is moved there only on success, so a failed or timed-out run never leaves a
+ * partial classpath behind. Callers verifying the same pom at the same time share
+ * one Maven run; different poms resolve in parallel.
+ */
+public class DependencyClasspath {
+
+    private static final long MAVEN_TIMEOUT_MINUTES = 10;
+
+    private final Path cacheDir;
+    // One resolution per pom hash: concurrent callers for the same pom wait for it, others run in parallel
+    private final Map<String, CompletableFuture<String>> resolutions = new ConcurrentHashMap<>();
+
+    public DependencyClasspath(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public String resolve(String pomXml) throws IOException {
+        String key = sha256(pomXml);
+        CompletableFuture<String> resolution = new CompletableFuture<>();
+        CompletableFuture<String> running = resolutions.putIfAbsent(key, resolution);
+        if (running != null) return await(running);
+
+        try {
+            Path classpathFile = cacheDir.resolve("classpath-" + key + ".txt");
+            if (!Files.exists(classpathFile)) {
+                runMaven(key, pomXml, classpathFile);
+            }
+            String classpath = Files.readString(classpathFile).trim();
+            resolution.complete(classpath);
+            return classpath;
+        } catch (IOException | RuntimeException e) {
+            // Not cached: the next caller tries again
+            resolutions.remove(key, resolution);
+            resolution.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static String await(CompletableFuture<String> resolution) throws IOException {
+        try {
+            return resolution.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for dependency resolution", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Dependency resolution failed", e.getCause());
+        }
+    }
+
+    private void runMaven(String key, String pomXml, Path classpathFile) throws IOException {
+        Files.createDirectories(cacheDir);
+        Path pomFile = cacheDir.resolve("pom-" + key + ".xml");
+        Files.writeString(pomFile, pomXml);
+        // A unique name Maven creates itself, so its existence means Maven wrote it
+        Path outputFile = Files.createTempFile(cacheDir, "classpath-" + key, ".tmp");
+        Files.delete(outputFile);
+
+        String mvn = System.getProperty("os.name", "").toLowerCase().contains("win") ? "mvn.cmd" : "mvn";
+        ProcessBuilder pb = new ProcessBuilder(List.of(
+                mvn, "-q", "-B", "-f", pomFile.toString(),
+                "dependency:build-classpath",
+                "-Dmdep.outputFile=" + outputFile.toAbsolutePath()))
+                .redirectErrorStream(true)
+                .redirectOutput(cacheDir.resolve("maven-" + key + ".log").toFile());
+
+        System.out.println("[Clooney] Resolving generated dependencies once (cached under " + cacheDir + ")...");
+        try {
+            Process process = pb.start();
+            if (!process.waitFor(MAVEN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                // Wait for it to die so it cannot write the output file after we delete it
+                process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+                throw new IOException("mvn dependency:build-classpath timed out");
+            }
+            if (process.exitValue() != 0 || !Files.exists(outputFile)) {
+                throw new IOException("mvn dependency:build-classpath failed, see "
+                        + cacheDir.resolve("maven-" + key + ".log"));
+            }
+            Files.move(outputFile, classpathFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resolving dependencies", e);
+        } finally {
+            Files.deleteIfExists(outputFile);
+        }
+    }
+
+    static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.clooney.agent.verify;
+
+import com.clooney.agent.spec.OpenApiOperations.Operation;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cheap estimate of how many OpenAPI paths a set of generated files refers to.
+ *
+ * Looks only at string literals starting with "/": a path counts as covered when a
+ * literal, or a literal joined to another one (class-level @RequestMapping prefix +
+ * method mapping), equals it with path parameter names ignored; or, for code that
+ * concatenates ids at runtime ("/projects/" + gid), when a literal equals the static
+ * part in front of the first parameter.
+ */
+public final class SpecCoverage {
+
+    private static final Pattern PATH_LITERAL = Pattern.compile("\"(/[^\"\\s]*)\"");
+    private static final Pattern PARAM = Pattern.compile("\\{[^}/]*}");
+
+    private SpecCoverage() {
+    }
+
+    /**
+     * @return fraction of distinct paths in {@code operations} that the sources mention, 1.0 if there are none
+     */
+    public static double of(List<Operation> operations, Collection<String> sources) {
+        Set<String> paths = new HashSet<>();
+        for (Operation op : operations) paths.add(normalize(op.path()));
+        if (paths.isEmpty()) return 1.0;
+
+        Set<String> literals = new HashSet<>();
+        Set<String> idPrefixes = new HashSet<>(); // literals ending in "/", followed by a runtime id
+        for (String source : sources) {
+            Matcher m = PATH_LITERAL.matcher(source);
+            while (m.find()) {
+                String literal = m.group(1);
+                if (literal.length() > 1 && literal.endsWith("/")) idPrefixes.add(literal);
+                literals.add(normalize(literal));
+            }
+        }
+
+        int covered = 0;
+        for (String path : paths) {
+            if (covers(literals, idPrefixes, path)) covered++;
+        }
+        return (double) covered / paths.size();
+    }
+
+    private static boolean covers(Set<String> literals, Set<String> idPrefixes, String path) {
+        if (literals.contains(path)) return true;
+
+        int param = path.indexOf("/{}");
+        if (param > 0 && idPrefixes.contains(path.substring(0, param + 1))) return true;
+
+        for (String prefix : literals) {
+            if (path.startsWith(prefix) && literals.contains(path.substring(prefix.length()))) return true;
+        }
+        return false;
+    }
+
+    // "/projects/{project_gid}/" -> "/projects/{}"
+    private static String normalize(String path) {
+        String res = PARAM.matcher(path).replaceAll("{}");
+        return res.length() > 1 && res.endsWith("/") ? res.substring(0, res.length() - 1) : res;
+    }
+}
@@ -0,0 +1,85 @@
+package com.clooney.agent.watch;
+
+import com.clooney.agent.inspect.CallStore;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the capture directory and reports changed raw_*.json files in batches.
+ *
+ * A capture run rewrites several files in quick succession, so events are
+ * collected until the directory has been quiet for {@code quietMillis}; the
+ * callback then gets every file touched in that window once. Deleted files are
+ * reported too (they no longer exist when the callback runs).
+ */
+public class CaptureWatcher {
+
+    private final Path logsDir;
+    private final long quietMillis;
+    private final PathMatcher rawLogs = FileSystems.getDefault().getPathMatcher("glob:" + CallStore.LOG_GLOB);
+
+    public CaptureWatcher(Path logsDir, long quietMillis) {
+        this.logsDir = logsDir;
+        this.quietMillis = quietMillis;
+    }
+
+    /**
+     * Blocks until the thread is interrupted.
+     */
+    public void watch(Consumer<Set<Path>> onChange) {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            Files.createDirectories(logsDir);
+            logsDir.register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changed = new TreeSet<>();
+                WatchKey key = watcher.take();
+                while (key != null) {
+                    collect(key, changed);
+                    key = watcher.poll(quietMillis, TimeUnit.MILLISECONDS);
+                }
+                if (!changed.isEmpty()) {
+                    onChange.accept(changed);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) throws IOException {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were dropped: treat every log as changed
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(logsDir, CallStore.LOG_GLOB)) {
+                    stream.forEach(changed::add);
+                }
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (rawLogs.matches(name)) {
+                changed.add(logsDir.resolve(name));
+            }
+        }
+        key.reset();
+    }
+}
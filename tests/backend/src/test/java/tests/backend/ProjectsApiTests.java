@@ -1,8 +1,8 @@
 package tests.backend;
 
-import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.http.ContentType;
-import org.junit.jupiter.api.BeforeAll;
+import io.restassured.specification.RequestSpecification;
 import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
@@ -10,16 +10,15 @@ import static org.hamcrest.Matchers.*;
 
 public class ProjectsApiTests {
 
-    @BeforeAll
-    static void setup() {
-        String base = System.getProperty("api.baseUrl", "http://localhost:8080");
-        RestAssured.baseURI = base;
-    }
+    // Per-class spec instead of the global RestAssured.baseURI, so classes and methods can run in parallel
+    private static final RequestSpecification SPEC = new RequestSpecBuilder()
+            .setBaseUri(System.getProperty("api.baseUrl", "http://localhost:8080"))
+            .setAccept(ContentType.JSON)
+            .build();
 
     @Test
     void listProjects_returns200() {
-        given()
-            .accept(ContentType.JSON)
+        given(SPEC)
         .when()
             .get("/projects")
         .then()
@@ -29,8 +28,7 @@ public class ProjectsApiTests {
 
     @Test
     void deleteNonExistingProject_returns404ish() {
-        given()
-            .accept(ContentType.JSON)
+        given(SPEC)
         .when()
             .delete("/projects/does-not-exist")
         .then()
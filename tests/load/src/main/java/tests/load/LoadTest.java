@@ -0,0 +1,213 @@
+package tests.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for the generated backend, driven by mix.json.
+ *
+ * Usage (from tests/load):
+ *   mvn -q compile exec:java -Dexec.args="--mode=closed --concurrency=32 --duration=30"
+ *   mvn -q compile exec:java -Dexec.args="--mode=open --rate=500 --duration=30"
+ *
+ * Options: --base-url (default http://localhost:8080), --mode=closed|open,
+ * --concurrency (closed), --rate in req/s (open), --duration and --warmup in seconds,
+ * --max-in-flight (open), --report (default target/load-report.json).
+ *
+ * closed: N workers each send their next request as soon as the previous one completes.
+ * open:   requests start on a fixed schedule whatever the response times; latency is
+ *         measured from the scheduled start so queueing delay is not hidden.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String baseUrl = opts.getOrDefault("base-url", System.getProperty("api.baseUrl", "http://localhost:8080"));
+        String mode = opts.getOrDefault("mode", "closed");
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "16"));
+        double rate = Double.parseDouble(opts.getOrDefault("rate", "200"));
+        int maxInFlight = Integer.parseInt(opts.getOrDefault("max-in-flight", "10000"));
+        long durationSeconds = Long.parseLong(opts.getOrDefault("duration", "30"));
+        long warmupSeconds = Long.parseLong(opts.getOrDefault("warmup", "5"));
+        Path report = Path.of(opts.getOrDefault("report", "target/load-report.json"));
+
+        RequestMix mix = RequestMix.load(baseUrl);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        System.out.println("[LoadTest] " + mode + " loop against " + baseUrl + ", "
+                + mix.size() + " endpoints, warmup " + warmupSeconds + "s, measuring " + durationSeconds + "s");
+
+        Stats warmup = new Stats(mix);
+        Stats measured = new Stats(mix);
+        if (mode.equals("open")) {
+            runOpen(client, mix, rate, maxInFlight, warmupSeconds, warmup);
+            runOpen(client, mix, rate, maxInFlight, durationSeconds, measured);
+        } else {
+            runClosed(client, mix, concurrency, warmupSeconds, warmup);
+            runClosed(client, mix, concurrency, durationSeconds, measured);
+        }
+
+        Map<String, Object> json = measured.toJson(mode, durationSeconds);
+        json.put("config", Map.of(
+                "baseUrl", baseUrl,
+                "concurrency", concurrency,
+                "rate", rate,
+                "warmupSeconds", warmupSeconds));
+
+        ObjectMapper mapper = new ObjectMapper();
+        if (report.getParent() != null) Files.createDirectories(report.getParent());
+        mapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), json);
+        System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json.get("overall")));
+        System.out.println("[LoadTest] Report written to " + report.toAbsolutePath());
+    }
+
+    private static void runClosed(HttpClient client, RequestMix mix, int concurrency,
+                                  long seconds, Stats stats) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Thread[] workers = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    RequestMix.Entry entry = mix.next(random);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(entry.request(random),
+                                HttpResponse.BodyHandlers.discarding());
+                        stats.record(entry, System.nanoTime() - start, response.statusCode());
+                    } catch (IOException e) {
+                        stats.record(entry, System.nanoTime() - start, -1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "load-worker-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static void runOpen(HttpClient client, RequestMix mix, double rate, int maxInFlight,
+                                long seconds, Stats stats) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger inFlight = new AtomicInteger();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (long scheduled = System.nanoTime(); scheduled < end; scheduled += intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            RequestMix.Entry entry = mix.next(random);
+            if (inFlight.get() >= maxInFlight) {
+                stats.drop(entry);
+                continue;
+            }
+            inFlight.incrementAndGet();
+            long intendedStart = scheduled;
+            client.sendAsync(entry.request(random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        int status = error != null ? -1 : response.statusCode();
+                        stats.record(entry, System.nanoTime() - intendedStart, status);
+                        inFlight.decrementAndGet();
+                    });
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            String[] kv = arg.substring(2).split("=", 2);
+            opts.put(kv[0], kv.length > 1 ? kv[1] : "true");
+        }
+        return opts;
+    }
+
+    /**
+     * Per-endpoint and overall counters; safe for concurrent recording.
+     */
+    static final class Stats {
+
+        private final Map<String, EndpointStats> byEndpoint = new LinkedHashMap<>();
+        private final EndpointStats overall = new EndpointStats();
+
+        Stats(RequestMix mix) {
+            for (RequestMix.Entry entry : mix.entries()) {
+                byEndpoint.put(entry.key(), new EndpointStats());
+            }
+        }
+
+        void record(RequestMix.Entry entry, long latencyNanos, int status) {
+            byEndpoint.get(entry.key()).record(latencyNanos, status);
+            overall.record(latencyNanos, status);
+        }
+
+        void drop(RequestMix.Entry entry) {
+            byEndpoint.get(entry.key()).dropped.incrementAndGet();
+            overall.dropped.incrementAndGet();
+        }
+
+        Map<String, Object> toJson(String mode, long seconds) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("mode", mode);
+            json.put("durationSeconds", seconds);
+            json.put("overall", overall.toJson(seconds));
+            Map<String, Object> endpoints = new LinkedHashMap<>();
+            byEndpoint.forEach((key, s) -> endpoints.put(key, s.toJson(seconds)));
+            json.put("endpoints", endpoints);
+            return json;
+        }
+    }
+
+    static final class EndpointStats {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+
+        void record(long latencyNanos, int status) {
+            latency.record(latencyNanos);
+            if (status < 200 || status >= 400) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Map<String, Object> toJson(long seconds) {
+            long count = latency.count();
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("requests", count);
+            json.put("errors", errors.get());
+            json.put("dropped", dropped.get());
+            json.put("throughputRps", seconds == 0 ? 0 : (double) count / seconds);
+            json.put("p50Ms", latency.percentileMillis(50));
+            json.put("p99Ms", latency.percentileMillis(99));
+            json.put("p999Ms", latency.percentileMillis(99.9));
+            json.put("maxMs", latency.maxMillis());
+            return json;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package tests.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted request mix read from mix.json (generated from openapi.yaml and capture logs).
+ * Requests are built once up front and reused for every send.
+ */
+public final class RequestMix {
+
+    public record Entry(String key, List<HttpRequest> requests) {
+
+        HttpRequest request(Random random) {
+            return requests.get(requests.size() == 1 ? 0 : random.nextInt(requests.size()));
+        }
+    }
+
+    private final List<Entry> entries;
+    private final long[] cumulativeWeights;
+
+    private RequestMix(List<Entry> entries, long[] cumulativeWeights) {
+        this.entries = entries;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    public static RequestMix load(String baseUrl) throws IOException {
+        JsonNode root;
+        try (InputStream in = RequestMix.class.getResourceAsStream("/mix.json")) {
+            if (in == null) throw new IllegalStateException("mix.json not found on the classpath");
+            root = new ObjectMapper().readTree(in);
+        }
+
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        List<Entry> entries = new ArrayList<>();
+        long[] cumulative = new long[root.size()];
+        long total = 0;
+        for (JsonNode node : root) {
+            String method = node.get("method").asText();
+            List<HttpRequest> requests = new ArrayList<>();
+            for (JsonNode sample : node.get("samples")) {
+                HttpRequest.BodyPublisher body = sample.hasNonNull("body")
+                        ? HttpRequest.BodyPublishers.ofString(sample.get("body").asText())
+                        : HttpRequest.BodyPublishers.noBody();
+                requests.add(HttpRequest.newBuilder(URI.create(base + sample.get("path").asText()))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Accept", "application/json")
+                        .header("Content-Type", "application/json")
+                        .method(method, body)
+                        .build());
+            }
+            total += Math.max(1, node.path("weight").asLong(1));
+            cumulative[entries.size()] = total;
+            entries.add(new Entry(method + " " + node.get("path").asText(), requests));
+        }
+        if (entries.isEmpty()) throw new IllegalStateException("mix.json has no endpoints");
+        return new RequestMix(entries, cumulative);
+    }
+
+    public Entry next(Random random) {
+        long pick = (long) (random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1]);
+        int idx = Arrays.binarySearch(cumulativeWeights, pick + 1);
+        return entries.get(idx >= 0 ? idx : -idx - 1);
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}